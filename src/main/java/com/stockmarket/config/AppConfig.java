@@ -1,14 +1,135 @@
 package com.stockmarket.config;
 
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 @Configuration
+@EnableScheduling
 public class AppConfig {
-    
+
+    @Value("${http.client.max-total:50}")
+    private int maxTotalConnections;
+
+    @Value("${http.client.max-per-route:10}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${http.client.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${http.client.connection-request-timeout-ms:1000}")
+    private long connectionRequestTimeoutMs;
+
+    @Value("${http.client.read-timeout-ms:5000}")
+    private long readTimeoutMs;
+
+    @Value("${http.client.keep-alive-ms:30000}")
+    private long keepAliveMs;
+
+    @Value("${gemini.api.read-timeout-ms:30000}")
+    private long geminiReadTimeoutMs;
+
+    /**
+     * Connection pool shared by every outbound HTTP client. Connections are
+     * kept alive between calls and capped per upstream host, so a slow
+     * upstream can only tie up its own share of the pool.
+     */
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager httpConnectionManager() {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(maxTotalConnections)
+            .setMaxConnPerRoute(maxConnectionsPerRoute)
+            .setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                .setValidateAfterInactivity(TimeValue.ofSeconds(5))
+                .build())
+            .build();
+    }
+
+    /** Client for the market data and news APIs. */
+    @Bean
+    @Primary
+    public RestTemplate restTemplate(PoolingHttpClientConnectionManager httpConnectionManager) {
+        return pooledRestTemplate(httpConnectionManager, readTimeoutMs);
+    }
+
+    /** Client for Gemini, which needs a longer read timeout than the market APIs. */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate geminiRestTemplate(PoolingHttpClientConnectionManager httpConnectionManager) {
+        return pooledRestTemplate(httpConnectionManager, geminiReadTimeoutMs);
+    }
+
+    private RestTemplate pooledRestTemplate(PoolingHttpClientConnectionManager connectionManager, long responseTimeoutMs) {
+        CloseableHttpClient httpClient = HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setConnectionManagerShared(true)
+            .setDefaultRequestConfig(RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectionRequestTimeoutMs))
+                .setResponseTimeout(Timeout.ofMilliseconds(responseTimeoutMs))
+                .setConnectionKeepAlive(TimeValue.ofMilliseconds(keepAliveMs))
+                .build())
+            .build();
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+    }
+
+    /**
+     * Worker pool for fanning out upstream market data requests, one thread
+     * per source. A hung source keeps its thread until the response timeout
+     * ends the call, so that timeout must stay well under the refresh
+     * interval for the pool to be free again by the next poll.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService marketDataExecutor() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("market-data-");
+        threadFactory.setDaemon(true);
+        return Executors.newFixedThreadPool(4, threadFactory);
+    }
+
+    /**
+     * Runs trades accepted by POST /api/trades/async. The queue is bounded so
+     * a burst is turned away (503) rather than piling up unbounded work.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService tradeExecutor(@Value("${trade.async.threads:4}") int threads,
+                                         @Value("${trade.async.queue-capacity:1000}") int queueCapacity) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("trade-async-");
+        threadFactory.setDaemon(true);
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), threadFactory);
+    }
+
+    /** Rebuilds and snapshots holdings one ticker per task. */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService portfolioRebuildExecutor(@Value("${portfolio.rebuild.threads:4}") int threads) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("portfolio-rebuild-");
+        threadFactory.setDaemon(true);
+        return Executors.newFixedThreadPool(threads, threadFactory);
+    }
+
+    /** Writes queued SSE frames to connected price stream clients. */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService priceStreamExecutor() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("price-stream-");
+        threadFactory.setDaemon(true);
+        return Executors.newFixedThreadPool(4, threadFactory);
     }
 }
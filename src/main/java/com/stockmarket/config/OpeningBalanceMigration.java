@@ -0,0 +1,85 @@
+package com.stockmarket.config;
+
+import com.stockmarket.entity.AppliedMigration;
+import com.stockmarket.entity.Portfolio;
+import com.stockmarket.entity.Trade;
+import com.stockmarket.repository.AppliedMigrationRepository;
+import com.stockmarket.repository.PortfolioRepository;
+import com.stockmarket.service.PortfolioProjector;
+import com.stockmarket.service.TradeService;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Gives every holding that predates the trade log an opening balance trade.
+ *
+ * <p>Holdings are rebuilt from the trade log, but rows created by the old
+ * CSV import or edited by hand have no trades, or fewer than they hold. For
+ * each row that its trades do not add up to, one
+ * {@link TradeService#OPENING} trade is recorded, dated just before the
+ * ticker's first trade and replayed ahead of them (see
+ * {@link PortfolioProjector#openingBalance}), after which a rebuild
+ * reproduces the row.
+ *
+ * <p>Runs once: when every row is reconciled it is recorded in
+ * {@code applied_migrations} and rebuilds are allowed for every ticker. A
+ * row no opening balance can reconcile (its trades hold more than it does)
+ * is reported and the migration is tried again on the next start; until
+ * then that ticker cannot be rebuilt. Rows it already reconciled then match
+ * and get nothing more.
+ */
+@Component
+public class OpeningBalanceMigration implements ApplicationRunner {
+
+    static final String NAME = "portfolio-opening-balances";
+
+    private final AppliedMigrationRepository migrationRepository;
+    private final PortfolioRepository portfolioRepository;
+    private final PortfolioProjector portfolioProjector;
+    private final TradeService tradeService;
+
+    public OpeningBalanceMigration(AppliedMigrationRepository migrationRepository,
+                                   PortfolioRepository portfolioRepository,
+                                   PortfolioProjector portfolioProjector, TradeService tradeService) {
+        this.migrationRepository = migrationRepository;
+        this.portfolioRepository = portfolioRepository;
+        this.portfolioProjector = portfolioProjector;
+        this.tradeService = tradeService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (migrationRepository.existsById(NAME)) {
+            portfolioProjector.markOpeningBalancesRecorded();
+            return;
+        }
+        int recorded = 0;
+        Map<String, String> unresolved = new LinkedHashMap<>();
+        for (Portfolio portfolio : portfolioRepository.findAll()) {
+            try {
+                Optional<Trade> opening = tradeService.recordOpeningBalance(portfolio.getTickerId());
+                if (opening.isPresent()) {
+                    recorded++;
+                }
+            } catch (RuntimeException e) {
+                unresolved.put(portfolio.getTickerId(), e.getMessage());
+            }
+        }
+        if (recorded > 0) {
+            System.out.println("Recorded opening balance trades for " + recorded + " holdings");
+        }
+        if (!unresolved.isEmpty()) {
+            System.err.println("Opening balance migration left " + unresolved.size()
+                + " holdings unreconciled, they will not be rebuilt: " + unresolved);
+            return;
+        }
+        migrationRepository.save(new AppliedMigration(NAME, LocalDateTime.now()));
+        portfolioProjector.markOpeningBalancesRecorded();
+    }
+}
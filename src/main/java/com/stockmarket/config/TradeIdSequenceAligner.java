@@ -0,0 +1,46 @@
+package com.stockmarket.config;
+
+import com.stockmarket.entity.Trade;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the trade id sequence past ids that already exist.
+ *
+ * <p>Trade ids used to come from an auto-increment column; they now come
+ * from a pooled sequence so inserts can be batched. On MySQL Hibernate
+ * emulates the sequence with the {@code trades_seq} table, which starts at 1
+ * when it is first created against an existing {@code trades} table. A
+ * pooled block is the {@link Trade#ID_ALLOCATION_SIZE} ids ending at the
+ * stored value, so it is raised to at least MAX(id) + allocation size + 1.
+ *
+ * <p>Databases with native sequences (H2 in tests) have no such table and
+ * start empty, so the update failing there is expected and ignored.
+ */
+@Component
+public class TradeIdSequenceAligner implements ApplicationRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TradeIdSequenceAligner(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int floor = Trade.ID_ALLOCATION_SIZE + 1;
+        try {
+            int updated = jdbcTemplate.update(
+                "UPDATE trades_seq SET next_val = (SELECT COALESCE(MAX(id), 0) + ? FROM trades) "
+                    + "WHERE next_val < (SELECT COALESCE(MAX(id), 0) + ? FROM trades)", floor, floor);
+            if (updated > 0) {
+                System.out.println("Advanced trades_seq past existing trade ids");
+            }
+        } catch (DataAccessException e) {
+            // No sequence table: the database has native sequences
+        }
+    }
+}
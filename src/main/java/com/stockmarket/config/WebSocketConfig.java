@@ -0,0 +1,23 @@
+package com.stockmarket.config;
+
+import com.stockmarket.controller.PriceFeedWebSocketHandler;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+    
+    private final PriceFeedWebSocketHandler priceFeedWebSocketHandler;
+    
+    public WebSocketConfig(PriceFeedWebSocketHandler priceFeedWebSocketHandler) {
+        this.priceFeedWebSocketHandler = priceFeedWebSocketHandler;
+    }
+    
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(priceFeedWebSocketHandler, "/ws/prices").setAllowedOrigins("*");
+    }
+}
@@ -152,7 +152,7 @@ public class ChatController {
             if ("BUY".equals(trade.getTradeType())) {
                 buyCount++;
                 totalBuyAmount += trade.getTotalAmount();
-            } else {
+            } else if ("SELL".equals(trade.getTradeType())) {
                 sellCount++;
                 totalSellAmount += trade.getTotalAmount();
             }
@@ -2,15 +2,16 @@ package com.stockmarket.controller;
 
 import com.stockmarket.entity.Portfolio;
 import com.stockmarket.entity.Trade;
+import com.stockmarket.model.MarketSnapshot;
 import com.stockmarket.repository.PortfolioRepository;
 import com.stockmarket.repository.TradeRepository;
+import com.stockmarket.service.MarketDataService;
+import com.stockmarket.service.RealizedGainService;
+import com.stockmarket.service.SymbolRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
 
-import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -26,16 +27,13 @@ public class DashboardController {
     private PortfolioRepository portfolioRepository;
     
     @Autowired
-    private RestTemplate restTemplate;
+    private MarketDataService marketDataService;
     
-    @Value("${stock.api.nse.url:https://stock.indianapi.in/NSE_most_active}")
-    private String nseApiUrl;
-    
-    @Value("${stock.api.bse.url:https://stock.indianapi.in/BSE_most_active}")
-    private String bseApiUrl;
+    @Autowired
+    private SymbolRegistry symbolRegistry;
     
-    @Value("${stock.api.key:sk-live-TMbB4OWlD0trKuuCIymohljapSXexU2R5Hx3aP4v}")
-    private String apiKey;
+    @Autowired
+    private RealizedGainService realizedGainService;
     
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> getDashboardStats() {
@@ -46,22 +44,31 @@ public class DashboardController {
             List<Portfolio> portfolios = portfolioRepository.findAll();
             List<Trade> allTrades = tradeRepository.findAll();
             
-            // Fetch live market data
-            Map<String, Double> marketPrices = fetchMarketPrices();
+            // Live market data from the in-memory snapshot
+            MarketSnapshot snapshot = marketDataService.getSnapshot();
+            stats.put("pricesAsOf", snapshot.getFetchedAt());
+            stats.put("staleSources", snapshot.getStaleSources());
             
             // Total unique stocks
             stats.put("totalStocks", portfolios.size());
             
+            // Resolve each holding's symbol id once; price lookups below are array reads
+            int[] symbolIds = new int[portfolios.size()];
+            for (int i = 0; i < symbolIds.length; i++) {
+                symbolIds[i] = symbolRegistry.idOf(portfolios.get(i).getTickerId());
+            }
+            
             // Calculate total investment and current value
             double totalInvestment = 0;
             double totalCurrentValue = 0;
             
-            for (Portfolio p : portfolios) {
+            for (int i = 0; i < symbolIds.length; i++) {
+                Portfolio p = portfolios.get(i);
                 totalInvestment += p.getAveragePrice() * p.getTotalQuantity();
                 
                 // Get current price from market data
-                Double currentPrice = marketPrices.get(p.getTickerId());
-                if (currentPrice != null) {
+                double currentPrice = snapshot.getPrice(symbolIds[i]);
+                if (!Double.isNaN(currentPrice)) {
                     totalCurrentValue += currentPrice * p.getTotalQuantity();
                 } else {
                     // Fallback to average price if market data not available
@@ -114,15 +121,16 @@ public class DashboardController {
             
             // Stock-wise performance
             List<Map<String, Object>> stockPerformance = new ArrayList<>();
-            for (Portfolio p : portfolios) {
+            for (int i = 0; i < symbolIds.length; i++) {
+                Portfolio p = portfolios.get(i);
                 Map<String, Object> stockData = new HashMap<>();
                 stockData.put("tickerId", p.getTickerId());
                 stockData.put("companyName", p.getCompanyName());
                 stockData.put("quantity", p.getTotalQuantity());
                 stockData.put("avgPrice", p.getAveragePrice());
                 
-                Double currentPrice = marketPrices.get(p.getTickerId());
-                if (currentPrice != null) {
+                double currentPrice = snapshot.getPrice(symbolIds[i]);
+                if (!Double.isNaN(currentPrice)) {
                     double invested = p.getAveragePrice() * p.getTotalQuantity();
                     double current = currentPrice * p.getTotalQuantity();
                     double pl = current - invested;
@@ -138,8 +146,8 @@ public class DashboardController {
             }
             stats.put("stockPerformance", stockPerformance);
             
-            // Monthly profit/loss trend (last 12 months)
-            Map<String, Double> monthlyTrend = calculateMonthlyTrend(allTrades, marketPrices);
+            // Monthly realized profit/loss (last 12 months), from the lot-matched gains of each SELL
+            Map<String, Double> monthlyTrend = realizedGainService.monthlyTotals(12);
             stats.put("monthlyTrend", monthlyTrend);
             
             // Top gainers and losers
@@ -173,96 +181,4 @@ public class DashboardController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
         }
     }
-    
-    private Map<String, Double> fetchMarketPrices() {
-        Map<String, Double> prices = new HashMap<>();
-        
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("X-Api-Key", apiKey);
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-            
-            // Fetch NSE prices
-            try {
-                ResponseEntity<Map> nseResponse = restTemplate.exchange(
-                    nseApiUrl, HttpMethod.GET, entity, Map.class
-                );
-                if (nseResponse.getBody() != null && nseResponse.getBody().get("most_active") != null) {
-                    List<Map<String, Object>> stocks = (List<Map<String, Object>>) nseResponse.getBody().get("most_active");
-                    for (Map<String, Object> stock : stocks) {
-                        String tickerId = (String) stock.get("ticker_id");
-                        Object priceObj = stock.get("price");
-                        if (tickerId != null && priceObj != null) {
-                            Double price = priceObj instanceof Number ? 
-                                ((Number) priceObj).doubleValue() : 
-                                Double.parseDouble(priceObj.toString());
-                            prices.put(tickerId, price);
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                System.err.println("Error fetching NSE prices: " + e.getMessage());
-            }
-            
-            // Fetch BSE prices
-            try {
-                ResponseEntity<Map> bseResponse = restTemplate.exchange(
-                    bseApiUrl, HttpMethod.GET, entity, Map.class
-                );
-                if (bseResponse.getBody() != null && bseResponse.getBody().get("most_active") != null) {
-                    List<Map<String, Object>> stocks = (List<Map<String, Object>>) bseResponse.getBody().get("most_active");
-                    for (Map<String, Object> stock : stocks) {
-                        String tickerId = (String) stock.get("ticker_id");
-                        Object priceObj = stock.get("price");
-                        if (tickerId != null && priceObj != null) {
-                            Double price = priceObj instanceof Number ? 
-                                ((Number) priceObj).doubleValue() : 
-                                Double.parseDouble(priceObj.toString());
-                            prices.put(tickerId, price);
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                System.err.println("Error fetching BSE prices: " + e.getMessage());
-            }
-            
-        } catch (Exception e) {
-            System.err.println("Error in fetchMarketPrices: " + e.getMessage());
-        }
-        
-        return prices;
-    }
-    
-    private Map<String, Double> calculateMonthlyTrend(List<Trade> trades, Map<String, Double> marketPrices) {
-        Map<String, Double> monthlyTrend = new LinkedHashMap<>();
-        
-        LocalDateTime now = LocalDateTime.now();
-        
-        for (int i = 11; i >= 0; i--) {
-            LocalDateTime monthStart = now.minusMonths(i).withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0);
-            LocalDateTime monthEnd = monthStart.plusMonths(1).minusSeconds(1);
-            
-            String monthKey = monthStart.getMonth().toString().substring(0, 3) + " " + monthStart.getYear();
-            
-            // Calculate profit/loss for this month
-            List<Trade> monthTrades = trades.stream()
-                .filter(t -> t.getTimestamp() != null && 
-                           t.getTimestamp().isAfter(monthStart) && 
-                           t.getTimestamp().isBefore(monthEnd))
-                .collect(Collectors.toList());
-            
-            double monthPL = 0;
-            for (Trade trade : monthTrades) {
-                if ("SELL".equals(trade.getTradeType())) {
-                    // Simplified: assume profit on sell
-                    monthPL += trade.getTotalAmount() * 0.05; // 5% assumed profit
-                }
-            }
-            
-            monthlyTrend.put(monthKey, monthPL);
-        }
-        
-        return monthlyTrend;
-    }
 }
@@ -0,0 +1,63 @@
+package com.stockmarket.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockmarket.model.EncodedPayload;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Instant;
+
+/**
+ * Writes pre-encoded JSON payloads. The body is a {@code byte[]}, which Spring
+ * copies straight to the servlet output stream without going through Jackson.
+ *
+ * <p>Clients that accept gzip get the cached gzip variant. Every response
+ * carries ETag / Last-Modified validators and asks browsers to revalidate, so
+ * Spring answers 304 Not Modified without writing the body when they match.
+ */
+final class EncodedResponses {
+
+    private EncodedResponses() {
+    }
+
+    static ResponseEntity<byte[]> encoded(ResponseEntity.BodyBuilder builder, EncodedPayload payload,
+                                          Instant lastModified, String acceptEncoding) {
+        builder.contentType(MediaType.APPLICATION_JSON)
+            .cacheControl(CacheControl.noCache())
+            .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (lastModified != null) {
+            builder.lastModified(lastModified);
+        }
+        if (acceptsGzip(acceptEncoding)) {
+            return builder.eTag(payload.getGzipEtag())
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .body(payload.getGzip());
+        }
+        return builder.eTag(payload.getEtag()).body(payload.getJson());
+    }
+
+    /** Serializes a fixed payload once, typically a mock fallback built at startup. */
+    static EncodedPayload encode(ObjectMapper objectMapper, Object payload) {
+        try {
+            return EncodedPayload.of(objectMapper.writeValueAsBytes(payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize payload", e);
+        }
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if ("gzip".equalsIgnoreCase(parts[0].trim())) {
+                return parts.length < 2 || !parts[1].replace(" ", "").equalsIgnoreCase("q=0");
+            }
+        }
+        return false;
+    }
+}
@@ -1,19 +1,28 @@
 package com.stockmarket.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockmarket.model.EncodedPayload;
+import com.stockmarket.model.UpstreamResponse;
+import com.stockmarket.service.UpstreamClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 @RestController
 @RequestMapping("/api/news")
 @CrossOrigin(origins = "*")
 public class NewsController {
     
-    private final RestTemplate restTemplate;
+    private final UpstreamClient upstreamClient;
+    
+    private final EncodedPayload mockNews;
+    
+    /** Encoded form of the last upstream body served, reused while the body is unchanged. */
+    private final AtomicReference<EncodedPayload> encodedNews = new AtomicReference<>();
     
     @Value("${stock.api.news.url:https://stock.indianapi.in/news}")
     private String newsApiUrl;
@@ -21,30 +30,39 @@ public class NewsController {
     @Value("${stock.api.key}")
     private String apiKey;
     
-    public NewsController(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+    public NewsController(UpstreamClient upstreamClient, ObjectMapper objectMapper) {
+        this.upstreamClient = upstreamClient;
+        this.mockNews = EncodedResponses.encode(objectMapper, getMockNewsData());
     }
     
     @GetMapping
-    public ResponseEntity<?> getNews() {
-        try {
-            HttpHeaders headers = createHeaders();
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-            
-            System.out.println("Fetching news from: " + newsApiUrl);
-            
-            ResponseEntity<Map> response = restTemplate.exchange(
-                newsApiUrl, HttpMethod.GET, entity, Map.class
-            );
-            
-            System.out.println("News response: " + response.getBody());
-            return ResponseEntity.ok(response.getBody());
-            
-        } catch (Exception e) {
-            System.err.println("Error fetching news: " + e.getMessage());
-            e.printStackTrace();
-            return ResponseEntity.ok(getMockNewsData());
+    public ResponseEntity<byte[]> getNews(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        UpstreamResponse<byte[]> response = upstreamClient.get(newsApiUrl, createHeaders(), byte[].class);
+        
+        if (response == null) {
+            // Nothing has ever loaded from upstream; fall back to sample articles
+            System.out.println("Returning mock news data");
+            return EncodedResponses.encoded(ResponseEntity.ok().header(StockController.DATA_SOURCE_HEADER, "mock"),
+                mockNews, null, acceptEncoding);
+        }
+        
+        // Upstream bytes are passed through; unchanged articles get a 304 instead
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+            .header(StockController.DATA_SOURCE_HEADER, response.isFromCache() ? "cached" : "live")
+            .header(StockController.DATA_AGE_HEADER, String.valueOf(response.getAgeSeconds()));
+        return EncodedResponses.encoded(builder, encoded(response.getBody()), response.getModifiedAt(), acceptEncoding);
+    }
+    
+    /** The upstream client hands back the same array until the news changes, so identity is the version check. */
+    private EncodedPayload encoded(byte[] body) {
+        EncodedPayload current = encodedNews.get();
+        if (current != null && current.getJson() == body) {
+            return current;
         }
+        EncodedPayload fresh = EncodedPayload.of(body);
+        encodedNews.set(fresh);
+        return fresh;
     }
     
     private HttpHeaders createHeaders() {
@@ -119,7 +137,6 @@ public class NewsController {
         
         response.put("news", newsArticles);
         
-        System.out.println("Returning mock news data");
         return response;
     }
     
@@ -0,0 +1,84 @@
+package com.stockmarket.controller;
+
+import com.stockmarket.model.OrderResult;
+import com.stockmarket.service.OrderBookService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/orders")
+@CrossOrigin(origins = "*")
+public class OrderController {
+
+    @Autowired
+    private OrderBookService orderBookService;
+
+    /**
+     * Place a limit order; it fills at once if the last polled price reaches it and rests otherwise
+     * POST /api/orders
+     * Body: { "tickerId": "ONGC.NS", "companyName": "ONGC", "side": "BUY", "price": 245.50, "quantity": 10 }
+     */
+    @PostMapping
+    public ResponseEntity<Object> placeOrder(@RequestBody Map<String, Object> request) {
+        try {
+            String tickerId = (String) request.get("tickerId");
+            String companyName = (String) request.get("companyName");
+            String side = (String) request.get("side");
+            Number price = (Number) request.get("price");
+            Number quantity = (Number) request.get("quantity");
+            if (price == null || quantity == null) {
+                return error(HttpStatus.BAD_REQUEST, "Price and quantity are required");
+            }
+
+            OrderResult result = orderBookService.submit(tickerId, companyName, side, price.doubleValue(),
+                quantity.intValue());
+            if (result.isRejected()) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(result);
+            }
+            return ResponseEntity.status(HttpStatus.CREATED).body(result);
+        } catch (Exception e) {
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to place order: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Cancel what is left of a resting order
+     * DELETE /api/orders/{tickerId}/{orderId}
+     */
+    @DeleteMapping("/{tickerId}/{orderId}")
+    public ResponseEntity<Object> cancelOrder(@PathVariable String tickerId, @PathVariable long orderId) {
+        try {
+            if (orderBookService.cancel(tickerId, orderId)) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("orderId", orderId);
+                response.put("status", "CANCELLED");
+                return ResponseEntity.ok(response);
+            }
+            return error(HttpStatus.NOT_FOUND, "Order " + orderId + " is not resting in the " + tickerId + " book");
+        } catch (Exception e) {
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to cancel order: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Best price levels on each side of a ticker's book
+     * GET /api/orders/{tickerId}/book?depth=10
+     */
+    @GetMapping("/{tickerId}/book")
+    public ResponseEntity<Map<String, Object>> getBook(@PathVariable String tickerId,
+                                                       @RequestParam(defaultValue = "10") int depth) {
+        return ResponseEntity.ok(orderBookService.getDepth(tickerId, Math.max(1, Math.min(depth, 100))));
+    }
+
+    private static ResponseEntity<Object> error(HttpStatus status, String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "ERROR");
+        response.put("message", message);
+        return ResponseEntity.status(status).body(response);
+    }
+}
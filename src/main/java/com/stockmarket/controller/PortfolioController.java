@@ -1,9 +1,12 @@
 package com.stockmarket.controller;
 
 import com.stockmarket.entity.Portfolio;
+import com.stockmarket.entity.PriceTrigger;
 import com.stockmarket.service.PortfolioService;
+import com.stockmarket.service.PriceTriggerService;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -25,6 +28,9 @@ public class PortfolioController {
     @Autowired
     private PortfolioService portfolioService;
     
+    @Autowired
+    private PriceTriggerService priceTriggerService;
+    
     /**
      * Export portfolio to CSV
      * Format: EXCHANGE,SYMBOL,NAME,QUANTITY,PRICE,TIMESTAMP
@@ -116,4 +122,84 @@ public class PortfolioController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
         }
     }
+    
+    /**
+     * Rebuild every holding from the trade log
+     * POST /api/portfolio/rebuild
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildPortfolio() {
+        try {
+            return ResponseEntity.ok(portfolioService.rebuildAll());
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Rebuild failed: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+    
+    /**
+     * A holding as it stood at a point in time
+     * GET /api/portfolio/{tickerId}/at?timestamp=2026-02-04T15:30:00
+     */
+    @GetMapping("/{tickerId}/at")
+    public ResponseEntity<Portfolio> getPortfolioAt(@PathVariable String tickerId,
+                                                    @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime timestamp) {
+        return portfolioService.getPortfolioAt(tickerId, timestamp)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * Attach a stop-loss or take-profit to a holding; quantity is optional (whole holding)
+     * POST /api/portfolio/{tickerId}/triggers
+     * Body: { "type": "STOP_LOSS", "triggerPrice": 230.00, "quantity": 10 }
+     */
+    @PostMapping("/{tickerId}/triggers")
+    public ResponseEntity<Object> createTrigger(@PathVariable String tickerId, @RequestBody Map<String, Object> request) {
+        try {
+            Number triggerPrice = (Number) request.get("triggerPrice");
+            Number quantity = (Number) request.get("quantity");
+            PriceTrigger trigger = priceTriggerService.create(tickerId, (String) request.get("type"),
+                triggerPrice != null ? triggerPrice.doubleValue() : null,
+                quantity != null ? quantity.intValue() : null);
+            return ResponseEntity.status(HttpStatus.CREATED).body(trigger);
+        } catch (IllegalArgumentException | ClassCastException e) {
+            return triggerError(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (Exception e) {
+            return triggerError(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to create trigger: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Triggers attached to a holding, newest first, with their status
+     * GET /api/portfolio/{tickerId}/triggers
+     */
+    @GetMapping("/{tickerId}/triggers")
+    public ResponseEntity<List<PriceTrigger>> getTriggers(@PathVariable String tickerId) {
+        return ResponseEntity.ok(priceTriggerService.getTriggers(tickerId));
+    }
+    
+    /**
+     * Cancel an active trigger
+     * DELETE /api/portfolio/{tickerId}/triggers/{triggerId}
+     */
+    @DeleteMapping("/{tickerId}/triggers/{triggerId}")
+    public ResponseEntity<Object> cancelTrigger(@PathVariable String tickerId, @PathVariable long triggerId) {
+        if (priceTriggerService.cancel(tickerId, triggerId)) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("id", triggerId);
+            response.put("status", "CANCELLED");
+            return ResponseEntity.ok(response);
+        }
+        return triggerError(HttpStatus.NOT_FOUND, "No active trigger " + triggerId + " on " + tickerId);
+    }
+    
+    private static ResponseEntity<Object> triggerError(HttpStatus status, String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return ResponseEntity.status(status).body(response);
+    }
 }
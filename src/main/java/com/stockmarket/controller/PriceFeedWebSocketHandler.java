@@ -0,0 +1,68 @@
+package com.stockmarket.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockmarket.service.PriceSubscriptionService;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * WebSocket endpoint for per-ticker price updates at /ws/prices.
+ *
+ * Client messages:
+ *   { "action": "subscribe", "tickers": ["RELIANCE.NS", "TCS.NS"] }
+ *   { "action": "unsubscribe", "tickers": ["TCS.NS"] }
+ *   { "action": "subscribePortfolio" }
+ *
+ * Server messages:
+ *   { "type": "snapshot", "quotes": { "RELIANCE.NS": { "price": 2850.75, ... } } }
+ *   { "type": "delta", "quotes": { "RELIANCE.NS": { "price": 2851.10 } } }
+ */
+@Component
+public class PriceFeedWebSocketHandler extends TextWebSocketHandler {
+    
+    private final PriceSubscriptionService priceSubscriptionService;
+    private final ObjectMapper objectMapper;
+    
+    public PriceFeedWebSocketHandler(PriceSubscriptionService priceSubscriptionService, ObjectMapper objectMapper) {
+        this.priceSubscriptionService = priceSubscriptionService;
+        this.objectMapper = objectMapper;
+    }
+    
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        priceSubscriptionService.register(session);
+    }
+    
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        JsonNode request = objectMapper.readTree(message.getPayload());
+        String action = request.path("action").asText();
+        
+        List<String> tickers = new ArrayList<>();
+        request.path("tickers").forEach(node -> tickers.add(node.asText()));
+        
+        switch (action) {
+            case "subscribe" -> priceSubscriptionService.subscribe(session, tickers);
+            case "unsubscribe" -> priceSubscriptionService.unsubscribe(session, tickers);
+            case "subscribePortfolio" -> priceSubscriptionService.subscribePortfolio(session);
+            default -> session.sendMessage(new TextMessage("{\"type\":\"error\",\"message\":\"Unknown action\"}"));
+        }
+    }
+    
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        priceSubscriptionService.unregister(session);
+    }
+    
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        priceSubscriptionService.unregister(session);
+    }
+}
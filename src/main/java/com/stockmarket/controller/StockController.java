@@ -1,11 +1,22 @@
 package com.stockmarket.controller;
 
-import org.springframework.beans.factory.annotation.Value;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockmarket.model.EncodedPayload;
+import com.stockmarket.model.MarketSnapshot;
+import com.stockmarket.model.Tick;
+import com.stockmarket.service.CandleService;
+import com.stockmarket.service.MarketDataService;
+import com.stockmarket.service.PriceStreamService;
+import com.stockmarket.service.TickStore;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -13,96 +24,148 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class StockController {
     
-    private final RestTemplate restTemplate;
+    static final String DATA_SOURCE_HEADER = "X-Data-Source";
+    static final String DATA_AGE_HEADER = "X-Data-Age-Seconds";
     
-    @Value("${stock.api.url:https://stock.indianapi.in/trending}")
-    private String stockApiUrl;
+    private final MarketDataService marketDataService;
     
-    @Value("${stock.api.nse.url:https://stock.indianapi.in/NSE_most_active}")
-    private String nseApiUrl;
+    private final PriceStreamService priceStreamService;
     
-    @Value("${stock.api.bse.url:https://stock.indianapi.in/BSE_most_active}")
-    private String bseApiUrl;
+    private final TickStore tickStore;
     
-    @Value("${stock.api.key}")
-    private String apiKey;
+    private final CandleService candleService;
     
-    public StockController(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+    // Fallback payloads never change, so they are serialized once up front
+    private final EncodedPayload mockTrending;
+    private final EncodedPayload mockNse;
+    private final EncodedPayload mockBse;
+    
+    public StockController(MarketDataService marketDataService, PriceStreamService priceStreamService,
+                           TickStore tickStore, CandleService candleService, ObjectMapper objectMapper) {
+        this.marketDataService = marketDataService;
+        this.priceStreamService = priceStreamService;
+        this.tickStore = tickStore;
+        this.candleService = candleService;
+        this.mockTrending = EncodedResponses.encode(objectMapper, getMockTrendingData());
+        this.mockNse = EncodedResponses.encode(objectMapper, getMockNSEData());
+        this.mockBse = EncodedResponses.encode(objectMapper, getMockBSEData());
     }
     
     @GetMapping("/trending")
-    public ResponseEntity<?> getTrendingStocks() {
-        try {
-            HttpHeaders headers = createHeaders();
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-            
-            System.out.println("Fetching trending stocks from: " + stockApiUrl);
-            System.out.println("Using API Key: " + (apiKey != null ? apiKey.substring(0, 10) + "..." : "NULL"));
-            
-            ResponseEntity<Map> response = restTemplate.exchange(
-                stockApiUrl, HttpMethod.GET, entity, Map.class
-            );
-            
-            System.out.println("Trending stocks response status: " + response.getStatusCode());
-            System.out.println("Trending stocks response body: " + response.getBody());
-            
-            return ResponseEntity.ok(response.getBody());
-        } catch (Exception e) {
-            System.err.println("Error fetching trending stocks: " + e.getMessage());
-            e.printStackTrace();
-            
-            // Return mock data if API fails
-            return ResponseEntity.ok(getMockTrendingData());
+    public ResponseEntity<byte[]> getTrendingStocks(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        MarketSnapshot snapshot = marketDataService.getSnapshot();
+        if (snapshot.getTrendingPayload() == null) {
+            // Return mock data until the first successful refresh
+            System.out.println("Returning mock trending data");
+            return mockResponse(mockTrending, acceptEncoding);
         }
+        return snapshotResponse(snapshot, MarketDataService.TRENDING, snapshot.getTrendingPayload(), acceptEncoding);
     }
     
     @GetMapping("/nse-active")
-    public ResponseEntity<?> getNSEMostActive() {
-        try {
-            HttpHeaders headers = createHeaders();
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-            
-            System.out.println("Fetching NSE active stocks from: " + nseApiUrl);
-            
-            ResponseEntity<Map> response = restTemplate.exchange(
-                nseApiUrl, HttpMethod.GET, entity, Map.class
-            );
-            
-            System.out.println("NSE response: " + response.getBody());
-            return ResponseEntity.ok(response.getBody());
-        } catch (Exception e) {
-            System.err.println("Error fetching NSE data: " + e.getMessage());
-            return ResponseEntity.ok(getMockNSEData());
+    public ResponseEntity<byte[]> getNSEMostActive(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        MarketSnapshot snapshot = marketDataService.getSnapshot();
+        EncodedPayload payload = snapshot.getExchangePayload(MarketSnapshot.NSE);
+        if (payload == null) {
+            return mockResponse(mockNse, acceptEncoding);
         }
+        return snapshotResponse(snapshot, MarketSnapshot.NSE, payload, acceptEncoding);
     }
     
     @GetMapping("/bse-active")
-    public ResponseEntity<?> getBSEMostActive() {
+    public ResponseEntity<byte[]> getBSEMostActive(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        MarketSnapshot snapshot = marketDataService.getSnapshot();
+        EncodedPayload payload = snapshot.getExchangePayload(MarketSnapshot.BSE);
+        if (payload == null) {
+            return mockResponse(mockBse, acceptEncoding);
+        }
+        return snapshotResponse(snapshot, MarketSnapshot.BSE, payload, acceptEncoding);
+    }
+    
+    /**
+     * Live price feed over Server-Sent Events: one "snapshot" event on connect,
+     * then a "delta" event with changed tickers after every market refresh.
+     * GET /api/stocks/stream
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamPrices() {
+        return priceStreamService.subscribe();
+    }
+    
+    /**
+     * Recorded price ticks for one ticker, oldest first.
+     * GET /api/stocks/{tickerId}/ticks?from=2026-02-04T00:00:00Z&to=...&limit=5000
+     * Defaults to the last 24 hours.
+     */
+    @GetMapping("/{tickerId}/ticks")
+    public ResponseEntity<Map<String, Object>> getTicks(@PathVariable String tickerId,
+                                                        @RequestParam(required = false) Instant from,
+                                                        @RequestParam(required = false) Instant to,
+                                                        @RequestParam(defaultValue = "5000") int limit) {
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(Duration.ofDays(1));
+        Map<String, Object> response = new HashMap<>();
+        if (!tickStore.isEnabled()) {
+            response.put("error", "Tick history is disabled");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+        }
         try {
-            HttpHeaders headers = createHeaders();
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-            
-            System.out.println("Fetching BSE active stocks from: " + bseApiUrl);
-            
-            ResponseEntity<Map> response = restTemplate.exchange(
-                bseApiUrl, HttpMethod.GET, entity, Map.class
-            );
-            
-            System.out.println("BSE response: " + response.getBody());
-            return ResponseEntity.ok(response.getBody());
-        } catch (Exception e) {
-            System.err.println("Error fetching BSE data: " + e.getMessage());
-            return ResponseEntity.ok(getMockBSEData());
+            List<Tick> ticks = tickStore.scan(tickerId, start, end, Math.max(1, Math.min(limit, 100_000)));
+            response.put("tickerId", tickerId);
+            response.put("from", start);
+            response.put("to", end);
+            response.put("ticks", ticks);
+            return ResponseEntity.ok(response);
+        } catch (IOException e) {
+            System.err.println("Error reading ticks for " + tickerId + ": " + e.getMessage());
+            response.put("error", "Failed to read tick history");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+    
+    /**
+     * OHLC candles for one ticker from the in-memory aggregator, oldest first.
+     * GET /api/stocks/{tickerId}/candles?resolution=5m&limit=100
+     * Resolutions: 1m, 5m, 1h, 1d.
+     */
+    @GetMapping("/{tickerId}/candles")
+    public ResponseEntity<Map<String, Object>> getCandles(@PathVariable String tickerId,
+                                                          @RequestParam(defaultValue = "1m") String resolution,
+                                                          @RequestParam(defaultValue = "100") int limit) {
+        Map<String, Object> response = new HashMap<>();
+        CandleService.Resolution parsed = CandleService.Resolution.fromLabel(resolution);
+        if (parsed == null) {
+            response.put("error", "Unknown resolution '" + resolution + "', expected one of 1m, 5m, 1h, 1d");
+            return ResponseEntity.badRequest().body(response);
+        }
+        response.put("tickerId", tickerId);
+        response.put("resolution", parsed.getLabel());
+        response.put("candles", candleService.getCandles(tickerId, parsed, Math.max(1, limit)));
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Tags the payload with where it came from: "live" when the last refresh
+     * succeeded for this source, "cached" when the last known good payload is
+     * being served because the upstream is failing or its circuit is open.
+     * The upstream bytes are passed through as-is rather than re-serialized.
+     */
+    private ResponseEntity<byte[]> snapshotResponse(MarketSnapshot snapshot, String source, EncodedPayload payload,
+                                                    String acceptEncoding) {
+        Instant fetchedAt = snapshot.getSourceFetchedAt(source);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+            .header(DATA_SOURCE_HEADER, snapshot.getStaleSources().contains(source) ? "cached" : "live");
+        if (fetchedAt != null) {
+            builder.header(DATA_AGE_HEADER, String.valueOf(Duration.between(fetchedAt, Instant.now()).getSeconds()));
         }
+        return EncodedResponses.encoded(builder, payload, fetchedAt, acceptEncoding);
     }
     
-    private HttpHeaders createHeaders() {
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("X-Api-Key", apiKey);
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.set("Accept", "application/json");
-        return headers;
+    private ResponseEntity<byte[]> mockResponse(EncodedPayload payload, String acceptEncoding) {
+        return EncodedResponses.encoded(ResponseEntity.ok().header(DATA_SOURCE_HEADER, "mock"), payload, null, acceptEncoding);
     }
     
     private Map<String, Object> getMockTrendingData() {
@@ -139,7 +202,6 @@ public class StockController {
         trendingStocks.put("most_active", mostActive);
         response.put("trending_stocks", trendingStocks);
         
-        System.out.println("Returning mock trending data");
         return response;
     }
     
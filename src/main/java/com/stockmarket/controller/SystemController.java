@@ -0,0 +1,74 @@
+package com.stockmarket.controller;
+
+import com.stockmarket.service.CircuitBreaker;
+import com.stockmarket.service.UpstreamClient;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.pool.PoolStats;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/system")
+@CrossOrigin(origins = "*")
+public class SystemController {
+    
+    private final PoolingHttpClientConnectionManager httpConnectionManager;
+    
+    private final UpstreamClient upstreamClient;
+    
+    public SystemController(PoolingHttpClientConnectionManager httpConnectionManager, UpstreamClient upstreamClient) {
+        this.httpConnectionManager = httpConnectionManager;
+        this.upstreamClient = upstreamClient;
+    }
+    
+    /**
+     * Outbound HTTP connection pool utilization, overall and per upstream host.
+     * GET /api/system/http-pool
+     */
+    @GetMapping("/http-pool")
+    public ResponseEntity<Map<String, Object>> getHttpPoolStats() {
+        Map<String, Object> stats = toMap(httpConnectionManager.getTotalStats());
+        
+        List<Map<String, Object>> routes = new ArrayList<>();
+        for (HttpRoute route : httpConnectionManager.getRoutes()) {
+            Map<String, Object> routeStats = toMap(httpConnectionManager.getStats(route));
+            routeStats.put("host", route.getTargetHost().toURI());
+            routes.add(routeStats);
+        }
+        stats.put("routes", routes);
+        
+        return ResponseEntity.ok(stats);
+    }
+    
+    /**
+     * State of the circuit breaker guarding each upstream URL.
+     * GET /api/system/circuit-breakers
+     */
+    @GetMapping("/circuit-breakers")
+    public ResponseEntity<List<Map<String, Object>>> getCircuitBreakers() {
+        List<Map<String, Object>> breakers = new ArrayList<>();
+        for (CircuitBreaker breaker : upstreamClient.getCircuitBreakers()) {
+            Map<String, Object> state = new LinkedHashMap<>();
+            state.put("url", breaker.getName());
+            state.put("state", breaker.getState());
+            state.put("consecutiveFailures", breaker.getConsecutiveFailures());
+            breakers.add(state);
+        }
+        return ResponseEntity.ok(breakers);
+    }
+    
+    private Map<String, Object> toMap(PoolStats poolStats) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("leased", poolStats.getLeased());
+        map.put("available", poolStats.getAvailable());
+        map.put("pending", poolStats.getPending());
+        map.put("max", poolStats.getMax());
+        return map;
+    }
+}
@@ -6,18 +6,33 @@ import com.stockmarket.dto.TradeRequest;
 import com.stockmarket.dto.TradeResponse;
 import com.stockmarket.entity.Portfolio;
 import com.stockmarket.entity.Trade;
+import com.stockmarket.model.TradeOrder;
+import com.stockmarket.model.TradePage;
+import com.stockmarket.service.AsyncTradeService;
+import com.stockmarket.service.IdempotencyService;
+import com.stockmarket.service.TradeExportService;
 import com.stockmarket.service.TradeService;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 //import javax.swing.text.Document;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.GZIPOutputStream;
 import com.lowagie.text.Document;
 import com.lowagie.text.PageSize;
 import com.lowagie.text.Font;
@@ -29,66 +44,201 @@ import com.lowagie.text.pdf.PdfPCell;
 import com.lowagie.text.pdf.PdfWriter;
 import com.lowagie.text.Element;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 @RestController
 @RequestMapping("/api/trades")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = {"X-Next-Cursor", "Link"})
 public class TradeController {
     
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    
+    private static final String NEXT_CURSOR = "X-Next-Cursor";
+    
     @Autowired
     private TradeService tradeService;
     
+    @Autowired
+    private IdempotencyService idempotencyService;
+    
+    @Autowired
+    private AsyncTradeService asyncTradeService;
+    
+    @Autowired
+    private TradeExportService tradeExportService;
+    
+    /**
+     * Execute a trade
+     * POST /api/trades
+     * Optional header: Idempotency-Key. A retry with the same key returns the
+     * original result (with Idempotent-Replayed: true) instead of trading again.
+     */
     @PostMapping
-    public ResponseEntity<TradeResponse> executeTrade(@RequestBody TradeRequest request) {
+    public ResponseEntity<TradeResponse> executeTrade(@RequestBody TradeRequest request,
+                                                      @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
         try {
-            TradeResponse response = tradeService.executeTrade(request);
-            
-            if ("SUCCESS".equals(response.getStatus())) {
-                return ResponseEntity.status(HttpStatus.CREATED).body(response);
-            } else {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
-            }
+            return respond(idempotencyService.execute(idempotencyKey, fingerprint(request),
+                () -> tradeService.executeTrade(request)));
         } catch (Exception e) {
             TradeResponse errorResponse = new TradeResponse("ERROR", "Failed to execute trade: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
         }
     }
     
+    /**
+     * Accept a trade and execute it in the background
+     * POST /api/trades/async
+     * Returns 202 with an order id at once (503 when the queue is full). The
+     * outcome is at GET /api/trades/orders/{id} and, as a single SSE event, at
+     * GET /api/trades/orders/{id}/events. Idempotency-Key is honored as for POST /api/trades.
+     */
+    @PostMapping("/async")
+    public ResponseEntity<Map<String, Object>> executeTradeAsync(@RequestBody TradeRequest request,
+                                                                 @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        Map<String, Object> body = new HashMap<>();
+        try {
+            String fingerprint = fingerprint(request);
+            TradeOrder order = asyncTradeService.submit(() -> idempotencyService
+                .execute(idempotencyKey, fingerprint, () -> tradeService.executeTrade(request)).getResponse());
+            String statusUrl = "/api/trades/orders/" + order.getOrderId();
+            body.put("orderId", order.getOrderId());
+            body.put("status", order.getStatus());
+            body.put("statusUrl", statusUrl);
+            body.put("eventsUrl", statusUrl + "/events");
+            return ResponseEntity.accepted().location(URI.create(statusUrl)).body(body);
+        } catch (RejectedExecutionException e) {
+            body.put("status", "ERROR");
+            body.put("message", "Too many trades in progress, please retry");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(body);
+        }
+    }
+    
+    @GetMapping("/orders/{orderId}")
+    public ResponseEntity<TradeOrder> getOrderStatus(@PathVariable String orderId) {
+        return asyncTradeService.getOrder(orderId)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+    
+    @GetMapping(value = "/orders/{orderId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> watchOrder(@PathVariable String orderId) {
+        return asyncTradeService.watch(orderId)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * Execute many trades in one call
+     * POST /api/trades/batch
+     * Body: [ { "tickerId": "ONGC.NS", "tradeType": "BUY", ... }, ... ]
+     * Returns one result per trade, in order; invalid trades fail individually.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<Map<String, Object>> executeTrades(@RequestBody List<TradeRequest> requests) {
+        Map<String, Object> body = new HashMap<>();
+        if (requests == null || requests.isEmpty()) {
+            body.put("error", "At least one trade is required");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(body);
+        }
+        try {
+            List<TradeResponse> results = tradeService.executeTrades(requests);
+            long succeeded = results.stream().filter(r -> "SUCCESS".equals(r.getStatus())).count();
+            body.put("total", results.size());
+            body.put("succeeded", succeeded);
+            body.put("failed", results.size() - succeeded);
+            body.put("results", results);
+            return ResponseEntity.ok(body);
+        } catch (Exception e) {
+            body.put("error", "Failed to execute trades: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(body);
+        }
+    }
+    
     /**
      * NEW ENDPOINT: Sell shares from portfolio with quantity selection
      * POST /api/trades/sell-from-portfolio
      * Body: { "tickerId": "ONGC.NS", "quantity": 10, "currentPrice": 245.50 }
+     * Optional header: Idempotency-Key, as for POST /api/trades
      */
     @PostMapping("/sell-from-portfolio")
-    public ResponseEntity<TradeResponse> sellFromPortfolio(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<TradeResponse> sellFromPortfolio(@RequestBody Map<String, Object> request,
+                                                           @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
         try {
             String tickerId = (String) request.get("tickerId");
             int quantity = ((Number) request.get("quantity")).intValue();
             double currentPrice = ((Number) request.get("currentPrice")).doubleValue();
             
-            TradeResponse response = tradeService.sellFromPortfolio(tickerId, quantity, currentPrice);
-            
-            if ("SUCCESS".equals(response.getStatus())) {
-                return ResponseEntity.status(HttpStatus.CREATED).body(response);
-            } else {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
-            }
+            String fingerprint = String.join("|", "sell", tickerId, String.valueOf(quantity),
+                String.valueOf(currentPrice));
+            return respond(idempotencyService.execute(idempotencyKey, fingerprint,
+                () -> tradeService.sellFromPortfolio(tickerId, quantity, currentPrice)));
         } catch (Exception e) {
             TradeResponse errorResponse = new TradeResponse("ERROR", "Failed to sell shares: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
         }
     }
     
+    /**
+     * Trade history, newest first, one page at a time
+     * GET /api/trades?limit=100&tickerId=ONGC.NS&tradeType=SELL&from=2026-01-01T00:00:00&to=2026-02-01T00:00:00
+     * The body is the page's trades; when more remain, the X-Next-Cursor header (and a
+     * Link rel="next") gives the cursor to pass as ?cursor= for the next page.
+     */
     @GetMapping
-    public ResponseEntity<List<Trade>> getAllTrades() {
+    public ResponseEntity<List<Trade>> getAllTrades(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String tickerId,
+            @RequestParam(required = false) String tradeType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
         try {
-            List<Trade> trades = tradeService.getAllTrades();
-            return ResponseEntity.ok(trades);
+            TradePage page = tradeService.getTradePage(tickerId, tradeType, from, to, cursor, limit);
+            ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+            if (page.getNextCursor() != null) {
+                String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("cursor", page.getNextCursor())
+                    .toUriString();
+                builder.header(NEXT_CURSOR, page.getNextCursor());
+                builder.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+            }
+            return builder.body(page.getTrades());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
     
+    /**
+     * The whole trade log as newline-delimited JSON, in id order, streamed as it is read
+     * GET /api/trades/stream?afterId=12345
+     * afterId resumes after the last trade received; gzip is used when the client accepts it.
+     * Runs under spring.mvc.async.request-timeout, which is unlimited so a large export is not cut off.
+     */
+    @GetMapping(value = "/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamTrades(
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+            tradeExportService.export(afterId, target);
+            if (gzip) {
+                ((GZIPOutputStream) target).finish();
+            }
+        };
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType("application/x-ndjson"))
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return builder.body(body);
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<Trade> getTradeById(@PathVariable Long id) {
         try {
@@ -118,6 +268,9 @@ public class TradeController {
             } else {
                 return ResponseEntity.notFound().build();
             }
+        } catch (IllegalStateException e) {
+            System.err.println("Trade " + id + " not deleted: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -182,11 +335,45 @@ public class TradeController {
     @PostMapping("/import-broker-data")
     public ResponseEntity<String> importBrokerData(@RequestParam("file") MultipartFile file) {
         try {
-            tradeService.importExternalTrades(file);
+            List<TradeResponse> responses = tradeService.importExternalTrades(file);
+            List<String> failed = new ArrayList<>();
+            for (int i = 0; i < responses.size(); i++) {
+                if (!"SUCCESS".equals(responses.get(i).getStatus())) {
+                    failed.add("trade " + (i + 1) + ": " + responses.get(i).getMessage());
+                }
+            }
+            if (!failed.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body("Imported " + (responses.size() - failed.size()) + " of " + responses.size()
+                            + " trades; not imported: " + String.join("; ", failed));
+            }
             return ResponseEntity.ok("Broker portfolio synced successfully!");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body("Broker file rejected, nothing imported: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Failed to parse broker file: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+    
+    /** What a trade request asks for, to tell an idempotent retry from a reused key. */
+    private static String fingerprint(TradeRequest request) {
+        return String.join("|", "trade", request.getTickerId(), request.getTradeType(),
+            String.valueOf(request.getQuantity()), String.valueOf(request.getPrice()),
+            String.valueOf(request.getTotalAmount()));
+    }
+    
+    private static ResponseEntity<TradeResponse> respond(IdempotencyService.Outcome outcome) {
+        TradeResponse response = outcome.getResponse();
+        if (outcome.isConflict()) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(response);
+        }
+        HttpStatus status = "SUCCESS".equals(response.getStatus()) ? HttpStatus.CREATED : HttpStatus.BAD_REQUEST;
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(status);
+        if (outcome.isReplayed()) {
+            builder.header("Idempotent-Replayed", "true");
+        }
+        return builder.body(response);
+    }
+}
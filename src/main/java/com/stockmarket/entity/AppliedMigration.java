@@ -0,0 +1,33 @@
+package com.stockmarket.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Marks a one-time data migration as done, so it is not run again on the
+ * next start.
+ */
+@Entity
+@Table(name = "applied_migrations")
+public class AppliedMigration {
+    
+    @Id
+    @Column(name = "name", length = 100)
+    private String name;
+    
+    @Column(name = "applied_at", nullable = false)
+    private LocalDateTime appliedAt;
+    
+    public AppliedMigration() {}
+    
+    public AppliedMigration(String name, LocalDateTime appliedAt) {
+        this.name = name;
+        this.appliedAt = appliedAt;
+    }
+    
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    
+    public LocalDateTime getAppliedAt() { return appliedAt; }
+    public void setAppliedAt(LocalDateTime appliedAt) { this.appliedAt = appliedAt; }
+}
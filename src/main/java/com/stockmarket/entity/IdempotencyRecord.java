@@ -0,0 +1,48 @@
+package com.stockmarket.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Response of a trade request made with an Idempotency-Key, kept so that a
+ * retry with the same key gets the original result instead of a second trade.
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = @Index(name = "idx_idempotency_created_at", columnList = "created_at"))
+public class IdempotencyRecord {
+    
+    @Id
+    @Column(name = "idempotency_key", length = 128)
+    private String key;
+    
+    // SHA-256 of what was requested, so a key reused for a different request is refused
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+    
+    @Column(name = "response", nullable = false, length = 4000)
+    private String response;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    public IdempotencyRecord() {}
+    
+    public IdempotencyRecord(String key, String requestHash, String response, LocalDateTime createdAt) {
+        this.key = key;
+        this.requestHash = requestHash;
+        this.response = response;
+        this.createdAt = createdAt;
+    }
+    
+    public String getKey() { return key; }
+    public void setKey(String key) { this.key = key; }
+    
+    public String getRequestHash() { return requestHash; }
+    public void setRequestHash(String requestHash) { this.requestHash = requestHash; }
+    
+    public String getResponse() { return response; }
+    public void setResponse(String response) { this.response = response; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
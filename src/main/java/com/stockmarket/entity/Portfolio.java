@@ -32,6 +32,11 @@ public class Portfolio {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
     
+    // Optimistic lock: a concurrent update of the same row fails instead of being silently overwritten
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+    
     public Portfolio() {
         this.createdAt = LocalDateTime.now();
         this.lastUpdated = LocalDateTime.now();
@@ -70,4 +75,7 @@ public class Portfolio {
     
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
 }
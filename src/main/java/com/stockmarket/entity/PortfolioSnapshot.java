@@ -0,0 +1,74 @@
+package com.stockmarket.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A ticker's holding as of one trade: the result of replaying its trades up
+ * to and including {@code lastTradeId}. Rebuilding a holding starts from the
+ * latest snapshot and replays only the trades after it.
+ */
+@Entity
+@Table(name = "portfolio_snapshots",
+       indexes = @Index(name = "idx_snapshot_ticker_trade", columnList = "ticker_id, last_trade_id"))
+public class PortfolioSnapshot {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "ticker_id", nullable = false)
+    private String tickerId;
+    
+    @Column(name = "company_name")
+    private String companyName;
+    
+    @Column(name = "last_trade_id", nullable = false)
+    private Long lastTradeId;
+    
+    @Column(name = "last_trade_at")
+    private LocalDateTime lastTradeAt;
+    
+    @Column(name = "total_quantity", nullable = false)
+    private Integer totalQuantity;
+    
+    @Column(name = "average_price", nullable = false)
+    private Double averagePrice;
+    
+    @Column(name = "last_price", nullable = false)
+    private Double lastPrice;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    public PortfolioSnapshot() {
+        this.createdAt = LocalDateTime.now();
+    }
+    
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public String getTickerId() { return tickerId; }
+    public void setTickerId(String tickerId) { this.tickerId = tickerId; }
+    
+    public String getCompanyName() { return companyName; }
+    public void setCompanyName(String companyName) { this.companyName = companyName; }
+    
+    public Long getLastTradeId() { return lastTradeId; }
+    public void setLastTradeId(Long lastTradeId) { this.lastTradeId = lastTradeId; }
+    
+    public LocalDateTime getLastTradeAt() { return lastTradeAt; }
+    public void setLastTradeAt(LocalDateTime lastTradeAt) { this.lastTradeAt = lastTradeAt; }
+    
+    public Integer getTotalQuantity() { return totalQuantity; }
+    public void setTotalQuantity(Integer totalQuantity) { this.totalQuantity = totalQuantity; }
+    
+    public Double getAveragePrice() { return averagePrice; }
+    public void setAveragePrice(Double averagePrice) { this.averagePrice = averagePrice; }
+    
+    public Double getLastPrice() { return lastPrice; }
+    public void setLastPrice(Double lastPrice) { this.lastPrice = lastPrice; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
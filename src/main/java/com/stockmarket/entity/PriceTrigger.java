@@ -0,0 +1,98 @@
+package com.stockmarket.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A stop-loss or take-profit attached to a holding: sell {@code quantity}
+ * shares (the whole holding when null) once the polled price falls to
+ * (STOP_LOSS) or rises to (TAKE_PROFIT) {@code triggerPrice}.
+ *
+ * <p>Status is ACTIVE until the trigger fires (FIRED, or FAILED with a
+ * message if the sell was refused) or is CANCELLED.
+ */
+@Entity
+@Table(name = "price_triggers",
+       indexes = @Index(name = "idx_trigger_status", columnList = "status"))
+public class PriceTrigger {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "ticker_id", nullable = false)
+    private String tickerId;
+    
+    @Column(name = "trigger_type", nullable = false)
+    private String triggerType;
+    
+    @Column(name = "trigger_price", nullable = false)
+    private Double triggerPrice;
+    
+    @Column(name = "quantity")
+    private Integer quantity;
+    
+    @Column(name = "status", nullable = false)
+    private String status;
+    
+    @Column(name = "message")
+    private String message;
+    
+    @Column(name = "fired_price")
+    private Double firedPrice;
+    
+    @Column(name = "trade_id")
+    private Long tradeId;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "fired_at")
+    private LocalDateTime firedAt;
+    
+    public PriceTrigger() {
+        this.status = "ACTIVE";
+        this.createdAt = LocalDateTime.now();
+    }
+    
+    public PriceTrigger(String tickerId, String triggerType, Double triggerPrice, Integer quantity) {
+        this();
+        this.tickerId = tickerId;
+        this.triggerType = triggerType;
+        this.triggerPrice = triggerPrice;
+        this.quantity = quantity;
+    }
+    
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public String getTickerId() { return tickerId; }
+    public void setTickerId(String tickerId) { this.tickerId = tickerId; }
+    
+    public String getTriggerType() { return triggerType; }
+    public void setTriggerType(String triggerType) { this.triggerType = triggerType; }
+    
+    public Double getTriggerPrice() { return triggerPrice; }
+    public void setTriggerPrice(Double triggerPrice) { this.triggerPrice = triggerPrice; }
+    
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+    
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+    
+    public Double getFiredPrice() { return firedPrice; }
+    public void setFiredPrice(Double firedPrice) { this.firedPrice = firedPrice; }
+    
+    public Long getTradeId() { return tradeId; }
+    public void setTradeId(Long tradeId) { this.tradeId = tradeId; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    public LocalDateTime getFiredAt() { return firedAt; }
+    public void setFiredAt(LocalDateTime firedAt) { this.firedAt = firedAt; }
+}
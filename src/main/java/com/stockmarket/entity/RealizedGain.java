@@ -0,0 +1,89 @@
+package com.stockmarket.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Profit or loss realized by one SELL trade: its proceeds against the cost
+ * of the buy lots it was matched with. Written as the SELL executes, so
+ * period totals are a sum over this table rather than a replay of trades.
+ */
+@Entity
+@Table(name = "realized_gains",
+       indexes = {
+           @Index(name = "idx_gain_realized_at", columnList = "realized_at"),
+           @Index(name = "idx_gain_ticker", columnList = "ticker_id")
+       })
+public class RealizedGain {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sell_trade_id", nullable = false)
+    private Long sellTradeId;
+
+    @Column(name = "ticker_id", nullable = false)
+    private String tickerId;
+
+    /** Shares matched against buy lots; less than the trade's quantity if the lots ran out. */
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+
+    @Column(name = "proceeds", nullable = false)
+    private Double proceeds;
+
+    @Column(name = "cost_basis", nullable = false)
+    private Double costBasis;
+
+    @Column(name = "gain", nullable = false)
+    private Double gain;
+
+    @Column(name = "lot_method", nullable = false)
+    private String lotMethod;
+
+    @Column(name = "realized_at", nullable = false)
+    private LocalDateTime realizedAt;
+
+    public RealizedGain() {
+    }
+
+    public RealizedGain(Long sellTradeId, String tickerId, Integer quantity, Double proceeds, Double costBasis,
+                        String lotMethod, LocalDateTime realizedAt) {
+        this.sellTradeId = sellTradeId;
+        this.tickerId = tickerId;
+        this.quantity = quantity;
+        this.proceeds = proceeds;
+        this.costBasis = costBasis;
+        this.gain = proceeds - costBasis;
+        this.lotMethod = lotMethod;
+        this.realizedAt = realizedAt;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getSellTradeId() { return sellTradeId; }
+    public void setSellTradeId(Long sellTradeId) { this.sellTradeId = sellTradeId; }
+
+    public String getTickerId() { return tickerId; }
+    public void setTickerId(String tickerId) { this.tickerId = tickerId; }
+
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+
+    public Double getProceeds() { return proceeds; }
+    public void setProceeds(Double proceeds) { this.proceeds = proceeds; }
+
+    public Double getCostBasis() { return costBasis; }
+    public void setCostBasis(Double costBasis) { this.costBasis = costBasis; }
+
+    public Double getGain() { return gain; }
+    public void setGain(Double gain) { this.gain = gain; }
+
+    public String getLotMethod() { return lotMethod; }
+    public void setLotMethod(String lotMethod) { this.lotMethod = lotMethod; }
+
+    public LocalDateTime getRealizedAt() { return realizedAt; }
+    public void setRealizedAt(LocalDateTime realizedAt) { this.realizedAt = realizedAt; }
+}
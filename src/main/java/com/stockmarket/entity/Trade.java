@@ -4,11 +4,19 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "trades")
+@Table(name = "trades",
+       indexes = {
+           @Index(name = "idx_trade_timestamp_id", columnList = "timestamp, id"),
+           @Index(name = "idx_trade_ticker_timestamp_id", columnList = "ticker_id, timestamp, id")
+       })
 public class Trade {
     
+    /** Ids handed out per round trip to the id sequence; lets Hibernate batch trade inserts. */
+    public static final int ID_ALLOCATION_SIZE = 50;
+    
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "trade_id")
+    @SequenceGenerator(name = "trade_id", sequenceName = "trades_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
     
     @Column(name = "ticker_id", nullable = false)
@@ -0,0 +1,38 @@
+package com.stockmarket.model;
+
+import java.time.Instant;
+
+/**
+ * Open/high/low/close/volume for one ticker over one time bucket.
+ * {@code time} is the start of the bucket; volume is the traded volume within it.
+ */
+public final class Candle {
+
+    private final Instant time;
+    private final double open;
+    private final double high;
+    private final double low;
+    private final double close;
+    private final long volume;
+
+    public Candle(Instant time, double open, double high, double low, double close, long volume) {
+        this.time = time;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.volume = volume;
+    }
+
+    public Instant getTime() { return time; }
+
+    public double getOpen() { return open; }
+
+    public double getHigh() { return high; }
+
+    public double getLow() { return low; }
+
+    public double getClose() { return close; }
+
+    public long getVolume() { return volume; }
+}
@@ -0,0 +1,59 @@
+package com.stockmarket.model;
+
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A read-only JSON response body in its wire form: the plain bytes, a gzip
+ * variant and a content hash for the ETag.
+ *
+ * <p>Built once per data version and shared by every request for that
+ * version, so a poll costs a byte copy rather than a Jackson pass. The gzip
+ * variant is compressed on first use and then kept.
+ */
+public final class EncodedPayload {
+
+    private final byte[] json;
+    private final String etag;
+    private volatile byte[] gzip;
+
+    private EncodedPayload(byte[] json) {
+        this.json = json;
+        this.etag = DigestUtils.md5DigestAsHex(json);
+    }
+
+    public static EncodedPayload of(byte[] json) {
+        return json != null ? new EncodedPayload(json) : null;
+    }
+
+    public byte[] getJson() { return json; }
+
+    public String getEtag() { return etag; }
+
+    /** ETag of the gzip variant; a strong validator must differ per content encoding. */
+    public String getGzipEtag() { return etag + "-gz"; }
+
+    public byte[] getGzip() {
+        byte[] compressed = gzip;
+        if (compressed == null) {
+            // Racing threads compress the same bytes; whichever wins is equivalent
+            compressed = compress(json);
+            gzip = compressed;
+        }
+        return compressed;
+    }
+
+    private static byte[] compress(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
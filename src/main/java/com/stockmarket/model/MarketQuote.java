@@ -0,0 +1,48 @@
+package com.stockmarket.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One entry of an exchange's most-active list, decoded straight from the
+ * upstream JSON. Numeric fields are primitives; a field the upstream did not
+ * send is {@code NaN} (or -1 for volume).
+ */
+public final class MarketQuote {
+    
+    private final String tickerId;
+    private final double price;
+    private final double change;
+    private final double changePercent;
+    private final long volume;
+    
+    public MarketQuote(String tickerId, double price, double change, double changePercent, long volume) {
+        this.tickerId = tickerId;
+        this.price = price;
+        this.change = change;
+        this.changePercent = changePercent;
+        this.volume = volume;
+    }
+    
+    public String getTickerId() { return tickerId; }
+    
+    public double getPrice() { return price; }
+    
+    public double getChange() { return change; }
+    
+    public double getChangePercent() { return changePercent; }
+    
+    public long getVolume() { return volume; }
+    
+    public boolean hasPrice() { return !Double.isNaN(price); }
+    
+    /** Fields present on this quote, keyed by their upstream JSON names. */
+    public Map<String, Object> toFields() {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        if (!Double.isNaN(price)) fields.put("price", price);
+        if (!Double.isNaN(change)) fields.put("change", change);
+        if (!Double.isNaN(changePercent)) fields.put("change_percent", changePercent);
+        if (volume >= 0) fields.put("volume", volume);
+        return fields;
+    }
+}
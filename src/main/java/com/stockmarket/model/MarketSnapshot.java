@@ -0,0 +1,112 @@
+package com.stockmarket.model;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Immutable view of the latest market data pulled from the upstream API.
+ * A new instance is built on every refresh and swapped in atomically, so
+ * readers never see a half-updated snapshot.
+ *
+ * <p>Upstream payloads are kept as the raw JSON bytes they arrived as, so
+ * they can be passed through to clients untouched; the fields the server
+ * itself needs are decoded once into {@link MarketQuote}s. Each raw payload
+ * is also wrapped in an {@link EncodedPayload}, so its ETag and gzip variant
+ * are computed at most once per snapshot rather than once per request.
+ *
+ * <p>Prices are also held in a flat array indexed by the symbol id from
+ * {@link com.stockmarket.service.SymbolRegistry}, for loops that look up a
+ * price per holding without hashing the ticker or boxing the value.
+ */
+public final class MarketSnapshot {
+    
+    public static final String NSE = "NSE";
+    public static final String BSE = "BSE";
+    
+    private static final MarketSnapshot EMPTY = new MarketSnapshot(
+        null, Collections.emptyMap(), Collections.emptyMap(), new double[0], Collections.emptySet(), Collections.emptyMap(), null);
+    
+    private final byte[] trending;
+    private final Map<String, byte[]> exchanges;
+    private final EncodedPayload trendingPayload;
+    private final Map<String, EncodedPayload> exchangePayloads;
+    private final Map<String, MarketQuote> quotes;
+    private final Map<String, Double> prices;
+    private final double[] pricesById;
+    private final Set<String> staleSources;
+    private final Map<String, Instant> sourceFetchedAt;
+    private final Instant fetchedAt;
+    
+    /**
+     * @param pricesById last price per symbol id, {@code NaN} where there is none;
+     *                   owned by the snapshot from here on
+     */
+    public MarketSnapshot(byte[] trending, Map<String, byte[]> exchanges, Map<String, MarketQuote> quotes,
+                          double[] pricesById, Set<String> staleSources, Map<String, Instant> sourceFetchedAt, Instant fetchedAt) {
+        this.trending = trending;
+        this.exchanges = Collections.unmodifiableMap(new LinkedHashMap<>(exchanges));
+        this.trendingPayload = EncodedPayload.of(trending);
+        Map<String, EncodedPayload> encoded = new HashMap<>();
+        exchanges.forEach((source, payload) -> encoded.put(source, EncodedPayload.of(payload)));
+        this.exchangePayloads = Collections.unmodifiableMap(encoded);
+        this.quotes = Collections.unmodifiableMap(new HashMap<>(quotes));
+        Map<String, Double> priceMap = new HashMap<>();
+        quotes.forEach((ticker, quote) -> {
+            if (quote.hasPrice()) {
+                priceMap.put(ticker, quote.getPrice());
+            }
+        });
+        this.prices = Collections.unmodifiableMap(priceMap);
+        this.pricesById = pricesById;
+        this.staleSources = Collections.unmodifiableSet(new TreeSet<>(staleSources));
+        this.sourceFetchedAt = Collections.unmodifiableMap(new HashMap<>(sourceFetchedAt));
+        this.fetchedAt = fetchedAt;
+    }
+    
+    public static MarketSnapshot empty() {
+        return EMPTY;
+    }
+    
+    /** Raw trending payload as received from upstream, or null before the first load. */
+    public byte[] getTrending() { return trending; }
+    
+    /** Raw most-active payload per exchange source, keyed by source name. */
+    public Map<String, byte[]> getExchanges() { return exchanges; }
+    
+    public byte[] getNseActive() { return exchanges.get(NSE); }
+    
+    public byte[] getBseActive() { return exchanges.get(BSE); }
+    
+    /** Trending payload ready to write, or null before the first load. */
+    public EncodedPayload getTrendingPayload() { return trendingPayload; }
+    
+    /** Exchange payload ready to write, or null when there is none for the source. */
+    public EncodedPayload getExchangePayload(String source) { return exchangePayloads.get(source); }
+    
+    /** Decoded quote per ticker across all exchanges. */
+    public Map<String, MarketQuote> getQuotes() { return quotes; }
+    
+    /** Ticker id to last traded price across all exchanges. */
+    public Map<String, Double> getPrices() { return prices; }
+    
+    /** Last price for a symbol id, or {@code NaN} if the symbol has no price in this snapshot. */
+    public double getPrice(int symbolId) {
+        return symbolId >= 0 && symbolId < pricesById.length ? pricesById[symbolId] : Double.NaN;
+    }
+    
+    /** Length of the id-indexed price array; ids at or above this have no price. */
+    public int getPriceCount() { return pricesById.length; }
+    
+    /** Sources that missed their deadline on the last refresh and still carry older data. */
+    public Set<String> getStaleSources() { return staleSources; }
+    
+    /** When the payload currently held for a source was actually received from upstream. */
+    public Instant getSourceFetchedAt(String source) { return sourceFetchedAt.get(source); }
+    
+    public Instant getFetchedAt() { return fetchedAt; }
+}
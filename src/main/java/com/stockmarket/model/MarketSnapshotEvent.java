@@ -0,0 +1,20 @@
+package com.stockmarket.model;
+
+/**
+ * Published by the market data refresher every time a new snapshot is swapped
+ * in. Carries the previous snapshot as well so listeners can work out deltas.
+ */
+public class MarketSnapshotEvent {
+    
+    private final MarketSnapshot previous;
+    private final MarketSnapshot current;
+    
+    public MarketSnapshotEvent(MarketSnapshot previous, MarketSnapshot current) {
+        this.previous = previous;
+        this.current = current;
+    }
+    
+    public MarketSnapshot getPrevious() { return previous; }
+    
+    public MarketSnapshot getCurrent() { return current; }
+}
@@ -0,0 +1,95 @@
+package com.stockmarket.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.List;
+
+/**
+ * Outcome of submitting a limit order: how much filled right away against
+ * the last polled market price, and how much is left resting in the book.
+ *
+ * <p>Status is FILLED, PARTIALLY_FILLED, RESTING or REJECTED (with a message).
+ */
+public final class OrderResult {
+
+    private final long orderId;
+    private final String tickerId;
+    private final String side;
+    private final double price;
+    private final int quantity;
+    private final int filledQuantity;
+    private final int remainingQuantity;
+    private final List<Fill> fills;
+    private final String status;
+    private final String message;
+
+    public OrderResult(long orderId, String tickerId, String side, double price, int quantity,
+                       int remainingQuantity, List<Fill> fills) {
+        this.orderId = orderId;
+        this.tickerId = tickerId;
+        this.side = side;
+        this.price = price;
+        this.quantity = quantity;
+        this.filledQuantity = quantity - remainingQuantity;
+        this.remainingQuantity = remainingQuantity;
+        this.fills = fills;
+        this.status = remainingQuantity == 0 ? "FILLED" : remainingQuantity < quantity ? "PARTIALLY_FILLED" : "RESTING";
+        this.message = null;
+    }
+
+    private OrderResult(String tickerId, String side, double price, int quantity, String message) {
+        this.orderId = 0;
+        this.tickerId = tickerId;
+        this.side = side;
+        this.price = price;
+        this.quantity = quantity;
+        this.filledQuantity = 0;
+        this.remainingQuantity = 0;
+        this.fills = List.of();
+        this.status = "REJECTED";
+        this.message = message;
+    }
+
+    public static OrderResult rejected(String tickerId, String side, double price, int quantity, String message) {
+        return new OrderResult(tickerId, side, price, quantity, message);
+    }
+
+    public long getOrderId() { return orderId; }
+
+    public String getTickerId() { return tickerId; }
+
+    public String getSide() { return side; }
+
+    public double getPrice() { return price; }
+
+    public int getQuantity() { return quantity; }
+
+    public int getFilledQuantity() { return filledQuantity; }
+
+    public int getRemainingQuantity() { return remainingQuantity; }
+
+    public List<Fill> getFills() { return fills; }
+
+    public String getStatus() { return status; }
+
+    public String getMessage() { return message; }
+
+    @JsonIgnore
+    public boolean isRejected() { return "REJECTED".equals(status); }
+
+    /** Shares of the order filled at the market price. */
+    public static final class Fill {
+
+        private final double price;
+        private final int quantity;
+
+        public Fill(double price, int quantity) {
+            this.price = price;
+            this.quantity = quantity;
+        }
+
+        public double getPrice() { return price; }
+
+        public int getQuantity() { return quantity; }
+    }
+}
@@ -0,0 +1,32 @@
+package com.stockmarket.model;
+
+import java.time.Instant;
+
+/**
+ * One recorded price observation for a ticker, as stored by the tick store.
+ * Volume is -1 when the upstream did not report it.
+ */
+public final class Tick {
+
+    private final String tickerId;
+    private final long epochMillis;
+    private final double price;
+    private final long volume;
+
+    public Tick(String tickerId, long epochMillis, double price, long volume) {
+        this.tickerId = tickerId;
+        this.epochMillis = epochMillis;
+        this.price = price;
+        this.volume = volume;
+    }
+
+    public String getTickerId() { return tickerId; }
+
+    public Instant getTimestamp() { return Instant.ofEpochMilli(epochMillis); }
+
+    public long getEpochMillis() { return epochMillis; }
+
+    public double getPrice() { return price; }
+
+    public long getVolume() { return volume; }
+}
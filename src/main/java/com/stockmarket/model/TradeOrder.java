@@ -0,0 +1,42 @@
+package com.stockmarket.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.stockmarket.dto.TradeResponse;
+
+import java.time.Instant;
+
+/**
+ * A trade accepted for asynchronous execution. Status is PENDING until the
+ * trade has run, then COMPLETED with the trade's response as the result
+ * (which may itself be an error, e.g. insufficient shares).
+ */
+public final class TradeOrder {
+
+    private final String orderId;
+    private final Instant submittedAt;
+    private volatile TradeResponse result;
+    private volatile Instant completedAt;
+
+    public TradeOrder(String orderId, Instant submittedAt) {
+        this.orderId = orderId;
+        this.submittedAt = submittedAt;
+    }
+
+    public String getOrderId() { return orderId; }
+
+    public String getStatus() { return result == null ? "PENDING" : "COMPLETED"; }
+
+    public Instant getSubmittedAt() { return submittedAt; }
+
+    public Instant getCompletedAt() { return completedAt; }
+
+    public TradeResponse getResult() { return result; }
+
+    @JsonIgnore
+    public boolean isCompleted() { return result != null; }
+
+    public void complete(TradeResponse response) {
+        this.completedAt = Instant.now();
+        this.result = response;
+    }
+}
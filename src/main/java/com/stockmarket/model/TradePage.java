@@ -0,0 +1,66 @@
+package com.stockmarket.model;
+
+import com.stockmarket.entity.Trade;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * One page of trade history, newest first, and the cursor for the page
+ * after it (null on the last page).
+ *
+ * <p>A cursor is the (timestamp, id) of the last trade on a page, encoded
+ * as an opaque URL-safe string; the next page starts strictly after that
+ * key, so pages stay stable while new trades arrive.
+ */
+public final class TradePage {
+
+    private final List<Trade> trades;
+    private final String nextCursor;
+
+    public TradePage(List<Trade> trades, String nextCursor) {
+        this.trades = trades;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Trade> getTrades() { return trades; }
+
+    public String getNextCursor() { return nextCursor; }
+
+    public static String encodeCursor(Trade last) {
+        String key = last.getTimestamp() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** The (timestamp, id) key a cursor stands for. */
+    public static Cursor decodeCursor(String cursor) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = key.lastIndexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new Cursor(LocalDateTime.parse(key.substring(0, separator)), Long.parseLong(key.substring(separator + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    public static final class Cursor {
+
+        private final LocalDateTime timestamp;
+        private final long id;
+
+        Cursor(LocalDateTime timestamp, long id) {
+            this.timestamp = timestamp;
+            this.id = id;
+        }
+
+        public LocalDateTime getTimestamp() { return timestamp; }
+
+        public long getId() { return id; }
+    }
+}
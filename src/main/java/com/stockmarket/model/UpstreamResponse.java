@@ -0,0 +1,52 @@
+package com.stockmarket.model;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Body returned by an upstream call together with when it was fetched (or
+ * last confirmed current) and when the body last changed.
+ * {@code fromCache} is set when the live call was skipped or failed and the
+ * last known good response is being served instead.
+ */
+public final class UpstreamResponse<T> {
+    
+    private final T body;
+    private final Instant fetchedAt;
+    private final Instant modifiedAt;
+    private final boolean fromCache;
+    
+    /** A newly downloaded body: it changed when it was fetched. */
+    public UpstreamResponse(T body, Instant fetchedAt, boolean fromCache) {
+        this(body, fetchedAt, fetchedAt, fromCache);
+    }
+    
+    private UpstreamResponse(T body, Instant fetchedAt, Instant modifiedAt, boolean fromCache) {
+        this.body = body;
+        this.fetchedAt = fetchedAt;
+        this.modifiedAt = modifiedAt;
+        this.fromCache = fromCache;
+    }
+    
+    public UpstreamResponse<T> asCached() {
+        return fromCache ? this : new UpstreamResponse<>(body, fetchedAt, modifiedAt, true);
+    }
+    
+    /** Same body instance, confirmed current by the upstream (a 304) at the given time; still modified when it was. */
+    public UpstreamResponse<T> revalidated(Instant at) {
+        return new UpstreamResponse<>(body, at, modifiedAt, false);
+    }
+    
+    public T getBody() { return body; }
+    
+    public Instant getFetchedAt() { return fetchedAt; }
+    
+    /** When this body arrived; a 304 does not move it, so it can back Last-Modified. */
+    public Instant getModifiedAt() { return modifiedAt; }
+    
+    public boolean isFromCache() { return fromCache; }
+    
+    public long getAgeSeconds() {
+        return Duration.between(fetchedAt, Instant.now()).getSeconds();
+    }
+}
@@ -0,0 +1,20 @@
+package com.stockmarket.repository;
+
+import com.stockmarket.entity.PortfolioSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface PortfolioSnapshotRepository extends JpaRepository<PortfolioSnapshot, Long> {
+    Optional<PortfolioSnapshot> findFirstByTickerIdOrderByLastTradeIdDesc(String tickerId);
+    Optional<PortfolioSnapshot> findFirstByTickerIdAndLastTradeAtLessThanEqualOrderByLastTradeIdDesc(String tickerId, LocalDateTime at);
+    
+    @Modifying
+    @Query("DELETE FROM PortfolioSnapshot s WHERE s.tickerId = ?1 AND s.lastTradeId >= ?2")
+    int deleteFromTrade(String tickerId, Long tradeId);
+}
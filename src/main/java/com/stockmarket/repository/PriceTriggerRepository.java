@@ -0,0 +1,13 @@
+package com.stockmarket.repository;
+
+import com.stockmarket.entity.PriceTrigger;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PriceTriggerRepository extends JpaRepository<PriceTrigger, Long> {
+    List<PriceTrigger> findByStatus(String status);
+    List<PriceTrigger> findByTickerIdOrderByCreatedAtDesc(String tickerId);
+}
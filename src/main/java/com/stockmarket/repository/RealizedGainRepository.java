@@ -0,0 +1,23 @@
+package com.stockmarket.repository;
+
+import com.stockmarket.entity.RealizedGain;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RealizedGainRepository extends JpaRepository<RealizedGain, Long> {
+
+    /** Rows of (year, month, total gain) for gains realized at or after {@code since}. */
+    @Query("SELECT YEAR(g.realizedAt), MONTH(g.realizedAt), SUM(g.gain) FROM RealizedGain g "
+         + "WHERE g.realizedAt >= ?1 GROUP BY YEAR(g.realizedAt), MONTH(g.realizedAt)")
+    List<Object[]> sumGainByMonthSince(LocalDateTime since);
+
+    @Modifying
+    @Query("DELETE FROM RealizedGain g WHERE g.tickerId = ?1")
+    int deleteByTickerId(String tickerId);
+}
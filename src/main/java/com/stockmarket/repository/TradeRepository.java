@@ -1,6 +1,7 @@
 package com.stockmarket.repository;
 
 import com.stockmarket.entity.Trade;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -13,11 +14,52 @@ public interface TradeRepository extends JpaRepository<Trade, Long> {
     List<Trade> findByTickerId(String tickerId);
     List<Trade> findByTradeType(String tradeType);
     List<Trade> findByTimestampBetween(LocalDateTime start, LocalDateTime end);
-    List<Trade> findAllByOrderByTimestampDesc();
+    
+    /**
+     * The ticker's trades with an id above ?2, in replay order: its opening
+     * balance first (it stands for holdings older than the log but is
+     * appended later), then by id.
+     */
+    @Query("SELECT t FROM Trade t WHERE t.tickerId = ?1 AND t.id > ?2"
+         + " ORDER BY CASE WHEN t.tradeType = 'OPENING' THEN 0 ELSE 1 END, t.id")
+    List<Trade> findReplayAfter(String tickerId, Long id);
+    
+    /** Like {@link #findReplayAfter}, for the trades with an id below ?2. */
+    @Query("SELECT t FROM Trade t WHERE t.tickerId = ?1 AND t.id < ?2"
+         + " ORDER BY CASE WHEN t.tradeType = 'OPENING' THEN 0 ELSE 1 END, t.id")
+    List<Trade> findReplayBefore(String tickerId, Long id);
+    
+    /** Like {@link #findReplayAfter}, keeping only trades made at or before ?3. */
+    @Query("SELECT t FROM Trade t WHERE t.tickerId = ?1 AND t.id > ?2 AND t.timestamp <= ?3"
+         + " ORDER BY CASE WHEN t.tradeType = 'OPENING' THEN 0 ELSE 1 END, t.id")
+    List<Trade> findReplayAfterUntil(String tickerId, Long id, LocalDateTime at);
+    
+    @Query("SELECT MIN(t.timestamp) FROM Trade t WHERE t.tickerId = ?1")
+    LocalDateTime findFirstTimestamp(String tickerId);
+    
+    /**
+     * Trades newest first by (timestamp, id), starting after the key
+     * (?5, ?6) when given; null filters match everything. The page size
+     * comes from {@code pageable}, and no count query is run.
+     */
+    @Query("SELECT t FROM Trade t WHERE t.timestamp IS NOT NULL"
+         + " AND (?1 IS NULL OR t.tickerId = ?1) AND (?2 IS NULL OR t.tradeType = ?2)"
+         + " AND (?3 IS NULL OR t.timestamp >= ?3) AND (?4 IS NULL OR t.timestamp < ?4)"
+         + " AND (?5 IS NULL OR t.timestamp < ?5 OR (t.timestamp = ?5 AND t.id < ?6))"
+         + " ORDER BY t.timestamp DESC, t.id DESC")
+    List<Trade> findPage(String tickerId, String tradeType, LocalDateTime from, LocalDateTime to,
+                         LocalDateTime afterTimestamp, Long afterId, Pageable pageable);
+    
+    @Query("SELECT DISTINCT t.tickerId FROM Trade t")
+    List<String> findDistinctTickerIds();
     
     @Query("SELECT COALESCE(SUM(t.quantity), 0) FROM Trade t WHERE t.tickerId = ?1 AND t.tradeType = 'BUY'")
     Integer getTotalBoughtQuantity(String tickerId);
     
     @Query("SELECT COALESCE(SUM(t.quantity), 0) FROM Trade t WHERE t.tickerId = ?1 AND t.tradeType = 'SELL'")
     Integer getTotalSoldQuantity(String tickerId);
+    
+    /** Value traded since ?1; opening balances were not traded and are left out. */
+    @Query("SELECT COALESCE(SUM(t.quantity * t.price), 0) FROM Trade t WHERE t.timestamp >= ?1 AND t.tradeType <> 'OPENING'")
+    Double getTotalAmountSince(LocalDateTime since);
 }
@@ -0,0 +1,143 @@
+package com.stockmarket.service;
+
+import com.stockmarket.dto.TradeResponse;
+import com.stockmarket.model.TradeOrder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Runs trades off the request thread. The caller gets an order id at once;
+ * the trade runs on the dedicated trade executor, and its outcome can be
+ * polled by id or pushed to SSE watchers as a single "trade-completed" event.
+ *
+ * <p>The most recent {@code trade.async.max-tracked} orders are remembered;
+ * older ones are forgotten even if a client never asked for them.
+ */
+@Service
+public class AsyncTradeService {
+
+    private final Executor tradeExecutor;
+    private final long emitterTimeoutMs;
+    private final Map<String, TradeOrder> orders;
+    private final Map<String, List<SseEmitter>> watchers = new ConcurrentHashMap<>();
+
+    public AsyncTradeService(@Qualifier("tradeExecutor") Executor tradeExecutor,
+                             @Value("${trade.async.max-tracked:10000}") int maxTracked,
+                             @Value("${trade.async.events-timeout-ms:60000}") long emitterTimeoutMs) {
+        this.tradeExecutor = tradeExecutor;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.orders = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TradeOrder> eldest) {
+                return size() > maxTracked;
+            }
+        };
+    }
+
+    /**
+     * Queues {@code work} on the trade executor and returns its pending order.
+     *
+     * @throws RejectedExecutionException if the executor's queue is full
+     */
+    public TradeOrder submit(Supplier<TradeResponse> work) {
+        TradeOrder order = new TradeOrder(UUID.randomUUID().toString(), Instant.now());
+        synchronized (orders) {
+            orders.put(order.getOrderId(), order);
+        }
+        try {
+            tradeExecutor.execute(() -> run(order, work));
+        } catch (RejectedExecutionException e) {
+            synchronized (orders) {
+                orders.remove(order.getOrderId());
+            }
+            throw e;
+        }
+        return order;
+    }
+
+    public Optional<TradeOrder> getOrder(String orderId) {
+        synchronized (orders) {
+            return Optional.ofNullable(orders.get(orderId));
+        }
+    }
+
+    /**
+     * An SSE stream that sends the order's outcome once and then closes,
+     * straight away if it has already completed. Empty if the order is unknown.
+     */
+    public Optional<SseEmitter> watch(String orderId) {
+        Optional<TradeOrder> found = getOrder(orderId);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        TradeOrder order = found.get();
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        synchronized (order) {
+            if (!order.isCompleted()) {
+                watchers.computeIfAbsent(orderId, id -> new ArrayList<>()).add(emitter);
+                emitter.onTimeout(() -> forget(order, emitter));
+                emitter.onError(e -> forget(order, emitter));
+                return Optional.of(emitter);
+            }
+        }
+        send(emitter, order);
+        return Optional.of(emitter);
+    }
+
+    private void run(TradeOrder order, Supplier<TradeResponse> work) {
+        TradeResponse response;
+        try {
+            response = work.get();
+        } catch (RuntimeException e) {
+            response = new TradeResponse("ERROR", "Failed to execute trade: " + e.getMessage());
+        }
+        List<SseEmitter> waiting;
+        synchronized (order) {
+            order.complete(response);
+            waiting = watchers.remove(order.getOrderId());
+        }
+        if (waiting != null) {
+            for (SseEmitter emitter : waiting) {
+                send(emitter, order);
+            }
+        }
+    }
+
+    private void forget(TradeOrder order, SseEmitter emitter) {
+        synchronized (order) {
+            List<SseEmitter> waiting = watchers.get(order.getOrderId());
+            if (waiting != null) {
+                waiting.remove(emitter);
+                if (waiting.isEmpty()) {
+                    watchers.remove(order.getOrderId());
+                }
+            }
+        }
+    }
+
+    private static void send(SseEmitter emitter, TradeOrder order) {
+        try {
+            emitter.send(SseEmitter.event().name("trade-completed").data(order, MediaType.APPLICATION_JSON));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            // Client went away before the outcome arrived
+            emitter.completeWithError(e);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.stockmarket.service;
+
+import com.stockmarket.model.Candle;
+import com.stockmarket.model.MarketQuote;
+import com.stockmarket.model.MarketSnapshotEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Streaming OHLC candles per ticker at 1-minute, 5-minute, 1-hour and 1-day
+ * resolution, built from the prices of each market refresh.
+ *
+ * <p>Every resolution keeps the most recent candles in a fixed-size ring of
+ * primitive arrays, indexed by {@link SymbolRegistry} id. A tick either
+ * updates the newest candle or starts the next one, so each update is O(1)
+ * and reads never recompute aggregates. Buckets are aligned to the epoch
+ * (UTC), and buckets with no ticks are simply absent.
+ *
+ * <p>Upstream volume is the cumulative volume for the day; a candle's volume
+ * is the increase seen while it was open.
+ */
+@Service
+public class CandleService {
+
+    public enum Resolution {
+        ONE_MINUTE("1m", 60_000L),
+        FIVE_MINUTES("5m", 300_000L),
+        ONE_HOUR("1h", 3_600_000L),
+        ONE_DAY("1d", 86_400_000L);
+
+        private final String label;
+        private final long millis;
+
+        Resolution(String label, long millis) {
+            this.label = label;
+            this.millis = millis;
+        }
+
+        public String getLabel() { return label; }
+
+        /** The resolution for a label such as "5m", or null if there is none. */
+        public static Resolution fromLabel(String label) {
+            for (Resolution resolution : values()) {
+                if (resolution.label.equalsIgnoreCase(label)) {
+                    return resolution;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final SymbolRegistry symbolRegistry;
+    private final int capacity;
+
+    // Indexed by symbol id; grown under the service lock, entries never replaced
+    private volatile TickerCandles[] candlesById = new TickerCandles[0];
+
+    public CandleService(SymbolRegistry symbolRegistry, @Value("${stock.candles.capacity:500}") int capacity) {
+        this.symbolRegistry = symbolRegistry;
+        this.capacity = capacity;
+    }
+
+    @EventListener
+    public void onSnapshot(MarketSnapshotEvent event) {
+        Instant fetchedAt = event.getCurrent().getFetchedAt();
+        if (fetchedAt == null) {
+            return;
+        }
+        long timestamp = fetchedAt.toEpochMilli();
+        for (MarketQuote quote : event.getCurrent().getQuotes().values()) {
+            if (quote.hasPrice()) {
+                onTick(quote.getTickerId(), timestamp, quote.getPrice(), quote.getVolume());
+            }
+        }
+    }
+
+    /** Folds one price observation into every resolution. Volume is cumulative, or -1 if unknown. */
+    public void onTick(String tickerId, long epochMillis, double price, long cumulativeVolume) {
+        candlesFor(symbolRegistry.intern(tickerId)).update(epochMillis, price, cumulativeVolume);
+    }
+
+    /** Up to {@code limit} most recent candles, oldest first. */
+    public List<Candle> getCandles(String tickerId, Resolution resolution, int limit) {
+        int id = symbolRegistry.idOf(tickerId);
+        TickerCandles[] current = candlesById;
+        if (id < 0 || id >= current.length || current[id] == null) {
+            return Collections.emptyList();
+        }
+        return current[id].read(resolution, limit);
+    }
+
+    private TickerCandles candlesFor(int id) {
+        TickerCandles[] current = candlesById;
+        if (id < current.length && current[id] != null) {
+            return current[id];
+        }
+        synchronized (this) {
+            current = candlesById;
+            if (id >= current.length) {
+                current = Arrays.copyOf(current, Math.max(64, id * 2));
+            } else if (current[id] != null) {
+                return current[id];
+            } else {
+                current = current.clone();
+            }
+            current[id] = new TickerCandles(capacity);
+            candlesById = current;
+            return current[id];
+        }
+    }
+
+    /** All resolutions for one ticker; updates and reads lock the instance. */
+    private static final class TickerCandles {
+        private final Ring[] rings = new Ring[Resolution.values().length];
+        private long lastCumulativeVolume = -1;
+
+        TickerCandles(int capacity) {
+            for (Resolution resolution : Resolution.values()) {
+                rings[resolution.ordinal()] = new Ring(resolution.millis, capacity);
+            }
+        }
+
+        synchronized void update(long epochMillis, double price, long cumulativeVolume) {
+            long traded = 0;
+            if (cumulativeVolume >= 0) {
+                if (lastCumulativeVolume >= 0) {
+                    // A drop means the upstream counter reset for a new session
+                    traded = cumulativeVolume >= lastCumulativeVolume ? cumulativeVolume - lastCumulativeVolume : cumulativeVolume;
+                }
+                lastCumulativeVolume = cumulativeVolume;
+            }
+            for (Ring ring : rings) {
+                ring.update(epochMillis, price, traded);
+            }
+        }
+
+        synchronized List<Candle> read(Resolution resolution, int limit) {
+            return rings[resolution.ordinal()].read(limit);
+        }
+    }
+
+    /** Most recent candles of one resolution, stored column-wise in circular arrays. */
+    private static final class Ring {
+        private final long interval;
+        private final long[] start;
+        private final double[] open;
+        private final double[] high;
+        private final double[] low;
+        private final double[] close;
+        private final long[] volume;
+        private int head = -1;
+        private int size;
+
+        Ring(long interval, int capacity) {
+            this.interval = interval;
+            this.start = new long[capacity];
+            this.open = new double[capacity];
+            this.high = new double[capacity];
+            this.low = new double[capacity];
+            this.close = new double[capacity];
+            this.volume = new long[capacity];
+        }
+
+        void update(long epochMillis, double price, long traded) {
+            long bucket = epochMillis - Math.floorMod(epochMillis, interval);
+            if (head >= 0 && bucket == start[head]) {
+                high[head] = Math.max(high[head], price);
+                low[head] = Math.min(low[head], price);
+                close[head] = price;
+                volume[head] += traded;
+                return;
+            }
+            if (head >= 0 && bucket < start[head]) {
+                // Late tick for a closed candle; candles only move forward
+                return;
+            }
+            head = (head + 1) % start.length;
+            size = Math.min(size + 1, start.length);
+            start[head] = bucket;
+            open[head] = price;
+            high[head] = price;
+            low[head] = price;
+            close[head] = price;
+            volume[head] = traded;
+        }
+
+        List<Candle> read(int limit) {
+            int count = Math.min(limit, size);
+            List<Candle> candles = new ArrayList<>(count);
+            for (int i = count - 1; i >= 0; i--) {
+                int index = Math.floorMod(head - i, start.length);
+                candles.add(new Candle(Instant.ofEpochMilli(start[index]), open[index], high[index], low[index],
+                    close[index], volume[index]));
+            }
+            return candles;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.stockmarket.service;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Minimal circuit breaker for a single upstream endpoint.
+ *
+ * <p>Trips to OPEN after {@code failureThreshold} consecutive failures, where a
+ * call slower than {@code slowCallMs} also counts as a failure. While open,
+ * calls are rejected without touching the network. Once {@code openMs} has
+ * passed, a single probe call is let through (HALF_OPEN); its outcome decides
+ * whether the breaker closes again or stays open for another period.
+ */
+public class CircuitBreaker {
+    
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+    
+    private final String name;
+    private final int failureThreshold;
+    private final long slowCallMs;
+    private final long openMs;
+    private final LongSupplier clock;
+    
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+    
+    public CircuitBreaker(String name, int failureThreshold, long slowCallMs, long openMs) {
+        this(name, failureThreshold, slowCallMs, openMs, System::currentTimeMillis);
+    }
+    
+    CircuitBreaker(String name, int failureThreshold, long slowCallMs, long openMs, LongSupplier clock) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.slowCallMs = slowCallMs;
+        this.openMs = openMs;
+        this.clock = clock;
+    }
+    
+    /**
+     * Returns true if a call may go ahead. Every permitted call must be
+     * followed by {@link #onSuccess(long)} or {@link #onFailure()}.
+     */
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (clock.getAsLong() - openedAt < openMs) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                return true;
+            default:
+                if (probeInFlight) {
+                    return false;
+                }
+                probeInFlight = true;
+                return true;
+        }
+    }
+    
+    public synchronized void onSuccess(long durationMs) {
+        if (durationMs > slowCallMs) {
+            onFailure();
+            return;
+        }
+        consecutiveFailures = 0;
+        probeInFlight = false;
+        state = State.CLOSED;
+    }
+    
+    public synchronized void onFailure() {
+        probeInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                System.err.println("Circuit breaker " + name + " opened after " + consecutiveFailures + " failures");
+            }
+            state = State.OPEN;
+            openedAt = clock.getAsLong();
+        }
+    }
+    
+    public synchronized State getState() {
+        return state;
+    }
+    
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+    
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,33 @@
+package com.stockmarket.service;
+
+import com.stockmarket.dto.TradeRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Refuses orders once the value traded today, buys and sells together, would
+ * pass {@code trade.risk.max-daily-turnover}; 0 turns it off.
+ */
+@Component
+public class DailyTurnoverRiskCheck implements PreTradeRiskCheck {
+
+    private final double maxTurnover;
+
+    public DailyTurnoverRiskCheck(@Value("${trade.risk.max-daily-turnover:0}") double maxTurnover) {
+        this.maxTurnover = maxTurnover;
+    }
+
+    @Override
+    public Optional<String> check(TradeRequest request, TradeExposure exposure) {
+        if (maxTurnover <= 0) {
+            return Optional.empty();
+        }
+        double turnover = exposure.turnoverToday() + request.getQuantity() * request.getPrice();
+        if (turnover > maxTurnover) {
+            return Optional.of(String.format("Daily turnover would reach %.2f, above the limit of %.2f", turnover, maxTurnover));
+        }
+        return Optional.empty();
+    }
+}
@@ -1,5 +1,6 @@
 package com.stockmarket.service;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
@@ -8,15 +9,19 @@ import java.util.*;
 @Service
 public class GeminiService {
     
+    private final RestTemplate restTemplate;
+    
     @Value("${gemini.api.key}")
     private String API_KEY;
     
     @Value("${gemini.api.url}")
     private String GEMINI_URL;
 
+    public GeminiService(@Qualifier("geminiRestTemplate") RestTemplate restTemplate) {
+        this.restTemplate = restTemplate;
+    }
+
     public String getAIResponse(String prompt) {
-        RestTemplate restTemplate = new RestTemplate();
-        
         // Build the full URL with API key
         String url = GEMINI_URL + "?key=" + API_KEY;
 
@@ -0,0 +1,224 @@
+package com.stockmarket.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockmarket.dto.TradeResponse;
+import com.stockmarket.entity.IdempotencyRecord;
+import com.stockmarket.repository.IdempotencyRecordRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Makes trade requests carrying an {@code Idempotency-Key} safe to retry.
+ *
+ * <p>The first request with a key runs; its successful response is kept in a
+ * bounded LRU cache and in the {@code idempotency_keys} table, and later
+ * requests with the same key get that response back without trading again.
+ * Concurrent retries of a request still in progress wait for it. A key reused
+ * for a different request is refused. Keys expire after
+ * {@code trade.idempotency.ttl-hours}.
+ *
+ * <p>Failed trades are not remembered: they change nothing, so retrying them
+ * is already safe. The key is recorded just after the trade commits, so a
+ * crash in between still lets one retry through.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final int MAX_KEY_LENGTH = 128;
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Map<String, Entry> cache;
+    private final Map<String, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(IdempotencyRecordRepository repository, ObjectMapper objectMapper,
+                              @Value("${trade.idempotency.cache-size:10000}") int cacheSize,
+                              @Value("${trade.idempotency.ttl-hours:24}") long ttlHours) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Runs {@code action} unless {@code key} was already used. {@code request}
+     * describes what is being asked (endpoint and parameters) and must match
+     * for the stored response to be returned. A null or blank key just runs
+     * the action.
+     */
+    public Outcome execute(String key, String request, Supplier<TradeResponse> action) {
+        if (key == null || key.isBlank()) {
+            return new Outcome(action.get(), false);
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            return Outcome.conflict("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        String requestHash = sha256(request);
+
+        Entry cached = cached(key);
+        if (cached != null) {
+            return replay(cached, requestHash);
+        }
+
+        CompletableFuture<Entry> call = new CompletableFuture<>();
+        CompletableFuture<Entry> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            return replay(existing.join(), requestHash);
+        }
+        try {
+            Entry stored = load(key);
+            if (stored != null) {
+                call.complete(stored);
+                return replay(stored, requestHash);
+            }
+            Entry entry = new Entry(requestHash, action.get(), LocalDateTime.now());
+            if ("SUCCESS".equals(entry.response.getStatus())) {
+                remember(key, entry);
+            }
+            call.complete(entry);
+            return new Outcome(entry.response, false);
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    /** Drops persisted keys past their time to live. */
+    @Scheduled(fixedDelayString = "${trade.idempotency.cleanup-interval-ms:3600000}")
+    public void purgeExpired() {
+        try {
+            int removed = repository.deleteCreatedBefore(LocalDateTime.now().minus(ttl));
+            if (removed > 0) {
+                System.out.println("Removed " + removed + " expired idempotency keys");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Failed to remove expired idempotency keys: " + e.getMessage());
+        }
+    }
+
+    private Outcome replay(Entry entry, String requestHash) {
+        if (!entry.requestHash.equals(requestHash)) {
+            return Outcome.conflict("Idempotency-Key was already used for a different request");
+        }
+        return new Outcome(entry.response, true);
+    }
+
+    private Entry cached(String key) {
+        synchronized (cache) {
+            Entry entry = cache.get(key);
+            if (entry != null && isExpired(entry.createdAt)) {
+                cache.remove(key);
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    private Entry load(String key) {
+        Optional<IdempotencyRecord> record = repository.findById(key);
+        if (record.isEmpty() || isExpired(record.get().getCreatedAt())) {
+            return null;
+        }
+        try {
+            Entry entry = new Entry(record.get().getRequestHash(),
+                objectMapper.readValue(record.get().getResponse(), TradeResponse.class), record.get().getCreatedAt());
+            synchronized (cache) {
+                cache.put(key, entry);
+            }
+            return entry;
+        } catch (JsonProcessingException e) {
+            System.err.println("Unreadable idempotency record for key " + key + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void remember(String key, Entry entry) {
+        synchronized (cache) {
+            cache.put(key, entry);
+        }
+        try {
+            repository.save(new IdempotencyRecord(key, entry.requestHash,
+                objectMapper.writeValueAsString(entry.response), entry.createdAt));
+        } catch (JsonProcessingException | RuntimeException e) {
+            // The cache still covers retries to this instance
+            System.err.println("Failed to persist idempotency key " + key + ": " + e.getMessage());
+        }
+    }
+
+    private boolean isExpired(LocalDateTime createdAt) {
+        return createdAt.isBefore(LocalDateTime.now().minus(ttl));
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /** The response to send, and whether it is a replay of an earlier request. */
+    public static final class Outcome {
+
+        private final TradeResponse response;
+        private final boolean replayed;
+        private final boolean conflict;
+
+        private Outcome(TradeResponse response, boolean replayed) {
+            this(response, replayed, false);
+        }
+
+        private Outcome(TradeResponse response, boolean replayed, boolean conflict) {
+            this.response = response;
+            this.replayed = replayed;
+            this.conflict = conflict;
+        }
+
+        static Outcome conflict(String message) {
+            return new Outcome(new TradeResponse("ERROR", message), false, true);
+        }
+
+        public TradeResponse getResponse() { return response; }
+
+        public boolean isReplayed() { return replayed; }
+
+        /** The key cannot be used for this request (reused for another one, or malformed). */
+        public boolean isConflict() { return conflict; }
+    }
+
+    private static final class Entry {
+        final String requestHash;
+        final TradeResponse response;
+        final LocalDateTime createdAt;
+
+        Entry(String requestHash, TradeResponse response, LocalDateTime createdAt) {
+            this.requestHash = requestHash;
+            this.response = response;
+            this.createdAt = createdAt;
+        }
+    }
+}
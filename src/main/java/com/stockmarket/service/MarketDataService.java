@@ -0,0 +1,220 @@
+package com.stockmarket.service;
+
+import com.stockmarket.model.MarketQuote;
+import com.stockmarket.model.MarketSnapshot;
+import com.stockmarket.model.MarketSnapshotEvent;
+import com.stockmarket.model.UpstreamResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.*;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Polls the upstream market endpoints on a schedule and keeps the latest
+ * result in memory. Controllers read from {@link #getSnapshot()} instead of
+ * calling the upstream API per request.
+ *
+ * <p>All sources are fetched concurrently. Each source has its own timeout
+ * and the refresh as a whole has a deadline; sources that miss it keep
+ * their previous payload and are reported as stale. Giving up on a source
+ * does not abort its HTTP call: the worker thread stays busy until the
+ * client's response timeout ({@code http.client.read-timeout-ms}) fires.
+ *
+ * <p>Each new snapshot is announced with a {@link MarketSnapshotEvent}.
+ */
+@Service
+public class MarketDataService {
+
+    public static final String TRENDING = "TRENDING";
+
+    private final UpstreamClient upstreamClient;
+
+    private final Executor marketDataExecutor;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final SymbolRegistry symbolRegistry;
+
+    private final AtomicReference<MarketSnapshot> snapshot = new AtomicReference<>(MarketSnapshot.empty());
+
+    @Value("${stock.api.url:https://stock.indianapi.in/trending}")
+    private String stockApiUrl;
+
+    @Value("${stock.api.nse.url:https://stock.indianapi.in/NSE_most_active}")
+    private String nseApiUrl;
+
+    @Value("${stock.api.bse.url:https://stock.indianapi.in/BSE_most_active}")
+    private String bseApiUrl;
+
+    @Value("${stock.api.key}")
+    private String apiKey;
+
+    @Value("${stock.api.refresh.enabled:true}")
+    private boolean refreshEnabled;
+
+    @Value("${stock.api.refresh.source-timeout-ms:3000}")
+    private long sourceTimeoutMs;
+
+    @Value("${stock.api.refresh.deadline-ms:5000}")
+    private long deadlineMs;
+
+    public MarketDataService(UpstreamClient upstreamClient, Executor marketDataExecutor,
+                             ApplicationEventPublisher eventPublisher, SymbolRegistry symbolRegistry) {
+        this.upstreamClient = upstreamClient;
+        this.marketDataExecutor = marketDataExecutor;
+        this.eventPublisher = eventPublisher;
+        this.symbolRegistry = symbolRegistry;
+    }
+
+    public MarketSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    @Scheduled(fixedDelayString = "${stock.api.refresh.interval-ms:60000}")
+    public void scheduledRefresh() {
+        if (refreshEnabled) {
+            refresh();
+        }
+    }
+
+    /**
+     * Fetches all upstream payloads concurrently and publishes a new snapshot.
+     * A source that fails or misses its deadline keeps its value from the
+     * previous snapshot and is listed in {@link MarketSnapshot#getStaleSources()}.
+     */
+    public MarketSnapshot refresh() {
+        MarketSnapshot previous = snapshot.get();
+        HttpHeaders headers = createHeaders();
+
+        Map<String, CompletableFuture<UpstreamResponse<byte[]>>> pending = new LinkedHashMap<>();
+        pending.put(TRENDING, fetchAsync(stockApiUrl, headers));
+        exchangeSources().forEach((name, url) -> pending.put(name, fetchAsync(url, headers)));
+
+        try {
+            CompletableFuture.allOf(pending.values().toArray(new CompletableFuture<?>[0]))
+                .get(deadlineMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            System.err.println("Market data refresh hit its " + deadlineMs + "ms deadline, merging partial results");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // Individual failures are handled per source below
+        }
+
+        Set<String> staleSources = new HashSet<>();
+        Map<String, Instant> sourceFetchedAt = new HashMap<>();
+        byte[] trending = resultOrPrevious(TRENDING, pending.get(TRENDING), previous.getTrending(),
+            previous, staleSources, sourceFetchedAt);
+
+        Map<String, byte[]> exchanges = new LinkedHashMap<>();
+        Map<String, MarketQuote> quotes = new HashMap<>();
+        for (String name : exchangeSources().keySet()) {
+            byte[] payload = resultOrPrevious(name, pending.get(name), previous.getExchanges().get(name),
+                previous, staleSources, sourceFetchedAt);
+            List<MarketQuote> decoded = decode(name, payload);
+            if (decoded == null && payload != previous.getExchanges().get(name)) {
+                // Fresh payload was unreadable; fall back to what we had
+                staleSources.add(name);
+                payload = previous.getExchanges().get(name);
+                decoded = decode(name, payload);
+            }
+            if (payload != null && decoded != null) {
+                exchanges.put(name, payload);
+                for (MarketQuote quote : decoded) {
+                    quotes.put(quote.getTickerId(), quote);
+                    symbolRegistry.intern(quote.getTickerId(), name);
+                }
+            }
+        }
+
+        double[] pricesById = new double[symbolRegistry.size()];
+        Arrays.fill(pricesById, Double.NaN);
+        for (MarketQuote quote : quotes.values()) {
+            if (quote.hasPrice()) {
+                pricesById[symbolRegistry.idOf(quote.getTickerId())] = quote.getPrice();
+            }
+        }
+
+        MarketSnapshot next = new MarketSnapshot(trending, exchanges, quotes, pricesById, staleSources,
+            sourceFetchedAt, Instant.now());
+        snapshot.set(next);
+        eventPublisher.publishEvent(new MarketSnapshotEvent(previous, next));
+        return next;
+    }
+
+    /**
+     * Exchange most-active endpoints merged into the quote map, in priority
+     * order (later sources win on duplicate tickers).
+     */
+    private Map<String, String> exchangeSources() {
+        Map<String, String> sources = new LinkedHashMap<>();
+        sources.put(MarketSnapshot.NSE, nseApiUrl);
+        sources.put(MarketSnapshot.BSE, bseApiUrl);
+        return sources;
+    }
+
+    private CompletableFuture<UpstreamResponse<byte[]>> fetchAsync(String url, HttpHeaders headers) {
+        return CompletableFuture.supplyAsync(() -> upstreamClient.get(url, headers, byte[].class), marketDataExecutor)
+            .orTimeout(sourceTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Picks the payload for one source: the fresh upstream body when it
+     * arrived in time, otherwise the last known good body (from the circuit
+     * breaker cache or the previous snapshot), marking the source stale.
+     */
+    private byte[] resultOrPrevious(String source, CompletableFuture<UpstreamResponse<byte[]>> future,
+                                    byte[] previousPayload, MarketSnapshot previous,
+                                    Set<String> staleSources, Map<String, Instant> sourceFetchedAt) {
+        UpstreamResponse<byte[]> response = null;
+        if (future.isDone() && !future.isCompletedExceptionally()) {
+            response = future.join();
+        }
+
+        if (response == null || response.isFromCache()) {
+            staleSources.add(source);
+        }
+        if (response != null) {
+            sourceFetchedAt.put(source, response.getFetchedAt());
+            return response.getBody();
+        }
+        if (previous.getSourceFetchedAt(source) != null) {
+            sourceFetchedAt.put(source, previous.getSourceFetchedAt(source));
+        }
+        return previousPayload;
+    }
+
+    /** Returns the decoded quotes, an empty list for no payload, or null if the payload is malformed. */
+    private List<MarketQuote> decode(String source, byte[] payload) {
+        try {
+            return MarketQuoteDecoder.decodeMostActive(payload);
+        } catch (IOException e) {
+            System.err.println("Unreadable " + source + " payload: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private HttpHeaders createHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Api-Key", apiKey);
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("Accept", "application/json");
+        return headers;
+    }
+}
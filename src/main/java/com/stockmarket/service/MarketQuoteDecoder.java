@@ -0,0 +1,89 @@
+package com.stockmarket.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.stockmarket.model.MarketQuote;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming decoder for the exchange most-active payloads.
+ *
+ * <p>Walks the raw JSON bytes with a Jackson {@link JsonParser} and builds
+ * {@link MarketQuote}s directly, skipping every field and sub-tree it does
+ * not need. No intermediate Map/List tree is allocated. Accepts either
+ * {@code {"most_active": [...]}} or a bare top-level array, and prices sent as
+ * strings as well as numbers.
+ */
+public final class MarketQuoteDecoder {
+    
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    
+    private MarketQuoteDecoder() {
+    }
+    
+    public static List<MarketQuote> decodeMostActive(byte[] json) throws IOException {
+        List<MarketQuote> quotes = new ArrayList<>();
+        if (json == null || json.length == 0) {
+            return quotes;
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                readQuotes(parser, quotes);
+            } else if (token == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    JsonToken value = parser.nextToken();
+                    if ("most_active".equals(field) && value == JsonToken.START_ARRAY) {
+                        readQuotes(parser, quotes);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            }
+        }
+        return quotes;
+    }
+    
+    private static void readQuotes(JsonParser parser, List<MarketQuote> quotes) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            MarketQuote quote = readQuote(parser);
+            if (quote != null) {
+                quotes.add(quote);
+            }
+        }
+    }
+    
+    private static MarketQuote readQuote(JsonParser parser) throws IOException {
+        String tickerId = null;
+        double price = Double.NaN;
+        double change = Double.NaN;
+        double changePercent = Double.NaN;
+        long volume = -1;
+        
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "ticker_id" -> tickerId = parser.getValueAsString();
+                case "price" -> price = parser.getValueAsDouble(Double.NaN);
+                case "change", "net_change" -> change = parser.getValueAsDouble(Double.NaN);
+                case "change_percent", "percent_change" -> changePercent = parser.getValueAsDouble(Double.NaN);
+                case "volume" -> volume = parser.getValueAsLong(-1);
+                default -> { }
+            }
+            // No-op for scalars; skips the whole value if it is an object or array
+            parser.skipChildren();
+        }
+        return tickerId != null ? new MarketQuote(tickerId, price, change, changePercent, volume) : null;
+    }
+}
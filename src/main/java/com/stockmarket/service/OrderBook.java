@@ -0,0 +1,240 @@
+package com.stockmarket.service;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Resting limit orders for one ticker, filled against the market price with
+ * price-time priority.
+ *
+ * <p>Every order belongs to the one portfolio, so a buy and a sell never
+ * trade with each other: both wait for the polled market price to reach
+ * them. Each side is a ladder of price levels (best first), and each level is a
+ * FIFO queue of resting orders linked through the orders themselves. Prices
+ * are integer ticks (1/100 of a rupee) so levels compare exactly. Order and
+ * level objects come from small free lists and go back when they leave the
+ * book. The ladders and the id index are still maps keyed by boxed longs, so
+ * adding an order allocates a little per new order and price level.
+ *
+ * <p>Not thread-safe: {@link OrderBookService} drives every book from one
+ * sequence.
+ */
+final class OrderBook {
+
+    static final int BUY = 0;
+    static final int SELL = 1;
+
+    interface FillListener {
+        void onFill(long orderId, int side, long priceTicks, int quantity);
+    }
+
+    interface LevelVisitor {
+        void visit(long priceTicks, long quantity, int orderCount);
+    }
+
+    interface OrderVisitor {
+        void visit(long orderId, int side, long priceTicks, int remaining);
+    }
+
+    private final TreeMap<Long, Level> bids = new TreeMap<>(Comparator.reverseOrder());
+    private final TreeMap<Long, Level> asks = new TreeMap<>();
+    private final Map<Long, Order> ordersById = new HashMap<>();
+    private final long[] restingQuantity = new long[2];
+
+    private final Order[] freeOrders;
+    private int freeOrderCount;
+    private final Level[] freeLevels;
+    private int freeLevelCount;
+
+    OrderBook(int poolSize) {
+        this.freeOrders = new Order[poolSize];
+        this.freeLevels = new Level[Math.max(16, poolSize / 8)];
+    }
+
+    /** Adds a limit order to its side of the book; it waits there for the market price to reach it. */
+    void add(long orderId, int side, long priceTicks, int quantity) {
+        rest(orderId, side, priceTicks, quantity);
+    }
+
+    /** Whether {@code marketTicks} would fill any resting order. */
+    boolean crosses(long marketTicks) {
+        return (!bids.isEmpty() && bids.firstKey() >= marketTicks) || (!asks.isEmpty() && asks.firstKey() <= marketTicks);
+    }
+
+    /**
+     * Fills, at {@code marketTicks}, every buy limited at or above it and
+     * every sell limited at or below it, best price first and oldest first
+     * within a price. Returns the number of shares filled.
+     */
+    long fillAt(long marketTicks, FillListener listener) {
+        long filled = 0;
+        while (!bids.isEmpty() && bids.firstKey() >= marketTicks) {
+            filled += fillLevel(bids, bids.firstKey(), marketTicks, listener);
+        }
+        while (!asks.isEmpty() && asks.firstKey() <= marketTicks) {
+            filled += fillLevel(asks, asks.firstKey(), marketTicks, listener);
+        }
+        return filled;
+    }
+
+    private long fillLevel(TreeMap<Long, Level> ladder, long levelPrice, long marketTicks, FillListener listener) {
+        Level level = ladder.remove(levelPrice);
+        long filled = level.quantity;
+        for (Order order = level.head; order != null; ) {
+            Order next = order.next;
+            listener.onFill(order.id, order.side, marketTicks, order.remaining);
+            restingQuantity[order.side] -= order.remaining;
+            ordersById.remove(order.id);
+            releaseOrder(order);
+            order = next;
+        }
+        releaseLevel(level);
+        return filled;
+    }
+
+    /** Removes a resting order; false if it is not in the book (filled, cancelled or unknown). */
+    boolean cancel(long orderId) {
+        Order order = ordersById.remove(orderId);
+        if (order == null) {
+            return false;
+        }
+        Level level = order.level;
+        level.quantity -= order.remaining;
+        restingQuantity[order.side] -= order.remaining;
+        unlink(order);
+        if (level.head == null) {
+            (order.side == BUY ? bids : asks).remove(level.price);
+            releaseLevel(level);
+        }
+        releaseOrder(order);
+        return true;
+    }
+
+    /** Quantity still resting for an order, or 0 if it is not in the book. */
+    int remaining(long orderId) {
+        Order order = ordersById.get(orderId);
+        return order == null ? 0 : order.remaining;
+    }
+
+    /** The best {@code maxLevels} levels of one side, best first. */
+    void forEachLevel(int side, int maxLevels, LevelVisitor visitor) {
+        int visited = 0;
+        for (Level level : (side == BUY ? bids : asks).values()) {
+            if (visited++ >= maxLevels) {
+                return;
+            }
+            visitor.visit(level.price, level.quantity, level.count);
+        }
+    }
+
+    /** Every resting order, level by level and oldest first within a level. */
+    void forEachOrder(OrderVisitor visitor) {
+        for (TreeMap<Long, Level> ladder : List.of(bids, asks)) {
+            for (Level level : ladder.values()) {
+                for (Order order = level.head; order != null; order = order.next) {
+                    visitor.visit(order.id, order.side, order.price, order.remaining);
+                }
+            }
+        }
+    }
+
+    /** Shares resting on one side of the book. */
+    long restingQuantity(int side) {
+        return restingQuantity[side];
+    }
+
+    int orderCount() {
+        return ordersById.size();
+    }
+
+    private void rest(long orderId, int side, long priceTicks, int quantity) {
+        TreeMap<Long, Level> ladder = side == BUY ? bids : asks;
+        Level level = ladder.get(priceTicks);
+        if (level == null) {
+            level = acquireLevel(priceTicks);
+            ladder.put(priceTicks, level);
+        }
+        Order order = acquireOrder();
+        order.id = orderId;
+        order.side = side;
+        order.price = priceTicks;
+        order.remaining = quantity;
+        order.level = level;
+        order.prev = level.tail;
+        if (level.tail == null) {
+            level.head = order;
+        } else {
+            level.tail.next = order;
+        }
+        level.tail = order;
+        level.quantity += quantity;
+        level.count++;
+        restingQuantity[side] += quantity;
+        ordersById.put(orderId, order);
+    }
+
+    private static void unlink(Order order) {
+        Level level = order.level;
+        if (order.prev == null) {
+            level.head = order.next;
+        } else {
+            order.prev.next = order.next;
+        }
+        if (order.next == null) {
+            level.tail = order.prev;
+        } else {
+            order.next.prev = order.prev;
+        }
+        level.count--;
+    }
+
+    private Order acquireOrder() {
+        return freeOrderCount > 0 ? freeOrders[--freeOrderCount] : new Order();
+    }
+
+    private void releaseOrder(Order order) {
+        order.prev = null;
+        order.next = null;
+        order.level = null;
+        if (freeOrderCount < freeOrders.length) {
+            freeOrders[freeOrderCount++] = order;
+        }
+    }
+
+    private Level acquireLevel(long priceTicks) {
+        Level level = freeLevelCount > 0 ? freeLevels[--freeLevelCount] : new Level();
+        level.price = priceTicks;
+        return level;
+    }
+
+    private void releaseLevel(Level level) {
+        level.head = null;
+        level.tail = null;
+        level.quantity = 0;
+        level.count = 0;
+        if (freeLevelCount < freeLevels.length) {
+            freeLevels[freeLevelCount++] = level;
+        }
+    }
+
+    private static final class Order {
+        long id;
+        int side;
+        long price;
+        int remaining;
+        Level level;
+        Order prev;
+        Order next;
+    }
+
+    private static final class Level {
+        long price;
+        long quantity;
+        int count;
+        Order head;
+        Order tail;
+    }
+}
@@ -0,0 +1,486 @@
+package com.stockmarket.service;
+
+import com.stockmarket.dto.TradeRequest;
+import com.stockmarket.dto.TradeResponse;
+import com.stockmarket.entity.Portfolio;
+import com.stockmarket.model.MarketQuote;
+import com.stockmarket.model.MarketSnapshotEvent;
+import com.stockmarket.model.OrderResult;
+import com.stockmarket.repository.PortfolioRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limit orders held in memory, one {@link OrderBook} per ticker, and filled
+ * against the polled market price.
+ *
+ * <p>Every order belongs to this portfolio, so orders never trade with each
+ * other. Like {@link PriceTriggerService}, each market snapshot fills the
+ * buys limited at or above the price and the sells limited at or below it,
+ * at that price; an order the last polled price already reaches fills as
+ * soon as it is placed. A SELL is only accepted for shares held and not
+ * already offered by other resting or unwritten sells.
+ *
+ * <p>All books are driven from one sequence (this service's lock): filling
+ * takes microseconds, and a single order of events is what makes the
+ * {@link OrderJournal} replay deterministic. Each order passes the
+ * {@link PreTradeRiskService} checks and is journaled before it rests; its
+ * fills are then recorded without a second check.
+ *
+ * <p>Fills do not touch the database on the filling path. They are queued to
+ * a writer thread that records each one as a BUY or SELL trade through
+ * {@link TradeService#recordExecutedTrades}, which moves the holding and its
+ * tax lots, then checkpoints the journal. Fills made but not yet written when
+ * the process stops are replayed and written on the next start.
+ */
+@Service
+public class OrderBookService {
+
+    private static final String JOURNAL_FILE = "orders.journal";
+    private static final double TICKS_PER_RUPEE = 100.0;
+
+    private final TradeService tradeService;
+    private final PreTradeRiskService preTradeRiskService;
+    private final PortfolioRepository portfolioRepository;
+    private final Path journalFile;
+    private final boolean journalEnabled;
+    private final int poolSize;
+    private final int fillBatchSize;
+
+    // Book state, guarded by this
+    private final Map<String, OrderBook> books = new HashMap<>();
+    private final Map<String, String> companyNames = new HashMap<>();
+    private final Map<String, Long> lastPrices = new HashMap<>();
+    private final Map<String, Long> unwrittenSells = new HashMap<>();
+    private long nextOrderId = 1;
+    private long fillSequence;
+    private OrderJournal journal;
+
+    private final BlockingQueue<PendingFill> pendingFills = new LinkedBlockingQueue<>();
+    private volatile boolean running;
+    private Thread fillWriter;
+
+    public OrderBookService(TradeService tradeService, PreTradeRiskService preTradeRiskService,
+                            PortfolioRepository portfolioRepository,
+                            @Value("${stock.orders.journal.dir:data/orders}") String journalDir,
+                            @Value("${stock.orders.journal.enabled:true}") boolean journalEnabled,
+                            @Value("${stock.orders.pool-size:10000}") int poolSize,
+                            @Value("${stock.orders.fill-batch-size:500}") int fillBatchSize) {
+        this.tradeService = tradeService;
+        this.preTradeRiskService = preTradeRiskService;
+        this.portfolioRepository = portfolioRepository;
+        this.journalFile = Paths.get(journalDir).resolve(JOURNAL_FILE);
+        this.journalEnabled = journalEnabled;
+        this.poolSize = poolSize;
+        this.fillBatchSize = fillBatchSize;
+    }
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        if (journalEnabled) {
+            recover();
+        }
+        running = true;
+        fillWriter = new Thread(this::writeFills, "order-fill-writer");
+        fillWriter.setDaemon(true);
+        fillWriter.start();
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        if (fillWriter != null) {
+            fillWriter.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        synchronized (this) {
+            if (journal != null) {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    System.err.println("Failed to close order journal: " + e.getMessage());
+                }
+                journal = null;
+            }
+        }
+    }
+
+    /** Places a limit order, fills it if the last polled price reaches it and rests it otherwise. */
+    public OrderResult submit(String tickerId, String companyName, String side, double price, int quantity) {
+        if (tickerId == null || tickerId.isEmpty()) {
+            return OrderResult.rejected(tickerId, side, price, quantity, "Ticker ID is required");
+        }
+        if (!"BUY".equals(side) && !"SELL".equals(side)) {
+            return OrderResult.rejected(tickerId, side, price, quantity, "Side must be BUY or SELL");
+        }
+        if (quantity <= 0) {
+            return OrderResult.rejected(tickerId, side, price, quantity, "Quantity must be greater than 0");
+        }
+        long priceTicks = Math.round(price * TICKS_PER_RUPEE);
+        if (priceTicks <= 0) {
+            return OrderResult.rejected(tickerId, side, price, quantity, "Price must be at least 0.01");
+        }
+        Optional<String> refusal = preTradeRiskService.check(tradeRequest(tickerId, companyName, side, priceTicks, quantity));
+        if (refusal.isPresent()) {
+            return OrderResult.rejected(tickerId, side, price, quantity, "Rejected by risk check: " + refusal.get());
+        }
+        int sideCode = "BUY".equals(side) ? OrderBook.BUY : OrderBook.SELL;
+
+        List<PendingFill> fills = new ArrayList<>(2);
+        long orderId;
+        int remaining;
+        synchronized (this) {
+            if (sideCode == OrderBook.SELL) {
+                // Read under the lock so a fill being written cannot be counted both as held and as unwritten
+                long available = portfolioRepository.findByTickerId(tickerId).map(Portfolio::getTotalQuantity).orElse(0)
+                    - offeredForSale(tickerId);
+                if (quantity > available) {
+                    return OrderResult.rejected(tickerId, side, price, quantity,
+                        "Insufficient shares: " + Math.max(0, available) + " available to sell");
+                }
+            }
+            orderId = nextOrderId;
+            if (journal != null) {
+                try {
+                    journal.appendNew(orderId, tickerId, companyName, sideCode, priceTicks, quantity);
+                } catch (IOException e) {
+                    System.err.println("Failed to journal order for " + tickerId + ": " + e.getMessage());
+                    return OrderResult.rejected(tickerId, side, price, quantity, "Order journal unavailable");
+                }
+            }
+            nextOrderId++;
+            OrderBook book = add(tickerId, companyName, orderId, sideCode, priceTicks, quantity);
+            Long lastPrice = lastPrices.get(tickerId);
+            if (lastPrice != null) {
+                fillJournaled(tickerId, lastPrice, fills);
+            }
+            remaining = book.remaining(orderId);
+            pendingFills.addAll(fills);
+        }
+
+        List<OrderResult.Fill> result = new ArrayList<>(fills.size());
+        for (PendingFill fill : fills) {
+            result.add(new OrderResult.Fill(fill.priceTicks / TICKS_PER_RUPEE, fill.quantity));
+        }
+        return new OrderResult(orderId, tickerId, side, priceTicks / TICKS_PER_RUPEE, quantity, remaining, result);
+    }
+
+    @EventListener
+    public void onSnapshot(MarketSnapshotEvent event) {
+        for (MarketQuote quote : event.getCurrent().getQuotes().values()) {
+            if (quote.hasPrice()) {
+                onPrice(quote.getTickerId(), quote.getPrice());
+            }
+        }
+    }
+
+    /** Fills the ticker's resting orders that {@code price} reaches; returns how many shares filled. */
+    synchronized long onPrice(String tickerId, double price) {
+        long priceTicks = Math.round(price * TICKS_PER_RUPEE);
+        if (priceTicks <= 0) {
+            return 0;
+        }
+        lastPrices.put(tickerId, priceTicks);
+        List<PendingFill> fills = new ArrayList<>();
+        fillJournaled(tickerId, priceTicks, fills);
+        pendingFills.addAll(fills);
+        long filled = 0;
+        for (PendingFill fill : fills) {
+            filled += fill.quantity;
+        }
+        return filled;
+    }
+
+    /** Cancels what is left of a resting order; false if it is no longer in the book. */
+    public synchronized boolean cancel(String tickerId, long orderId) {
+        OrderBook book = books.get(tickerId);
+        if (book == null || book.remaining(orderId) == 0) {
+            return false;
+        }
+        if (journal != null) {
+            try {
+                journal.appendCancel(orderId, tickerId);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Order journal unavailable", e);
+            }
+        }
+        return book.cancel(orderId);
+    }
+
+    /** The best {@code levels} price levels on each side of a ticker's book. */
+    public synchronized Map<String, Object> getDepth(String tickerId, int levels) {
+        Map<String, Object> depth = new LinkedHashMap<>();
+        depth.put("tickerId", tickerId);
+        List<Map<String, Object>> bids = new ArrayList<>();
+        List<Map<String, Object>> asks = new ArrayList<>();
+        OrderBook book = books.get(tickerId);
+        if (book != null) {
+            book.forEachLevel(OrderBook.BUY, levels, (price, quantity, orders) -> bids.add(level(price, quantity, orders)));
+            book.forEachLevel(OrderBook.SELL, levels, (price, quantity, orders) -> asks.add(level(price, quantity, orders)));
+        }
+        depth.put("bids", bids);
+        depth.put("asks", asks);
+        return depth;
+    }
+
+    private static Map<String, Object> level(long priceTicks, long quantity, int orders) {
+        Map<String, Object> level = new LinkedHashMap<>();
+        level.put("price", priceTicks / TICKS_PER_RUPEE);
+        level.put("quantity", quantity);
+        level.put("orders", orders);
+        return level;
+    }
+
+    private OrderBook add(String tickerId, String companyName, long orderId, int side, long priceTicks,
+                          int quantity) {
+        if (companyName != null) {
+            companyNames.put(tickerId, companyName);
+        }
+        OrderBook book = books.computeIfAbsent(tickerId, ticker -> new OrderBook(poolSize));
+        book.add(orderId, side, priceTicks, quantity);
+        return book;
+    }
+
+    /** Journals the price and fills what it reaches; fills nothing if it cannot be journaled. */
+    private void fillJournaled(String tickerId, long priceTicks, Collection<PendingFill> sink) {
+        OrderBook book = books.get(tickerId);
+        if (book == null || !book.crosses(priceTicks)) {
+            return;
+        }
+        if (journal != null) {
+            try {
+                journal.appendPrice(tickerId, priceTicks);
+            } catch (IOException e) {
+                // Left resting: the next price update tries again
+                System.err.println("Failed to journal market price for " + tickerId + ": " + e.getMessage());
+                return;
+            }
+        }
+        fill(tickerId, priceTicks, sink);
+    }
+
+    private void fill(String tickerId, long priceTicks, Collection<PendingFill> sink) {
+        OrderBook book = books.get(tickerId);
+        if (book == null) {
+            return;
+        }
+        book.fillAt(priceTicks, (orderId, side, fillPrice, fillQuantity) -> {
+            if (side == OrderBook.SELL) {
+                unwrittenSells.merge(tickerId, (long) fillQuantity, Long::sum);
+            }
+            sink.add(new PendingFill(++fillSequence, tickerId, companyNames.get(tickerId), orderId, side, fillPrice,
+                fillQuantity));
+        });
+    }
+
+    /** Shares resting in SELL orders plus SELL fills not yet written to the holding. */
+    private long offeredForSale(String tickerId) {
+        OrderBook book = books.get(tickerId);
+        return (book == null ? 0 : book.restingQuantity(OrderBook.SELL)) + unwrittenSells.getOrDefault(tickerId, 0L);
+    }
+
+    private void recover() throws IOException {
+        Deque<PendingFill> unwritten = new ArrayDeque<>();
+        long[] checkpoint = {0};
+        OrderJournal.replay(journalFile, new OrderJournal.Listener() {
+            @Override
+            public void onState(long nextId, long sequence) {
+                nextOrderId = Math.max(nextOrderId, nextId);
+                fillSequence = sequence;
+                checkpoint[0] = Math.max(checkpoint[0], sequence);
+            }
+
+            @Override
+            public void onNew(long orderId, String tickerId, String companyName, int side, long priceTicks,
+                              int quantity) {
+                nextOrderId = Math.max(nextOrderId, orderId + 1);
+                add(tickerId, companyName, orderId, side, priceTicks, quantity);
+            }
+
+            @Override
+            public void onCancel(long orderId, String tickerId) {
+                OrderBook book = books.get(tickerId);
+                if (book != null) {
+                    book.cancel(orderId);
+                }
+            }
+
+            @Override
+            public void onPrice(String tickerId, long priceTicks) {
+                fill(tickerId, priceTicks, unwritten);
+            }
+
+            @Override
+            public void onCheckpoint(long sequence) {
+                checkpoint[0] = Math.max(checkpoint[0], sequence);
+                while (!unwritten.isEmpty() && unwritten.peekFirst().sequence <= checkpoint[0]) {
+                    written(unwritten.pollFirst());
+                }
+            }
+        });
+
+        boolean compact = true;
+        if (!unwritten.isEmpty()) {
+            System.out.println("Writing " + unwritten.size() + " order fills replayed from the journal");
+            try {
+                persistFills(new ArrayList<>(unwritten), false);
+            } catch (RuntimeException e) {
+                // Keep the history that produces these fills until the writer gets them in
+                System.err.println("Failed to write replayed fills, will retry: " + e.getMessage());
+                pendingFills.addAll(unwritten);
+                compact = false;
+            }
+        }
+        if (compact) {
+            OrderJournal.rewrite(journalFile, fresh -> {
+                fresh.appendState(nextOrderId, fillSequence);
+                for (Map.Entry<String, OrderBook> entry : books.entrySet()) {
+                    String tickerId = entry.getKey();
+                    String companyName = companyNames.get(tickerId);
+                    entry.getValue().forEachOrder((orderId, side, priceTicks, remaining) -> {
+                        try {
+                            fresh.appendNew(orderId, tickerId, companyName, side, priceTicks, remaining);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+            });
+        }
+        journal = OrderJournal.openForAppend(journalFile);
+
+        int resting = 0;
+        for (OrderBook book : books.values()) {
+            resting += book.orderCount();
+        }
+        System.out.println("Order books recovered: " + resting + " resting orders across " + books.size() + " tickers");
+    }
+
+    private void writeFills() {
+        List<PendingFill> batch = new ArrayList<>(fillBatchSize);
+        while (running) {
+            try {
+                PendingFill first = pendingFills.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                pendingFills.drainTo(batch, fillBatchSize - 1);
+                while (true) {
+                    try {
+                        persistFills(batch, true);
+                        break;
+                    } catch (RuntimeException e) {
+                        // The journal still has these fills; they are replayed if we never get them in
+                        System.err.println("Failed to write " + batch.size() + " order fills: " + e.getMessage());
+                        if (!running) {
+                            return;
+                        }
+                        Thread.sleep(1000);
+                    }
+                }
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /** Records each fill as a BUY or SELL trade and checkpoints the journal. */
+    private void persistFills(List<PendingFill> fills, boolean checkpoint) {
+        String date = LocalDateTime.now().toLocalDate().toString();
+        String time = LocalDateTime.now().toLocalTime().toString();
+        List<TradeRequest> requests = new ArrayList<>(fills.size());
+        for (PendingFill fill : fills) {
+            requests.add(fill.toTradeRequest(date, time));
+        }
+        List<TradeResponse> responses = tradeService.recordExecutedTrades(requests);
+        for (int i = 0; i < responses.size(); i++) {
+            if (!"SUCCESS".equals(responses.get(i).getStatus())) {
+                System.err.println("Order fill trade for " + requests.get(i).getTickerId() + " failed: "
+                    + responses.get(i).getMessage());
+            }
+        }
+        synchronized (this) {
+            fills.forEach(this::written);
+            if (checkpoint && journal != null) {
+                try {
+                    journal.appendCheckpoint(fills.get(fills.size() - 1).sequence);
+                } catch (IOException e) {
+                    System.err.println("Failed to checkpoint order journal: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /** A SELL fill now in the holding no longer counts as offered for sale. */
+    private void written(PendingFill fill) {
+        if (fill.side == OrderBook.SELL) {
+            unwrittenSells.computeIfPresent(fill.tickerId, (ticker, unwritten) ->
+                unwritten > fill.quantity ? unwritten - fill.quantity : null);
+        }
+    }
+
+    private static TradeRequest tradeRequest(String tickerId, String companyName, String tradeType, long priceTicks,
+                                             int quantity) {
+        double price = priceTicks / TICKS_PER_RUPEE;
+        TradeRequest request = new TradeRequest();
+        request.setTickerId(tickerId);
+        request.setCompanyName(companyName);
+        request.setTradeType(tradeType);
+        request.setQuantity(quantity);
+        request.setPrice(price);
+        request.setTotalAmount(quantity * price);
+        return request;
+    }
+
+    private static final class PendingFill {
+        final long sequence;
+        final String tickerId;
+        final String companyName;
+        final long orderId;
+        final int side;
+        final long priceTicks;
+        final int quantity;
+
+        PendingFill(long sequence, String tickerId, String companyName, long orderId, int side, long priceTicks,
+                    int quantity) {
+            this.sequence = sequence;
+            this.tickerId = tickerId;
+            this.companyName = companyName;
+            this.orderId = orderId;
+            this.side = side;
+            this.priceTicks = priceTicks;
+            this.quantity = quantity;
+        }
+
+        TradeRequest toTradeRequest(String date, String time) {
+            TradeRequest request = tradeRequest(tickerId, companyName, side == OrderBook.BUY ? "BUY" : "SELL",
+                priceTicks, quantity);
+            request.setDate(date);
+            request.setTime(time);
+            return request;
+        }
+    }
+}
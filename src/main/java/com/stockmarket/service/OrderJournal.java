@@ -0,0 +1,152 @@
+package com.stockmarket.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only journal of order book commands, used to rebuild the books
+ * after a restart.
+ *
+ * <p>Filling is deterministic, so the journal records only the inputs (new
+ * orders, cancels and the market prices that filled orders) in the order
+ * they were applied; replaying them yields the same books and the same
+ * fills. Checkpoint records note how many fills have been written to the
+ * database, so fills that were made but not yet persisted are replayed too. A state record at the start of a compacted
+ * journal carries the order id and fill counters forward.
+ *
+ * <p>Records are small binary frames, flushed to the OS after every append.
+ * A record cut short by a crash ends the replay.
+ */
+final class OrderJournal implements Closeable {
+
+    private static final byte NEW = 1;
+    private static final byte CANCEL = 2;
+    private static final byte CHECKPOINT = 3;
+    private static final byte STATE = 4;
+    private static final byte PRICE = 5;
+
+    interface Listener {
+        void onState(long nextOrderId, long fillSequence);
+
+        void onNew(long orderId, String tickerId, String companyName, int side, long priceTicks, int quantity);
+
+        void onCancel(long orderId, String tickerId);
+
+        void onPrice(String tickerId, long priceTicks);
+
+        void onCheckpoint(long fillSequence);
+    }
+
+    private final DataOutputStream out;
+
+    private OrderJournal(DataOutputStream out) {
+        this.out = out;
+    }
+
+    static OrderJournal openForAppend(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        return new OrderJournal(new DataOutputStream(new BufferedOutputStream(
+            Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND))));
+    }
+
+    /** Replays every complete record of the journal; a missing file replays nothing. */
+    static void replay(Path file, Listener listener) throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (true) {
+                int type = in.read();
+                if (type < 0) {
+                    return;
+                }
+                switch (type) {
+                    case NEW -> listener.onNew(in.readLong(), in.readUTF(), emptyToNull(in.readUTF()),
+                        in.readByte(), in.readLong(), in.readInt());
+                    case CANCEL -> listener.onCancel(in.readLong(), in.readUTF());
+                    case CHECKPOINT -> listener.onCheckpoint(in.readLong());
+                    case STATE -> listener.onState(in.readLong(), in.readLong());
+                    case PRICE -> listener.onPrice(in.readUTF(), in.readLong());
+                    default -> throw new IOException("Unknown order journal record type " + type);
+                }
+            }
+        } catch (EOFException e) {
+            System.err.println("Order journal ends in a partial record, ignoring it");
+        }
+    }
+
+    /**
+     * Writes a fresh journal through {@code writer} and swaps it in place of
+     * {@code file}. Used to drop the history of orders no longer in a book.
+     */
+    static void rewrite(Path file, JournalWriter writer) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OrderJournal journal = new OrderJournal(new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING))))) {
+            writer.write(journal);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    interface JournalWriter {
+        void write(OrderJournal journal) throws IOException;
+    }
+
+    synchronized void appendState(long nextOrderId, long fillSequence) throws IOException {
+        out.writeByte(STATE);
+        out.writeLong(nextOrderId);
+        out.writeLong(fillSequence);
+        out.flush();
+    }
+
+    synchronized void appendNew(long orderId, String tickerId, String companyName, int side, long priceTicks,
+                                int quantity) throws IOException {
+        out.writeByte(NEW);
+        out.writeLong(orderId);
+        out.writeUTF(tickerId);
+        out.writeUTF(companyName == null ? "" : companyName);
+        out.writeByte(side);
+        out.writeLong(priceTicks);
+        out.writeInt(quantity);
+        out.flush();
+    }
+
+    synchronized void appendCancel(long orderId, String tickerId) throws IOException {
+        out.writeByte(CANCEL);
+        out.writeLong(orderId);
+        out.writeUTF(tickerId);
+        out.flush();
+    }
+
+    synchronized void appendPrice(String tickerId, long priceTicks) throws IOException {
+        out.writeByte(PRICE);
+        out.writeUTF(tickerId);
+        out.writeLong(priceTicks);
+        out.flush();
+    }
+
+    synchronized void appendCheckpoint(long fillSequence) throws IOException {
+        out.writeByte(CHECKPOINT);
+        out.writeLong(fillSequence);
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
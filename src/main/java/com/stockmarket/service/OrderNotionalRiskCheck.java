@@ -0,0 +1,27 @@
+package com.stockmarket.service;
+
+import com.stockmarket.dto.TradeRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/** Refuses orders worth more than {@code trade.risk.max-order-notional}; 0 turns it off. */
+@Component
+public class OrderNotionalRiskCheck implements PreTradeRiskCheck {
+
+    private final double maxNotional;
+
+    public OrderNotionalRiskCheck(@Value("${trade.risk.max-order-notional:0}") double maxNotional) {
+        this.maxNotional = maxNotional;
+    }
+
+    @Override
+    public Optional<String> check(TradeRequest request, TradeExposure exposure) {
+        double notional = request.getQuantity() * request.getPrice();
+        if (maxNotional > 0 && notional > maxNotional) {
+            return Optional.of(String.format("Order value %.2f exceeds the limit of %.2f per order", notional, maxNotional));
+        }
+        return Optional.empty();
+    }
+}
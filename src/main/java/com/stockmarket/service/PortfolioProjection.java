@@ -0,0 +1,113 @@
+package com.stockmarket.service;
+
+import com.stockmarket.entity.Portfolio;
+import com.stockmarket.entity.PortfolioSnapshot;
+import com.stockmarket.entity.Trade;
+
+import java.time.LocalDateTime;
+
+/**
+ * A ticker's holding folded from its trades in replay order (opening balance
+ * first, then oldest first), with the same rules as live trading: a BUY or
+ * opening balance blends into the average price, a SELL only reduces the
+ * quantity. A SELL for more than is held (possible once earlier BUYs were
+ * deleted) empties the holding.
+ */
+final class PortfolioProjection {
+
+    private final String tickerId;
+    private String companyName;
+    private int quantity;
+    private double averagePrice;
+    private double lastPrice;
+    private long lastTradeId;
+    private LocalDateTime lastTradeAt;
+    private int replayed;
+
+    private PortfolioProjection(String tickerId) {
+        this.tickerId = tickerId;
+    }
+
+    static PortfolioProjection empty(String tickerId) {
+        return new PortfolioProjection(tickerId);
+    }
+
+    static PortfolioProjection from(PortfolioSnapshot snapshot) {
+        PortfolioProjection projection = new PortfolioProjection(snapshot.getTickerId());
+        projection.companyName = snapshot.getCompanyName();
+        projection.quantity = snapshot.getTotalQuantity();
+        projection.averagePrice = snapshot.getAveragePrice();
+        projection.lastPrice = snapshot.getLastPrice();
+        projection.lastTradeId = snapshot.getLastTradeId();
+        projection.lastTradeAt = snapshot.getLastTradeAt();
+        return projection;
+    }
+
+    void apply(Trade trade) {
+        if ("BUY".equals(trade.getTradeType()) || TradeService.OPENING.equals(trade.getTradeType())) {
+            int newQuantity = quantity + trade.getQuantity();
+            averagePrice = (quantity * averagePrice + trade.getQuantity() * trade.getPrice()) / newQuantity;
+            quantity = newQuantity;
+        } else if ("SELL".equals(trade.getTradeType())) {
+            quantity = Math.max(0, quantity - trade.getQuantity());
+        }
+        if (trade.getCompanyName() != null) {
+            companyName = trade.getCompanyName();
+        }
+        lastPrice = trade.getPrice();
+        // An opening balance is replayed first, yet has a later id than the trades after it and an earlier time
+        if (trade.getId() != null) {
+            lastTradeId = Math.max(lastTradeId, trade.getId());
+        }
+        if (lastTradeAt == null || (trade.getTimestamp() != null && trade.getTimestamp().isAfter(lastTradeAt))) {
+            lastTradeAt = trade.getTimestamp();
+        }
+        replayed++;
+    }
+
+    /** Copies the holding onto a portfolio row (new or existing). */
+    Portfolio writeTo(Portfolio portfolio) {
+        portfolio.setTickerId(tickerId);
+        if (companyName != null) {
+            portfolio.setCompanyName(companyName);
+        }
+        portfolio.setTotalQuantity(quantity);
+        portfolio.setAveragePrice(averagePrice);
+        portfolio.setCurrentValue(quantity * lastPrice);
+        portfolio.setLastUpdated(lastTradeAt != null ? lastTradeAt : LocalDateTime.now());
+        return portfolio;
+    }
+
+    /** True if the row holds the same shares at the same average price (to a rounding error). */
+    boolean matches(Portfolio portfolio) {
+        return portfolio.getTotalQuantity() == quantity
+            && Math.abs(portfolio.getAveragePrice() - averagePrice) <= 1e-6 * Math.max(1.0, Math.abs(averagePrice));
+    }
+
+    PortfolioSnapshot toSnapshot() {
+        PortfolioSnapshot snapshot = new PortfolioSnapshot();
+        snapshot.setTickerId(tickerId);
+        snapshot.setCompanyName(companyName);
+        snapshot.setLastTradeId(lastTradeId);
+        snapshot.setLastTradeAt(lastTradeAt);
+        snapshot.setTotalQuantity(quantity);
+        snapshot.setAveragePrice(averagePrice);
+        snapshot.setLastPrice(lastPrice);
+        return snapshot;
+    }
+
+    int getQuantity() { return quantity; }
+
+    double getAveragePrice() { return averagePrice; }
+
+    /** What the shares held cost, at the average price. */
+    double getCost() { return quantity * averagePrice; }
+
+    long getLastTradeId() { return lastTradeId; }
+
+    /** Trades applied on top of the starting snapshot. */
+    int getReplayed() { return replayed; }
+
+    /** True if no trade was ever applied, from a snapshot or otherwise. */
+    boolean isEmpty() { return lastTradeId == 0; }
+}
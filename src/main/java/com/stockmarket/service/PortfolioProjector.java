@@ -0,0 +1,198 @@
+package com.stockmarket.service;
+
+import com.stockmarket.entity.Portfolio;
+import com.stockmarket.entity.Trade;
+import com.stockmarket.repository.PortfolioRepository;
+import com.stockmarket.repository.PortfolioSnapshotRepository;
+import com.stockmarket.repository.TradeRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Derives holdings from the trade log: the latest {@link PortfolioProjection}
+ * snapshot of a ticker plus the trades recorded after it.
+ *
+ * <p>Callers that write (rebuild, snapshot) hold the ticker's trade lock, see
+ * {@link TradeService#rebuildPortfolio}, so trade ids are seen in commit order.
+ *
+ * <p>Holdings from before the trade log (old CSV imports, rows edited by
+ * hand) have no trades behind them. Until the opening balance migration has
+ * given them one (see {@link #openingBalance}), {@link #requireMatchesLog}
+ * refuses to let a rebuild overwrite a row the log does not explain. An
+ * opening balance is appended late but is replayed before the ticker's
+ * other trades.
+ */
+@Service
+public class PortfolioProjector {
+    
+    private final TradeRepository tradeRepository;
+    private final PortfolioRepository portfolioRepository;
+    private final PortfolioSnapshotRepository snapshotRepository;
+    private volatile boolean openingBalancesRecorded;
+    
+    public PortfolioProjector(TradeRepository tradeRepository, PortfolioRepository portfolioRepository,
+                              PortfolioSnapshotRepository snapshotRepository) {
+        this.tradeRepository = tradeRepository;
+        this.portfolioRepository = portfolioRepository;
+        this.snapshotRepository = snapshotRepository;
+    }
+    
+    /** The ticker's current holding according to the trade log. */
+    @Transactional(readOnly = true)
+    public PortfolioProjection project(String tickerId) {
+        PortfolioProjection projection = snapshotRepository.findFirstByTickerIdOrderByLastTradeIdDesc(tickerId)
+            .map(PortfolioProjection::from)
+            .orElseGet(() -> PortfolioProjection.empty(tickerId));
+        for (Trade trade : tradeRepository.findReplayAfter(tickerId, projection.getLastTradeId())) {
+            projection.apply(trade);
+        }
+        return projection;
+    }
+    
+    /** The ticker's holding as it stood at {@code at}. */
+    @Transactional(readOnly = true)
+    public PortfolioProjection projectAt(String tickerId, LocalDateTime at) {
+        PortfolioProjection projection = snapshotRepository
+            .findFirstByTickerIdAndLastTradeAtLessThanEqualOrderByLastTradeIdDesc(tickerId, at)
+            .map(PortfolioProjection::from)
+            .orElseGet(() -> PortfolioProjection.empty(tickerId));
+        for (Trade trade : tradeRepository.findReplayAfterUntil(tickerId, projection.getLastTradeId(), at)) {
+            projection.apply(trade);
+        }
+        return projection;
+    }
+    
+    /** Overwrites the ticker's portfolio row with its projection; an empty holding removes the row. */
+    @Transactional
+    public PortfolioProjection rebuild(String tickerId) {
+        PortfolioProjection projection = project(tickerId);
+        Optional<Portfolio> existing = portfolioRepository.findByTickerId(tickerId);
+        if (projection.getQuantity() == 0) {
+            existing.ifPresent(portfolioRepository::delete);
+        } else {
+            portfolioRepository.save(projection.writeTo(existing.orElseGet(Portfolio::new)));
+        }
+        return projection;
+    }
+    
+    /** Called once every holding has the opening balance it needs in the trade log. */
+    public void markOpeningBalancesRecorded() {
+        openingBalancesRecorded = true;
+    }
+    
+    /**
+     * Throws unless a rebuild of the ticker is safe: the opening balance
+     * migration has run, or the ticker's row is what its trades add up to.
+     */
+    @Transactional(readOnly = true)
+    public void requireMatchesLog(String tickerId) {
+        if (openingBalancesRecorded) {
+            return;
+        }
+        Optional<Portfolio> row = portfolioRepository.findByTickerId(tickerId);
+        if (row.isPresent() && !project(tickerId).matches(row.get())) {
+            throw new IllegalStateException("Holding of " + tickerId + " differs from its trade log;"
+                + " not rebuilt before the opening balance migration has run");
+        }
+    }
+    
+    /**
+     * The {@link TradeService#OPENING} trade to add to the ticker's log so
+     * that it adds up to {@code row}, or empty if it already does. It is
+     * replayed before every other trade of the ticker, so it brings the
+     * shares that the row holds beyond its trades, and that earlier SELLs
+     * sold, at the price that makes the average come out right. Its
+     * timestamp is just before the ticker's first trade.
+     *
+     * @throws IllegalStateException if no opening balance can reconcile
+     *         them: the trades sell more than the row plus what they buy, or
+     *         the price it would need is not positive
+     */
+    @Transactional(readOnly = true)
+    public Optional<Trade> openingBalance(Portfolio row) {
+        String tickerId = row.getTickerId();
+        List<Trade> trades = tradeRepository.findReplayAfter(tickerId, 0L);
+        if (replay(tickerId, null, trades).matches(row)) {
+            return Optional.empty();
+        }
+        int net = 0;
+        int lowest = 0;
+        for (Trade trade : trades) {
+            net += "SELL".equals(trade.getTradeType()) ? -trade.getQuantity() : trade.getQuantity();
+            lowest = Math.min(lowest, net);
+        }
+        int quantity = row.getTotalQuantity() - net;
+        double target = row.getTotalQuantity() * row.getAveragePrice();
+        if (quantity <= 0 || quantity < -lowest) {
+            throw unreachable(row, net);
+        }
+        // The replayed cost is linear in the opening price: solve for the one that reaches the row
+        LocalDateTime first = tradeRepository.findFirstTimestamp(tickerId);
+        Trade opening = openingTrade(row, quantity, first);
+        double base = replay(tickerId, opening, trades).getCost();
+        opening.setPrice(1.0);
+        double perRupee = replay(tickerId, opening, trades).getCost() - base;
+        double price;
+        if (Math.abs(perRupee) > 1e-9) {
+            price = (target - base) / perRupee;
+        } else if (Math.abs(target - base) <= 1e-6 * Math.max(1.0, Math.abs(target))) {
+            // Sold out before the trades the row is made of; the opening price does not show
+            price = row.getAveragePrice();
+        } else {
+            throw unreachable(row, net);
+        }
+        if (price <= 0) {
+            throw unreachable(row, net);
+        }
+        opening.setPrice(price);
+        opening.setTotalAmount(quantity * price);
+        return Optional.of(opening);
+    }
+    
+    private static PortfolioProjection replay(String tickerId, Trade opening, List<Trade> trades) {
+        PortfolioProjection projection = PortfolioProjection.empty(tickerId);
+        if (opening != null) {
+            projection.apply(opening);
+        }
+        trades.forEach(projection::apply);
+        return projection;
+    }
+    
+    private static Trade openingTrade(Portfolio row, int quantity, LocalDateTime firstTrade) {
+        LocalDateTime at = firstTrade != null ? firstTrade.minus(1, ChronoUnit.MICROS)
+            : LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        Trade opening = new Trade(row.getTickerId(), row.getCompanyName(), TradeService.OPENING, quantity, 0.0, 0.0);
+        opening.setDate(at.toLocalDate().toString());
+        opening.setTime(at.toLocalTime().toString());
+        opening.setTimestamp(at);
+        return opening;
+    }
+    
+    private static IllegalStateException unreachable(Portfolio row, int net) {
+        return new IllegalStateException("Holding of " + row.getTickerId() + " (" + row.getTotalQuantity()
+            + " at " + row.getAveragePrice() + ") cannot be reached from its trades (net " + net
+            + " shares) with an opening balance");
+    }
+    
+    /** Stores a new snapshot if at least {@code minTrades} trades came after the last one. */
+    @Transactional
+    public boolean snapshot(String tickerId, int minTrades) {
+        PortfolioProjection projection = project(tickerId);
+        if (projection.isEmpty() || projection.getReplayed() < Math.max(1, minTrades)) {
+            return false;
+        }
+        snapshotRepository.save(projection.toSnapshot());
+        return true;
+    }
+    
+    /** Drops snapshots that include {@code tradeId}, e.g. because that trade was deleted. */
+    @Transactional
+    public void discardSnapshotsFrom(String tickerId, long tradeId) {
+        snapshotRepository.deleteFromTrade(tickerId, tradeId);
+    }
+}
@@ -1,10 +1,15 @@
 package com.stockmarket.service;
 
+import com.stockmarket.dto.TradeRequest;
+import com.stockmarket.dto.TradeResponse;
 import com.stockmarket.entity.Portfolio;
 import com.stockmarket.repository.PortfolioRepository;
+import com.stockmarket.repository.TradeRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.BufferedReader;
@@ -12,6 +17,10 @@ import java.io.InputStreamReader;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 @Service
 public class PortfolioService {
@@ -19,16 +28,93 @@ public class PortfolioService {
     @Autowired
     private PortfolioRepository portfolioRepository;
     
+    @Autowired
+    private TradeRepository tradeRepository;
+    
+    @Autowired
+    private TradeService tradeService;
+    
+    @Autowired
+    private PortfolioProjector portfolioProjector;
+    
+    @Autowired
+    @Qualifier("portfolioRebuildExecutor")
+    private ExecutorService portfolioRebuildExecutor;
+    
+    @Value("${portfolio.snapshot.min-trades:100}")
+    private int snapshotMinTrades;
+    
     public List<Portfolio> getAllPortfolio() {
         return portfolioRepository.findAll();
     }
     
-    @Transactional
+    /**
+     * Rebuilds every holding from the trade log (latest snapshot plus the
+     * trades after it), tickers in parallel. Tickers without trades are left
+     * as they are.
+     */
+    public Map<String, Object> rebuildAll() {
+        long start = System.nanoTime();
+        Map<String, String> failures = forEachTicker(tradeService::rebuildPortfolio);
+        Map<String, Object> result = new HashMap<>();
+        result.put("tickers", tradeRepository.findDistinctTickerIds().size());
+        result.put("failed", failures);
+        result.put("elapsedMs", (System.nanoTime() - start) / 1_000_000);
+        System.out.println("Rebuilt portfolio from trades in " + result.get("elapsedMs") + " ms");
+        return result;
+    }
+    
+    /** Snapshots every ticker with enough new trades, so rebuilds replay only a short tail. */
+    @Scheduled(fixedDelayString = "${portfolio.snapshot.interval-ms:3600000}",
+               initialDelayString = "${portfolio.snapshot.interval-ms:3600000}")
+    public void snapshotAll() {
+        Map<String, String> failures = forEachTicker(tickerId -> tradeService.snapshotPortfolio(tickerId, snapshotMinTrades));
+        if (!failures.isEmpty()) {
+            System.err.println("Portfolio snapshot failed for " + failures);
+        }
+    }
+    
+    /** The ticker's holding as it stood at {@code at}, replayed from the trade log. */
+    public Optional<Portfolio> getPortfolioAt(String tickerId, LocalDateTime at) {
+        PortfolioProjection projection = portfolioProjector.projectAt(tickerId, at);
+        if (projection.getQuantity() == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(projection.writeTo(new Portfolio()));
+    }
+    
+    /** Runs the action for every traded ticker on the rebuild pool; returns the failures by ticker. */
+    private Map<String, String> forEachTicker(Consumer<String> action) {
+        List<String> tickers = tradeRepository.findDistinctTickerIds();
+        Map<String, Future<?>> tasks = new LinkedHashMap<>();
+        for (String tickerId : tickers) {
+            tasks.put(tickerId, portfolioRebuildExecutor.submit(() -> action.accept(tickerId)));
+        }
+        Map<String, String> failures = new LinkedHashMap<>();
+        for (Map.Entry<String, Future<?>> task : tasks.entrySet()) {
+            try {
+                task.getValue().get();
+            } catch (ExecutionException e) {
+                failures.put(task.getKey(), e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failures.put(task.getKey(), "interrupted");
+            }
+        }
+        return failures;
+    }
+    
+    /**
+     * Imports holdings from an exported CSV. Each row is recorded as a BUY
+     * trade, so holdings stay a projection of the trade log.
+     */
     public Map<String, Object> importFromCSV(MultipartFile file) {
         Map<String, Object> result = new HashMap<>();
         List<String> errors = new ArrayList<>();
         int importedCount = 0;
         int skippedCount = 0;
+        List<TradeRequest> requests = new ArrayList<>();
+        List<Integer> requestLines = new ArrayList<>();
         
         try {
             BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream()));
@@ -135,41 +221,18 @@ public class PortfolioService {
                         timestamp = LocalDateTime.now();
                     }
                     
-                    // Check if portfolio entry already exists
-                    Optional<Portfolio> existingPortfolio = portfolioRepository.findByTickerId(symbol);
-                    
-                    if (existingPortfolio.isPresent()) {
-                        // Update existing portfolio
-                        Portfolio portfolio = existingPortfolio.get();
-                        
-                        // Calculate new average price
-                        double totalCost = (portfolio.getTotalQuantity() * portfolio.getAveragePrice()) + 
-                                         (quantity * price);
-                        int newTotalQuantity = portfolio.getTotalQuantity() + quantity;
-                        double newAveragePrice = totalCost / newTotalQuantity;
-                        
-                        portfolio.setTotalQuantity(newTotalQuantity);
-                        portfolio.setAveragePrice(newAveragePrice);
-                        portfolio.setCurrentValue(newTotalQuantity * price);
-                        portfolio.setLastUpdated(timestamp);
-                        
-                        portfolioRepository.save(portfolio);
-                    } else {
-                        // Create new portfolio entry
-                        Portfolio newPortfolio = new Portfolio();
-                        newPortfolio.setTickerId(symbol);
-                        newPortfolio.setCompanyName(name);
-                        newPortfolio.setTotalQuantity(quantity);
-                        newPortfolio.setAveragePrice(price);
-                        newPortfolio.setCurrentValue(quantity * price);
-                        newPortfolio.setCreatedAt(timestamp);
-                        newPortfolio.setLastUpdated(timestamp);
-                        
-                        portfolioRepository.save(newPortfolio);
-                    }
-                    
-                    importedCount++;
-                    
+                    // Record the holding as a BUY so it is part of the trade log
+                    TradeRequest request = new TradeRequest();
+                    request.setTickerId(symbol);
+                    request.setCompanyName(name);
+                    request.setTradeType("BUY");
+                    request.setQuantity(quantity);
+                    request.setPrice(price);
+                    request.setTotalAmount(quantity * price);
+                    request.setDate(timestamp.toLocalDate().toString());
+                    request.setTime(timestamp.toLocalTime().toString());
+                    requests.add(request);
+                    requestLines.add(lineNumber);
                 } catch (Exception e) {
                     errors.add("Line " + lineNumber + ": Error processing line - " + e.getMessage());
                     skippedCount++;
@@ -178,6 +241,16 @@ public class PortfolioService {
             
             reader.close();
             
+            List<TradeResponse> responses = tradeService.recordExecutedTrades(requests);
+            for (int i = 0; i < responses.size(); i++) {
+                if ("SUCCESS".equals(responses.get(i).getStatus())) {
+                    importedCount++;
+                } else {
+                    errors.add("Line " + requestLines.get(i) + ": " + responses.get(i).getMessage());
+                    skippedCount++;
+                }
+            }
+            
             // Build result
             result.put("success", true);
             result.put("message", String.format("Import completed. Imported: %d, Skipped: %d", 
@@ -0,0 +1,35 @@
+package com.stockmarket.service;
+
+import com.stockmarket.dto.TradeRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Refuses BUYs that would take a ticker's holding above
+ * {@code trade.risk.max-position} shares; 0 turns it off. SELLs only reduce
+ * the holding and always pass.
+ */
+@Component
+public class PositionLimitRiskCheck implements PreTradeRiskCheck {
+
+    private final long maxPosition;
+
+    public PositionLimitRiskCheck(@Value("${trade.risk.max-position:0}") long maxPosition) {
+        this.maxPosition = maxPosition;
+    }
+
+    @Override
+    public Optional<String> check(TradeRequest request, TradeExposure exposure) {
+        if (maxPosition <= 0 || !"BUY".equals(request.getTradeType())) {
+            return Optional.empty();
+        }
+        long position = exposure.position(request.getTickerId());
+        if (position + request.getQuantity() > maxPosition) {
+            return Optional.of("Position in " + request.getTickerId() + " would be " + (position + request.getQuantity())
+                + " shares, above the limit of " + maxPosition);
+        }
+        return Optional.empty();
+    }
+}
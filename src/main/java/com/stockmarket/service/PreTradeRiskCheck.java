@@ -0,0 +1,17 @@
+package com.stockmarket.service;
+
+import com.stockmarket.dto.TradeRequest;
+
+import java.util.Optional;
+
+/**
+ * One pre-trade risk rule. Every bean implementing it is run by
+ * {@link PreTradeRiskService} on each order before the order reaches the
+ * database, so a check may read only {@link TradeExposure} and other
+ * in-memory state, never query.
+ */
+public interface PreTradeRiskCheck {
+
+    /** Why the order is refused, or empty to let it through. */
+    Optional<String> check(TradeRequest request, TradeExposure exposure);
+}
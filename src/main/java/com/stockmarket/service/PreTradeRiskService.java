@@ -0,0 +1,64 @@
+package com.stockmarket.service;
+
+import com.stockmarket.dto.TradeRequest;
+import com.stockmarket.entity.Trade;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Runs every {@link PreTradeRiskCheck} bean against an order before it is
+ * executed, and keeps {@link TradeExposure} in step with committed trades.
+ *
+ * <p>Checks see exposure as of the last commit: orders in flight at the same
+ * moment are not counted against each other, so limits are enforced to
+ * within one order per concurrent caller.
+ */
+@Service
+public class PreTradeRiskService {
+
+    private final List<PreTradeRiskCheck> checks;
+    private final TradeExposure exposure;
+
+    public PreTradeRiskService(List<PreTradeRiskCheck> checks, TradeExposure exposure) {
+        this.checks = List.copyOf(checks);
+        this.exposure = exposure;
+        System.out.println("Pre-trade risk checks: " + checks.size());
+    }
+
+    /** The first reason a check gives to refuse the order, or empty if all pass. */
+    public Optional<String> check(TradeRequest request) {
+        for (PreTradeRiskCheck check : checks) {
+            Optional<String> refusal = check.check(request, exposure);
+            if (refusal.isPresent()) {
+                return refusal;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /** Counts just saved trades into the exposure once their transaction commits. */
+    public void onExecuted(List<Trade> trades) {
+        if (trades.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            exposure.apply(trades);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                exposure.apply(trades);
+            }
+        });
+    }
+
+    /** Sets the ticker's position to what its rebuilt holding says. */
+    public void resetPosition(String tickerId, long quantity) {
+        exposure.resetPosition(tickerId, quantity);
+    }
+}
@@ -0,0 +1,44 @@
+package com.stockmarket.service;
+
+import com.stockmarket.dto.TradeRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Fat-finger guard: refuses orders priced more than
+ * {@code trade.risk.price-band-percent} away from the last polled market
+ * price; 0 turns it off. Tickers with no cached price pass.
+ */
+@Component
+public class PriceBandRiskCheck implements PreTradeRiskCheck {
+
+    private final MarketDataService marketDataService;
+    private final SymbolRegistry symbolRegistry;
+    private final double bandPercent;
+
+    public PriceBandRiskCheck(MarketDataService marketDataService, SymbolRegistry symbolRegistry,
+                              @Value("${trade.risk.price-band-percent:0}") double bandPercent) {
+        this.marketDataService = marketDataService;
+        this.symbolRegistry = symbolRegistry;
+        this.bandPercent = bandPercent;
+    }
+
+    @Override
+    public Optional<String> check(TradeRequest request, TradeExposure exposure) {
+        if (bandPercent <= 0) {
+            return Optional.empty();
+        }
+        double marketPrice = marketDataService.getSnapshot().getPrice(symbolRegistry.idOf(request.getTickerId()));
+        if (Double.isNaN(marketPrice) || marketPrice <= 0) {
+            return Optional.empty();
+        }
+        double deviation = Math.abs(request.getPrice() - marketPrice) / marketPrice * 100;
+        if (deviation > bandPercent) {
+            return Optional.of(String.format("Price %.2f is %.1f%% away from the market price %.2f (band is %.1f%%)",
+                request.getPrice(), deviation, marketPrice, bandPercent));
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,188 @@
+package com.stockmarket.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockmarket.model.MarketSnapshot;
+import com.stockmarket.model.MarketSnapshotEvent;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fans market snapshots out to browsers over Server-Sent Events.
+ *
+ * <p>Each refresh is turned into one "delta" frame (changed and removed
+ * tickers), serialized once and queued to every connected client. A new
+ * client first receives a full "snapshot" frame. Every client has a small
+ * bounded queue drained on a shared executor; a client whose queue fills up
+ * is too slow to keep up and is disconnected rather than allowed to buffer
+ * without limit. The browser's EventSource reconnects and resynchronises
+ * from a fresh snapshot.
+ */
+@Service
+public class PriceStreamService {
+
+    private final MarketDataService marketDataService;
+    private final ObjectMapper objectMapper;
+    private final Executor priceStreamExecutor;
+    private final SymbolRegistry symbolRegistry;
+
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+
+    @Value("${stock.stream.client-buffer:32}")
+    private int clientBuffer;
+
+    @Value("${stock.stream.timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    public PriceStreamService(MarketDataService marketDataService, ObjectMapper objectMapper,
+                              @Qualifier("priceStreamExecutor") Executor priceStreamExecutor,
+                              SymbolRegistry symbolRegistry) {
+        this.marketDataService = marketDataService;
+        this.objectMapper = objectMapper;
+        this.priceStreamExecutor = priceStreamExecutor;
+        this.symbolRegistry = symbolRegistry;
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Client client = new Client(emitter, clientBuffer);
+        emitter.onCompletion(() -> clients.remove(client));
+        emitter.onTimeout(() -> clients.remove(client));
+        emitter.onError(e -> clients.remove(client));
+        clients.add(client);
+
+        MarketSnapshot snapshot = marketDataService.getSnapshot();
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("asOf", snapshot.getFetchedAt());
+        payload.put("prices", snapshot.getPrices());
+        enqueue(client, frame("snapshot", payload));
+        return emitter;
+    }
+
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    @EventListener
+    public void onSnapshot(MarketSnapshotEvent event) {
+        if (clients.isEmpty()) {
+            return;
+        }
+        MarketSnapshot before = event.getPrevious();
+        MarketSnapshot after = event.getCurrent();
+
+        // Walk the id-indexed price arrays; ids are stable across snapshots
+        Map<String, Double> changed = new LinkedHashMap<>();
+        List<String> removed = new ArrayList<>();
+        int count = Math.max(before.getPriceCount(), after.getPriceCount());
+        for (int id = 0; id < count; id++) {
+            double oldPrice = before.getPrice(id);
+            double newPrice = after.getPrice(id);
+            if (Double.isNaN(newPrice)) {
+                if (!Double.isNaN(oldPrice)) {
+                    removed.add(symbolRegistry.symbol(id));
+                }
+            } else if (Double.compare(oldPrice, newPrice) != 0) {
+                changed.put(symbolRegistry.symbol(id), newPrice);
+            }
+        }
+        if (changed.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("asOf", event.getCurrent().getFetchedAt());
+        payload.put("changed", changed);
+        payload.put("removed", removed);
+        broadcast(frame("delta", payload));
+    }
+
+    /** Comment frame that keeps idle connections open and flushes out dead clients. */
+    @Scheduled(fixedDelayString = "${stock.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        if (!clients.isEmpty()) {
+            broadcast(SseEmitter.event().comment("heartbeat").build());
+        }
+    }
+
+    private void broadcast(Set<DataWithMediaType> frame) {
+        for (Client client : clients) {
+            enqueue(client, frame);
+        }
+    }
+
+    private void enqueue(Client client, Set<DataWithMediaType> frame) {
+        if (!client.queue.offer(frame)) {
+            System.err.println("Dropping slow SSE client with " + client.queue.size() + " frames pending");
+            disconnect(client);
+            return;
+        }
+        if (client.draining.compareAndSet(false, true)) {
+            priceStreamExecutor.execute(() -> drain(client));
+        }
+    }
+
+    private void drain(Client client) {
+        try {
+            Set<DataWithMediaType> frame;
+            while ((frame = client.queue.poll()) != null) {
+                client.emitter.send(frame);
+            }
+        } catch (Exception e) {
+            disconnect(client);
+            return;
+        } finally {
+            client.draining.set(false);
+        }
+        // A frame may have been queued after the last poll but before the flag was cleared
+        if (!client.queue.isEmpty() && client.draining.compareAndSet(false, true)) {
+            priceStreamExecutor.execute(() -> drain(client));
+        }
+    }
+
+    private void disconnect(Client client) {
+        if (clients.remove(client)) {
+            client.queue.clear();
+            try {
+                client.emitter.complete();
+            } catch (Exception ignored) {
+                // Connection already gone
+            }
+        }
+    }
+
+    private Set<DataWithMediaType> frame(String name, Object payload) {
+        try {
+            return SseEmitter.event().name(name).data(objectMapper.writeValueAsString(payload)).build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize " + name + " frame", e);
+        }
+    }
+
+    static final class Client {
+        final SseEmitter emitter;
+        final Queue<Set<DataWithMediaType>> queue;
+        final AtomicBoolean draining = new AtomicBoolean();
+
+        Client(SseEmitter emitter, int capacity) {
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.stockmarket.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockmarket.entity.Portfolio;
+import com.stockmarket.model.MarketSnapshot;
+import com.stockmarket.model.MarketSnapshotEvent;
+import com.stockmarket.repository.PortfolioRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-ticker price subscriptions for WebSocket clients.
+ *
+ * <p>Keeps an index from ticker to the sessions subscribed to it, so each
+ * market refresh only touches the subscribers of tickers that actually
+ * changed. Updates are delta encoded: a client receives just the fields that
+ * changed for its tickers, batched into one message per refresh.
+ *
+ * <p>Sessions are wrapped in a {@link ConcurrentWebSocketSessionDecorator}
+ * with a send time and buffer limit; a client that cannot keep up is closed.
+ */
+@Service
+public class PriceSubscriptionService {
+
+    private final MarketDataService marketDataService;
+    private final PortfolioRepository portfolioRepository;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final Map<String, Set<Subscriber>> subscribersByTicker = new ConcurrentHashMap<>();
+
+    @Value("${stock.ws.send-time-limit-ms:5000}")
+    private int sendTimeLimitMs;
+
+    @Value("${stock.ws.buffer-size-limit:262144}")
+    private int bufferSizeLimit;
+
+    public PriceSubscriptionService(MarketDataService marketDataService, PortfolioRepository portfolioRepository,
+                                    ObjectMapper objectMapper) {
+        this.marketDataService = marketDataService;
+        this.portfolioRepository = portfolioRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public void register(WebSocketSession session) {
+        WebSocketSession decorated = new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMs, bufferSizeLimit,
+            ConcurrentWebSocketSessionDecorator.OverflowStrategy.TERMINATE);
+        subscribers.put(session.getId(), new Subscriber(decorated));
+    }
+
+    public void unregister(WebSocketSession session) {
+        Subscriber subscriber = subscribers.remove(session.getId());
+        if (subscriber != null) {
+            for (String ticker : subscriber.tickers) {
+                removeFromIndex(ticker, subscriber);
+            }
+        }
+    }
+
+    /**
+     * Adds tickers to the session's subscription and sends their current
+     * quotes so the client has a baseline for later deltas.
+     */
+    public void subscribe(WebSocketSession session, Collection<String> tickers) {
+        Subscriber subscriber = subscribers.get(session.getId());
+        if (subscriber == null) {
+            return;
+        }
+        Map<String, Map<String, Object>> quotes = quotesByTicker(marketDataService.getSnapshot());
+        Map<String, Object> initial = new LinkedHashMap<>();
+        for (String ticker : tickers) {
+            if (subscriber.tickers.add(ticker)) {
+                subscribersByTicker.compute(ticker, (key, set) -> {
+                    Set<Subscriber> tickerSubscribers = set != null ? set : ConcurrentHashMap.newKeySet();
+                    tickerSubscribers.add(subscriber);
+                    return tickerSubscribers;
+                });
+            }
+            initial.put(ticker, quotes.getOrDefault(ticker, Map.of()));
+        }
+        send(subscriber, "snapshot", initial);
+    }
+
+    /** Subscribes the session to every ticker currently held in the portfolio. */
+    public void subscribePortfolio(WebSocketSession session) {
+        List<String> tickers = portfolioRepository.findAll().stream()
+            .map(Portfolio::getTickerId)
+            .toList();
+        subscribe(session, tickers);
+    }
+
+    public void unsubscribe(WebSocketSession session, Collection<String> tickers) {
+        Subscriber subscriber = subscribers.get(session.getId());
+        if (subscriber == null) {
+            return;
+        }
+        for (String ticker : tickers) {
+            if (subscriber.tickers.remove(ticker)) {
+                removeFromIndex(ticker, subscriber);
+            }
+        }
+    }
+
+    public int getSessionCount() {
+        return subscribers.size();
+    }
+
+    @EventListener
+    public void onSnapshot(MarketSnapshotEvent event) {
+        if (subscribersByTicker.isEmpty()) {
+            return;
+        }
+        Map<String, Map<String, Object>> before = quotesByTicker(event.getPrevious());
+        Map<String, Map<String, Object>> after = quotesByTicker(event.getCurrent());
+
+        Map<Subscriber, Map<String, Object>> outgoing = new HashMap<>();
+        after.forEach((ticker, fields) -> {
+            Set<Subscriber> tickerSubscribers = subscribersByTicker.get(ticker);
+            if (tickerSubscribers == null || tickerSubscribers.isEmpty()) {
+                return;
+            }
+            Map<String, Object> changed = changedFields(before.getOrDefault(ticker, Map.of()), fields);
+            if (changed.isEmpty()) {
+                return;
+            }
+            for (Subscriber subscriber : tickerSubscribers) {
+                outgoing.computeIfAbsent(subscriber, key -> new LinkedHashMap<>()).put(ticker, changed);
+            }
+        });
+
+        outgoing.forEach((subscriber, quotes) -> send(subscriber, "delta", quotes));
+    }
+
+    private Map<String, Object> changedFields(Map<String, Object> before, Map<String, Object> after) {
+        Map<String, Object> changed = new LinkedHashMap<>();
+        after.forEach((field, value) -> {
+            if (!Objects.equals(value, before.get(field))) {
+                changed.put(field, value);
+            }
+        });
+        return changed;
+    }
+
+    /** Ticker to scalar quote fields (price, change, volume, ...). */
+    private Map<String, Map<String, Object>> quotesByTicker(MarketSnapshot snapshot) {
+        Map<String, Map<String, Object>> quotes = new HashMap<>();
+        snapshot.getQuotes().forEach((ticker, quote) -> quotes.put(ticker, quote.toFields()));
+        return quotes;
+    }
+
+    private void send(Subscriber subscriber, String type, Map<String, Object> quotes) {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("type", type);
+        message.put("quotes", quotes);
+        try {
+            subscriber.session.sendMessage(new TextMessage(objectMapper.writeValueAsString(message)));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Closing price feed session " + subscriber.session.getId() + ": " + e.getMessage());
+            unregister(subscriber.session);
+            try {
+                subscriber.session.close();
+            } catch (IOException ignored) {
+                // Already closed
+            }
+        }
+    }
+
+    private void removeFromIndex(String ticker, Subscriber subscriber) {
+        subscribersByTicker.computeIfPresent(ticker, (key, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private static final class Subscriber {
+        final WebSocketSession session;
+        final Set<String> tickers = ConcurrentHashMap.newKeySet();
+
+        Subscriber(WebSocketSession session) {
+            this.session = session;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.stockmarket.service;
+
+import com.stockmarket.dto.TradeResponse;
+import com.stockmarket.entity.Portfolio;
+import com.stockmarket.entity.PriceTrigger;
+import com.stockmarket.model.MarketQuote;
+import com.stockmarket.model.MarketSnapshotEvent;
+import com.stockmarket.repository.PortfolioRepository;
+import com.stockmarket.repository.PriceTriggerRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Stop-loss and take-profit triggers on holdings, fired from the polled
+ * market prices.
+ *
+ * <p>Active triggers are indexed per ticker in two skip lists sorted by
+ * trigger price. A price update takes the stop-losses at or above it (a
+ * tail of one list) and the take-profits at or below it (a head of the
+ * other), so it only visits triggers it actually fires; removal from the
+ * index decides which of a racing fire and cancel wins. Fired triggers sell
+ * through {@link TradeService#sellFromPortfolio} on the trade executor, off
+ * the market data thread.
+ *
+ * <p>Triggers are stored in {@code price_triggers} and re-armed at startup.
+ */
+@Service
+public class PriceTriggerService {
+
+    public static final String STOP_LOSS = "STOP_LOSS";
+    public static final String TAKE_PROFIT = "TAKE_PROFIT";
+
+    private static final Comparator<Armed> BY_PRICE = Comparator.<Armed>comparingDouble(armed -> armed.price)
+        .thenComparingLong(armed -> armed.id);
+
+    private final PriceTriggerRepository triggerRepository;
+    private final PortfolioRepository portfolioRepository;
+    private final TradeService tradeService;
+    private final Executor tradeExecutor;
+    private final Map<String, TickerTriggers> triggersByTicker = new ConcurrentHashMap<>();
+
+    public PriceTriggerService(PriceTriggerRepository triggerRepository, PortfolioRepository portfolioRepository,
+                               TradeService tradeService, @Qualifier("tradeExecutor") Executor tradeExecutor) {
+        this.triggerRepository = triggerRepository;
+        this.portfolioRepository = portfolioRepository;
+        this.tradeService = tradeService;
+        this.tradeExecutor = tradeExecutor;
+    }
+
+    @PostConstruct
+    void load() {
+        List<PriceTrigger> active = triggerRepository.findByStatus("ACTIVE");
+        active.forEach(this::arm);
+        System.out.println("Armed " + active.size() + " price triggers");
+    }
+
+    /**
+     * Attaches a trigger to the ticker's holding. {@code quantity} null sells
+     * whatever is held when it fires.
+     *
+     * @throws IllegalArgumentException if the trigger is malformed or nothing is held
+     */
+    public PriceTrigger create(String tickerId, String triggerType, Double triggerPrice, Integer quantity) {
+        if (!STOP_LOSS.equals(triggerType) && !TAKE_PROFIT.equals(triggerType)) {
+            throw new IllegalArgumentException("Trigger type must be STOP_LOSS or TAKE_PROFIT");
+        }
+        if (triggerPrice == null || triggerPrice <= 0) {
+            throw new IllegalArgumentException("Trigger price must be greater than 0");
+        }
+        if (quantity != null && quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than 0");
+        }
+        if (portfolioRepository.findByTickerId(tickerId).isEmpty()) {
+            throw new IllegalArgumentException("Stock not found in portfolio");
+        }
+        PriceTrigger trigger = triggerRepository.save(new PriceTrigger(tickerId, triggerType, triggerPrice, quantity));
+        arm(trigger);
+        return trigger;
+    }
+
+    public List<PriceTrigger> getTriggers(String tickerId) {
+        return triggerRepository.findByTickerIdOrderByCreatedAtDesc(tickerId);
+    }
+
+    /** Cancels an active trigger; false if there is none with that id, or it already fired. */
+    public boolean cancel(String tickerId, long triggerId) {
+        Optional<PriceTrigger> found = triggerRepository.findById(triggerId)
+            .filter(trigger -> trigger.getTickerId().equals(tickerId) && "ACTIVE".equals(trigger.getStatus()));
+        if (found.isEmpty() || !disarm(found.get())) {
+            return false;
+        }
+        PriceTrigger trigger = found.get();
+        trigger.setStatus("CANCELLED");
+        triggerRepository.save(trigger);
+        return true;
+    }
+
+    @EventListener
+    public void onSnapshot(MarketSnapshotEvent event) {
+        if (triggersByTicker.isEmpty()) {
+            return;
+        }
+        for (MarketQuote quote : event.getCurrent().getQuotes().values()) {
+            if (quote.hasPrice()) {
+                onPrice(quote.getTickerId(), quote.getPrice());
+            }
+        }
+    }
+
+    /** Fires the ticker's triggers crossed by {@code price}; returns how many fired. */
+    int onPrice(String tickerId, double price) {
+        TickerTriggers triggers = triggersByTicker.get(tickerId);
+        if (triggers == null) {
+            return 0;
+        }
+        List<Armed> fired = new ArrayList<>();
+        // Stop-losses at or above the price, take-profits at or below it
+        take(triggers.stopLosses, triggers.stopLosses.tailSet(new Armed(Long.MIN_VALUE, price, null), true), fired);
+        take(triggers.takeProfits, triggers.takeProfits.headSet(new Armed(Long.MAX_VALUE, price, null), true), fired);
+        for (Armed armed : fired) {
+            try {
+                tradeExecutor.execute(() -> fire(armed, tickerId, price));
+            } catch (RejectedExecutionException e) {
+                // Trade executor saturated: leave the trigger armed for the next price update
+                triggers.side(armed.type).add(armed);
+            }
+        }
+        return fired.size();
+    }
+
+    private static void take(NavigableSet<Armed> index, NavigableSet<Armed> crossed, List<Armed> fired) {
+        for (Armed armed : crossed) {
+            if (index.remove(armed)) {
+                fired.add(armed);
+            }
+        }
+    }
+
+    private void fire(Armed armed, String tickerId, double price) {
+        try {
+            Optional<PriceTrigger> found = triggerRepository.findById(armed.id);
+            if (found.isEmpty() || !"ACTIVE".equals(found.get().getStatus())) {
+                return;
+            }
+            PriceTrigger trigger = found.get();
+            int held = portfolioRepository.findByTickerId(tickerId).map(Portfolio::getTotalQuantity).orElse(0);
+            int quantity = armed.quantity == null ? held : Math.min(armed.quantity, held);
+            TradeResponse response = quantity > 0
+                ? tradeService.sellFromPortfolio(tickerId, quantity, price)
+                : new TradeResponse("ERROR", "No shares left to sell");
+
+            trigger.setStatus("SUCCESS".equals(response.getStatus()) ? "FIRED" : "FAILED");
+            trigger.setMessage(response.getMessage());
+            trigger.setTradeId(response.getId());
+            trigger.setFiredPrice(price);
+            trigger.setFiredAt(LocalDateTime.now());
+            triggerRepository.save(trigger);
+            System.out.println(trigger.getTriggerType() + " trigger " + trigger.getId() + " on " + tickerId + " at "
+                + price + ": " + trigger.getStatus() + " (" + response.getMessage() + ")");
+        } catch (RuntimeException e) {
+            System.err.println("Price trigger " + armed.id + " on " + tickerId + " failed: " + e.getMessage());
+        }
+    }
+
+    private void arm(PriceTrigger trigger) {
+        triggersByTicker.computeIfAbsent(trigger.getTickerId(), key -> new TickerTriggers())
+            .side(trigger.getTriggerType()).add(Armed.of(trigger));
+    }
+
+    private boolean disarm(PriceTrigger trigger) {
+        TickerTriggers triggers = triggersByTicker.get(trigger.getTickerId());
+        return triggers != null && triggers.side(trigger.getTriggerType()).remove(Armed.of(trigger));
+    }
+
+    private static final class TickerTriggers {
+        final ConcurrentSkipListSet<Armed> stopLosses = new ConcurrentSkipListSet<>(BY_PRICE);
+        final ConcurrentSkipListSet<Armed> takeProfits = new ConcurrentSkipListSet<>(BY_PRICE);
+
+        ConcurrentSkipListSet<Armed> side(String type) {
+            return STOP_LOSS.equals(type) ? stopLosses : takeProfits;
+        }
+    }
+
+    /** What the index keeps of an active trigger; ordered by price, then id. */
+    private static final class Armed {
+        final long id;
+        final double price;
+        final String type;
+        final Integer quantity;
+
+        Armed(long id, double price, String type) {
+            this(id, price, type, null);
+        }
+
+        Armed(long id, double price, String type, Integer quantity) {
+            this.id = id;
+            this.price = price;
+            this.type = type;
+            this.quantity = quantity;
+        }
+
+        static Armed of(PriceTrigger trigger) {
+            return new Armed(trigger.getId(), trigger.getTriggerPrice(), trigger.getTriggerType(), trigger.getQuantity());
+        }
+    }
+}
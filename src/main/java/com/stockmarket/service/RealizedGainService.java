@@ -0,0 +1,165 @@
+package com.stockmarket.service;
+
+import com.stockmarket.entity.RealizedGain;
+import com.stockmarket.entity.Trade;
+import com.stockmarket.repository.RealizedGainRepository;
+import com.stockmarket.repository.TradeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Realized profit and loss, matched lot by lot.
+ *
+ * <p>Each ticker's open buy lots are kept in a {@link TaxLotLedger}, loaded
+ * from the trade log the first time the ticker trades. As trades commit,
+ * BUYs (and opening balances) open lots and each SELL is matched against them
+ * ({@code trade.lots.method}: FIFO, LIFO or AVERAGE) and its gain is written
+ * to {@code realized_gains} in the same transaction.
+ *
+ * <p>Ledgers are not thread safe: every caller, the trade pipeline's
+ * writers included, holds the trade locks of the tickers it passes in (see
+ * {@link TradeService}), so a ticker's ledger is used by one thread at a
+ * time. If the transaction rolls back, the touched ledgers are dropped and
+ * reloaded from the trade log on next use. Changing the lot method or
+ * deleting a trade needs {@link #rebuild} to restate a ticker's gains.
+ */
+@Service
+public class RealizedGainService {
+
+    private final RealizedGainRepository gainRepository;
+    private final TradeRepository tradeRepository;
+    private final TaxLotLedger.Method method;
+    private final Map<String, TaxLotLedger> ledgers = new ConcurrentHashMap<>();
+
+    public RealizedGainService(RealizedGainRepository gainRepository, TradeRepository tradeRepository,
+                               @Value("${trade.lots.method:FIFO}") String method) {
+        this.gainRepository = gainRepository;
+        this.tradeRepository = tradeRepository;
+        this.method = TaxLotLedger.Method.parse(method);
+    }
+
+    /** Applies just saved trades, in id order, and stores the gains of the SELLs among them. */
+    public void record(List<Trade> trades) {
+        List<RealizedGain> gains = new ArrayList<>();
+        Set<String> touched = new HashSet<>();
+        for (Trade trade : trades) {
+            if (trade.getId() == null) {
+                continue;
+            }
+            TaxLotLedger ledger = ledgers.get(trade.getTickerId());
+            if (ledger == null) {
+                // Loaded outside the map: a query inside computeIfAbsent would block other tickers in its bin
+                ledger = load(trade.getTickerId(), trade.getId());
+                ledgers.put(trade.getTickerId(), ledger);
+            }
+            touched.add(trade.getTickerId());
+            RealizedGain gain = apply(ledger, trade);
+            if (gain != null) {
+                gains.add(gain);
+            }
+        }
+        if (!gains.isEmpty()) {
+            gainRepository.saveAll(gains);
+        }
+        dropOnRollback(touched);
+    }
+
+    /** Recomputes the ticker's lots and every gain it realized from its trades. */
+    @Transactional
+    public void rebuild(String tickerId) {
+        ledgers.remove(tickerId);
+        gainRepository.deleteByTickerId(tickerId);
+        TaxLotLedger ledger = new TaxLotLedger(method);
+        List<RealizedGain> gains = new ArrayList<>();
+        for (Trade trade : tradeRepository.findReplayAfter(tickerId, 0L)) {
+            RealizedGain gain = apply(ledger, trade);
+            if (gain != null) {
+                gains.add(gain);
+            }
+        }
+        gainRepository.saveAll(gains);
+        ledgers.put(tickerId, ledger);
+        dropOnRollback(Set.of(tickerId));
+    }
+
+    /**
+     * Realized gain per month for the last {@code months} months, oldest
+     * first, keyed like "JAN 2025"; months without sells are 0.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Double> monthlyTotals(int months) {
+        YearMonth current = YearMonth.now();
+        YearMonth first = current.minusMonths(months - 1L);
+        Map<YearMonth, Double> totals = new HashMap<>();
+        for (Object[] row : gainRepository.sumGainByMonthSince(first.atDay(1).atStartOfDay())) {
+            YearMonth month = YearMonth.of(((Number) row[0]).intValue(), ((Number) row[1]).intValue());
+            totals.put(month, row[2] == null ? 0.0 : ((Number) row[2]).doubleValue());
+        }
+
+        Map<String, Double> trend = new LinkedHashMap<>();
+        for (YearMonth month = first; !month.isAfter(current); month = month.plusMonths(1)) {
+            String key = month.getMonth().toString().substring(0, 3) + " " + month.getYear();
+            trend.put(key, totals.getOrDefault(month, 0.0));
+        }
+        return trend;
+    }
+
+    private TaxLotLedger load(String tickerId, long beforeTradeId) {
+        TaxLotLedger ledger = new TaxLotLedger(method);
+        for (Trade trade : tradeRepository.findReplayBefore(tickerId, beforeTradeId)) {
+            apply(ledger, trade);
+        }
+        return ledger;
+    }
+
+    /** Folds one trade into the ledger; the gain it realized if it is a SELL. */
+    private RealizedGain apply(TaxLotLedger ledger, Trade trade) {
+        if ("BUY".equals(trade.getTradeType()) || TradeService.OPENING.equals(trade.getTradeType())) {
+            ledger.buy(trade.getQuantity(), trade.getPrice());
+            return null;
+        }
+        if (!"SELL".equals(trade.getTradeType())) {
+            return null;
+        }
+        TaxLotLedger.Match match = ledger.sell(trade.getQuantity());
+        if (match.quantity < trade.getQuantity()) {
+            // Holdings imported before the trade log have no lots to match
+            System.err.println("SELL trade " + trade.getId() + " of " + trade.getTickerId() + " matched only "
+                + match.quantity + " of " + trade.getQuantity() + " shares against buy lots");
+        }
+        if (match.quantity == 0) {
+            return null;
+        }
+        LocalDateTime realizedAt = trade.getTimestamp() != null ? trade.getTimestamp() : LocalDateTime.now();
+        return new RealizedGain(trade.getId(), trade.getTickerId(), match.quantity,
+            match.quantity * trade.getPrice(), match.cost, method.name(), realizedAt);
+    }
+
+    private void dropOnRollback(Set<String> tickerIds) {
+        if (tickerIds.isEmpty() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    tickerIds.forEach(ledgers::remove);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,102 @@
+package com.stockmarket.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns ticker symbols and exchange names into dense integer ids.
+ *
+ * <p>Ids are handed out from 0 in first-seen order and never reused, so an id
+ * stays valid for the life of the process and can index plain arrays (see
+ * {@link com.stockmarket.model.MarketSnapshot#getPrice(int)}). Each ticker is
+ * hashed once at the edge, when it arrives from upstream or the database;
+ * everything downstream works with the int.
+ *
+ * <p>Lookups are lock-free. Registering a new symbol takes a lock, which only
+ * happens the first time a ticker is seen.
+ */
+@Service
+public class SymbolRegistry {
+
+    public static final int UNKNOWN = -1;
+
+    private final Map<String, Integer> symbolIds = new ConcurrentHashMap<>();
+    private final Map<String, Integer> exchangeIds = new ConcurrentHashMap<>();
+
+    private volatile String[] symbols = new String[64];
+    private volatile int[] symbolExchanges = new int[64];
+    private volatile int symbolCount;
+
+    private volatile String[] exchanges = new String[4];
+    private volatile int exchangeCount;
+
+    /** Id for the ticker, registering it on first sight. The exchange is recorded the first time only. */
+    public int intern(String ticker, String exchange) {
+        Integer id = symbolIds.get(ticker);
+        return id != null ? id : register(ticker, exchange);
+    }
+
+    public int intern(String ticker) {
+        return intern(ticker, null);
+    }
+
+    /** Id for an already registered ticker, or {@link #UNKNOWN}. */
+    public int idOf(String ticker) {
+        Integer id = ticker != null ? symbolIds.get(ticker) : null;
+        return id != null ? id : UNKNOWN;
+    }
+
+    public String symbol(int id) {
+        return id >= 0 && id < symbolCount ? symbols[id] : null;
+    }
+
+    /** Exchange the ticker was first seen on, or null if it was registered without one. */
+    public String exchange(int id) {
+        if (id < 0 || id >= symbolCount) {
+            return null;
+        }
+        int exchangeId = symbolExchanges[id];
+        return exchangeId != UNKNOWN ? exchanges[exchangeId] : null;
+    }
+
+    /** Number of registered symbols; every id is below this. */
+    public int size() {
+        return symbolCount;
+    }
+
+    private synchronized int register(String ticker, String exchange) {
+        Integer existing = symbolIds.get(ticker);
+        if (existing != null) {
+            return existing;
+        }
+        int id = symbolCount;
+        if (id == symbols.length) {
+            symbols = Arrays.copyOf(symbols, id * 2);
+            symbolExchanges = Arrays.copyOf(symbolExchanges, id * 2);
+        }
+        symbols[id] = ticker;
+        symbolExchanges[id] = exchange != null ? internExchange(exchange) : UNKNOWN;
+        // Publish the slot before the id becomes visible to lock-free readers
+        symbolCount = id + 1;
+        symbolIds.put(ticker, id);
+        return id;
+    }
+
+    private int internExchange(String exchange) {
+        Integer id = exchangeIds.get(exchange);
+        if (id != null) {
+            return id;
+        }
+        int next = exchangeCount;
+        if (next == exchanges.length) {
+            exchanges = Arrays.copyOf(exchanges, next * 2);
+        }
+        exchanges[next] = exchange;
+        exchangeCount = next + 1;
+        exchangeIds.put(exchange, next);
+        return next;
+    }
+}
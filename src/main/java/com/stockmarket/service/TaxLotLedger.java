@@ -0,0 +1,114 @@
+package com.stockmarket.service;
+
+import java.util.Locale;
+
+/**
+ * Open buy lots of one ticker, matched against SELLs to work out realized
+ * gains.
+ *
+ * <p>Lots sit in a ring buffer of parallel arrays used as a deque: BUYs are
+ * added at the tail, and a SELL consumes lots from the head (FIFO) or the
+ * tail (LIFO), so matching costs one step per lot consumed. With AVERAGE
+ * every BUY is blended into a single pooled lot.
+ *
+ * <p>Not thread safe; callers hold the ticker's trade lock.
+ */
+final class TaxLotLedger {
+
+    enum Method {
+        FIFO, LIFO, AVERAGE;
+
+        static Method parse(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final Method method;
+    private int[] quantities = new int[4];
+    private double[] prices = new double[4];
+    private int head;
+    private int size;
+
+    TaxLotLedger(Method method) {
+        this.method = method;
+    }
+
+    Method getMethod() {
+        return method;
+    }
+
+    void buy(int quantity, double price) {
+        if (method == Method.AVERAGE && size > 0) {
+            int pooled = quantities[head] + quantity;
+            prices[head] = (quantities[head] * prices[head] + quantity * price) / pooled;
+            quantities[head] = pooled;
+            return;
+        }
+        if (size == quantities.length) {
+            grow();
+        }
+        int tail = (head + size) % quantities.length;
+        quantities[tail] = quantity;
+        prices[tail] = price;
+        size++;
+    }
+
+    /**
+     * Takes up to {@code quantity} shares out of the open lots. Returns what
+     * was matched and its cost; fewer shares than asked if the lots run out.
+     */
+    Match sell(int quantity) {
+        int matched = 0;
+        double cost = 0;
+        while (matched < quantity && size > 0) {
+            int slot = method == Method.LIFO ? (head + size - 1) % quantities.length : head;
+            int take = Math.min(quantity - matched, quantities[slot]);
+            matched += take;
+            cost += take * prices[slot];
+            quantities[slot] -= take;
+            if (quantities[slot] == 0) {
+                if (method != Method.LIFO) {
+                    head = (head + 1) % quantities.length;
+                }
+                size--;
+            }
+        }
+        return new Match(matched, cost);
+    }
+
+    int getQuantity() {
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            total += quantities[(head + i) % quantities.length];
+        }
+        return total;
+    }
+
+    int getLotCount() {
+        return size;
+    }
+
+    private void grow() {
+        int[] newQuantities = new int[quantities.length * 2];
+        double[] newPrices = new double[prices.length * 2];
+        for (int i = 0; i < size; i++) {
+            newQuantities[i] = quantities[(head + i) % quantities.length];
+            newPrices[i] = prices[(head + i) % prices.length];
+        }
+        quantities = newQuantities;
+        prices = newPrices;
+        head = 0;
+    }
+
+    /** Shares taken out of the lots by one SELL and what they cost. */
+    static final class Match {
+
+        final int quantity;
+        final double cost;
+
+        Match(int quantity, double cost) {
+            this.quantity = quantity;
+            this.cost = cost;
+        }
+    }
+}
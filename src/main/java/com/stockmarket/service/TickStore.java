@@ -0,0 +1,333 @@
+package com.stockmarket.service;
+
+import com.stockmarket.model.MarketQuote;
+import com.stockmarket.model.MarketSnapshotEvent;
+import com.stockmarket.model.Tick;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only history of polled prices, kept outside the database.
+ *
+ * <p>Every market refresh appends one fixed-width record per ticker whose
+ * price or volume changed: store symbol id, epoch millis, price, volume. Records
+ * go into memory-mapped segment files, one or more per UTC day
+ * ({@code ticks-2026-02-04.0.seg}, {@code .1.seg} when a day outgrows one
+ * segment). Each segment starts with a small header holding the record count,
+ * so a restart resumes appending where it left off.
+ *
+ * <p>Ticker symbols are numbered by the store's own dictionary file
+ * ({@code symbols.dict}, one ticker per line, line number = id), since
+ * {@link SymbolRegistry} ids are only stable within one process.
+ *
+ * <p>A single writer appends under the store's lock; range scans read the
+ * mapped segments without locking. Records in a segment are in time order, so
+ * a scan binary-searches to its start time and reads forward.
+ */
+@Service
+public class TickStore {
+
+    static final int RECORD_SIZE = 28;
+    private static final int HEADER_SIZE = 32;
+    private static final int MAGIC = 0x5449434B;
+    private static final int FORMAT_VERSION = 1;
+    private static final int COUNT_OFFSET = 16;
+
+    private static final String DICTIONARY_FILE = "symbols.dict";
+
+    private final SymbolRegistry symbolRegistry;
+    private final Path directory;
+    private final boolean enabled;
+    private final int segmentCapacity;
+
+    private final Map<String, Integer> storeIds = new ConcurrentHashMap<>();
+    private final Map<Path, Segment> sealedSegments = new ConcurrentHashMap<>();
+
+    // Writer state, guarded by this
+    private int[] storeIdByRegistryId = new int[0];
+    private volatile Segment active;
+
+    public TickStore(SymbolRegistry symbolRegistry,
+                     @Value("${stock.ticks.dir:data/ticks}") String directory,
+                     @Value("${stock.ticks.enabled:true}") boolean enabled,
+                     @Value("${stock.ticks.segment-capacity:1000000}") int segmentCapacity) {
+        this.symbolRegistry = symbolRegistry;
+        this.directory = Paths.get(directory);
+        this.enabled = enabled;
+        this.segmentCapacity = segmentCapacity;
+    }
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        Path dictionary = directory.resolve(DICTIONARY_FILE);
+        if (Files.exists(dictionary)) {
+            List<String> symbols = Files.readAllLines(dictionary, StandardCharsets.UTF_8);
+            for (int i = 0; i < symbols.size(); i++) {
+                storeIds.put(symbols.get(i), i);
+            }
+        }
+        System.out.println("Tick store opened at " + directory.toAbsolutePath() + " with " + storeIds.size() + " symbols");
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (active != null) {
+            active.buffer.force();
+            active = null;
+        }
+        sealedSegments.clear();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Records every quote that moved since the previous snapshot. */
+    @EventListener
+    public void onSnapshot(MarketSnapshotEvent event) {
+        if (!enabled || event.getCurrent().getFetchedAt() == null) {
+            return;
+        }
+        long timestamp = event.getCurrent().getFetchedAt().toEpochMilli();
+        Map<String, MarketQuote> before = event.getPrevious().getQuotes();
+        try {
+            synchronized (this) {
+                for (MarketQuote quote : event.getCurrent().getQuotes().values()) {
+                    MarketQuote old = before.get(quote.getTickerId());
+                    if (quote.hasPrice() && (old == null
+                            || Double.compare(old.getPrice(), quote.getPrice()) != 0 || old.getVolume() != quote.getVolume())) {
+                        append(quote.getTickerId(), timestamp, quote.getPrice(), quote.getVolume());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to append ticks: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Appends one tick. Timestamps earlier than the last record in the active
+     * segment are clamped to it so each segment stays in time order.
+     */
+    public synchronized void append(String tickerId, long epochMillis, double price, long volume) throws IOException {
+        if (!enabled) {
+            return;
+        }
+        int symbolId = storeIdFor(tickerId);
+        Segment segment = segmentFor(epochMillis);
+        int count = segment.count;
+        if (count > 0) {
+            epochMillis = Math.max(epochMillis, segment.timestampAt(count - 1));
+        }
+        int offset = HEADER_SIZE + count * RECORD_SIZE;
+        segment.buffer.putInt(offset, symbolId);
+        segment.buffer.putLong(offset + 4, epochMillis);
+        segment.buffer.putDouble(offset + 12, price);
+        segment.buffer.putLong(offset + 20, volume);
+        segment.buffer.putLong(COUNT_OFFSET, count + 1);
+        // Publishes the record to lock-free readers
+        segment.count = count + 1;
+    }
+
+    /** Ticks for one ticker with {@code from <= timestamp <= to}, oldest first, at most {@code limit}. */
+    public List<Tick> scan(String tickerId, Instant from, Instant to, int limit) throws IOException {
+        List<Tick> ticks = new ArrayList<>();
+        Integer symbolId = storeIds.get(tickerId);
+        if (!enabled || symbolId == null || from.isAfter(to)) {
+            return ticks;
+        }
+        long fromMillis = from.toEpochMilli();
+        long toMillis = to.toEpochMilli();
+        LocalDate lastDay = LocalDate.ofInstant(to, ZoneOffset.UTC);
+        for (LocalDate day = LocalDate.ofInstant(from, ZoneOffset.UTC); !day.isAfter(lastDay); day = day.plusDays(1)) {
+            for (int part = 0; ; part++) {
+                Segment segment = readableSegment(day, part);
+                if (segment == null) {
+                    break;
+                }
+                int count = segment.count;
+                for (int i = segment.firstAtOrAfter(fromMillis, count); i < count; i++) {
+                    int offset = HEADER_SIZE + i * RECORD_SIZE;
+                    long timestamp = segment.buffer.getLong(offset + 4);
+                    if (timestamp > toMillis) {
+                        break;
+                    }
+                    if (segment.buffer.getInt(offset) == symbolId) {
+                        ticks.add(new Tick(tickerId, timestamp, segment.buffer.getDouble(offset + 12),
+                            segment.buffer.getLong(offset + 20)));
+                        if (ticks.size() >= limit) {
+                            return ticks;
+                        }
+                    }
+                }
+            }
+        }
+        return ticks;
+    }
+
+    private int storeIdFor(String tickerId) throws IOException {
+        int registryId = symbolRegistry.intern(tickerId);
+        if (registryId >= storeIdByRegistryId.length) {
+            int oldLength = storeIdByRegistryId.length;
+            storeIdByRegistryId = Arrays.copyOf(storeIdByRegistryId, Math.max(64, registryId * 2));
+            Arrays.fill(storeIdByRegistryId, oldLength, storeIdByRegistryId.length, -1);
+        }
+        int storeId = storeIdByRegistryId[registryId];
+        if (storeId >= 0) {
+            return storeId;
+        }
+        Integer known = storeIds.get(tickerId);
+        if (known == null) {
+            // Dictionary entry is written before any record can refer to it
+            known = storeIds.size();
+            Files.writeString(directory.resolve(DICTIONARY_FILE), tickerId + "\n", StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            storeIds.put(tickerId, known);
+        }
+        storeIdByRegistryId[registryId] = known;
+        return known;
+    }
+
+    /** The segment the next record for this time goes into, rolling to a new day or part as needed. */
+    private Segment segmentFor(long epochMillis) throws IOException {
+        Segment current = active;
+        LocalDate day = LocalDate.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+        if (current != null && (day.isAfter(current.day) || current.isFull())) {
+            seal(current);
+            current = null;
+        }
+        if (current == null) {
+            if (active != null && day.isBefore(active.day)) {
+                day = active.day;
+            }
+            int part = 0;
+            while (Files.exists(segmentPath(day, part + 1))) {
+                part++;
+            }
+            current = Segment.map(segmentPath(day, part), day, segmentCapacity, FileChannel.MapMode.READ_WRITE);
+            while (current.isFull()) {
+                seal(current);
+                part++;
+                current = Segment.map(segmentPath(day, part), day, segmentCapacity, FileChannel.MapMode.READ_WRITE);
+            }
+            active = current;
+        }
+        return current;
+    }
+
+    private void seal(Segment segment) {
+        segment.buffer.force();
+        sealedSegments.put(segment.path, segment);
+    }
+
+    private Segment readableSegment(LocalDate day, int part) throws IOException {
+        Path path = segmentPath(day, part);
+        Segment current = active;
+        if (current != null && current.path.equals(path)) {
+            return current;
+        }
+        Segment sealed = sealedSegments.get(path);
+        if (sealed != null) {
+            return sealed;
+        }
+        if (!Files.exists(path)) {
+            return null;
+        }
+        Segment mapped = Segment.map(path, day, 0, FileChannel.MapMode.READ_ONLY);
+        // A segment that is neither active nor sealed here was written by an earlier run and is complete
+        Segment raced = sealedSegments.putIfAbsent(path, mapped);
+        return raced != null ? raced : mapped;
+    }
+
+    private Path segmentPath(LocalDate day, int part) {
+        return directory.resolve("ticks-" + day + "." + part + ".seg");
+    }
+
+    static final class Segment {
+        final Path path;
+        final LocalDate day;
+        final MappedByteBuffer buffer;
+        final int capacity;
+        volatile int count;
+
+        private Segment(Path path, LocalDate day, MappedByteBuffer buffer, int capacity, int count) {
+            this.path = path;
+            this.day = day;
+            this.buffer = buffer;
+            this.capacity = capacity;
+            this.count = count;
+        }
+
+        /**
+         * Maps an existing segment at its own size, or creates a new one sized
+         * for {@code capacity} records (new files need READ_WRITE).
+         */
+        static Segment map(Path path, LocalDate day, int capacity, FileChannel.MapMode mode) throws IOException {
+            boolean exists = Files.exists(path);
+            StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[] {StandardOpenOption.READ}
+                : new StandardOpenOption[] {StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE};
+            try (FileChannel channel = FileChannel.open(path, options)) {
+                long size = exists ? channel.size() : HEADER_SIZE + (long) capacity * RECORD_SIZE;
+                MappedByteBuffer buffer = channel.map(mode, 0, size);
+                if (!exists) {
+                    buffer.putInt(0, MAGIC);
+                    buffer.putInt(4, FORMAT_VERSION);
+                    buffer.putInt(8, RECORD_SIZE);
+                    buffer.putLong(COUNT_OFFSET, 0);
+                } else if (buffer.getInt(0) != MAGIC || buffer.getInt(8) != RECORD_SIZE) {
+                    throw new IOException("Not a tick segment: " + path);
+                }
+                int fileCapacity = (int) ((size - HEADER_SIZE) / RECORD_SIZE);
+                return new Segment(path, day, buffer, fileCapacity, (int) buffer.getLong(COUNT_OFFSET));
+            }
+        }
+
+        boolean isFull() {
+            return count >= capacity;
+        }
+
+        long timestampAt(int index) {
+            return buffer.getLong(HEADER_SIZE + index * RECORD_SIZE + 4);
+        }
+
+        /** Index of the first record at or after the given time, or {@code count} if there is none. */
+        int firstAtOrAfter(long epochMillis, int count) {
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (timestampAt(mid) < epochMillis) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.stockmarket.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Writes the trade log as newline-delimited JSON, one trade per line in id
+ * order, for audits.
+ *
+ * <p>Rows are read through a JDBC cursor with {@code trade.export.fetch-size}
+ * rows per round trip (MySQL needs {@code useCursorFetch=true} on the URL
+ * for this) and written field by field as they arrive, without entities, so
+ * memory stays flat however many trades there are. Passing the id of the
+ * last line received resumes an interrupted export.
+ */
+@Service
+public class TradeExportService {
+
+    private static final String QUERY = "SELECT * FROM trades WHERE id > ? ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public TradeExportService(DataSource dataSource, ObjectMapper objectMapper,
+                              @Value("${trade.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes every trade with an id above {@code afterId} to {@code out} and
+     * returns how many were written. The stream is flushed, not closed.
+     */
+    public long export(long afterId, OutputStream out) throws IOException {
+        long[] written = {0};
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Lines are ended by hand below; no separator between root values
+            json.setRootValueSeparator(null);
+            jdbcTemplate.query(QUERY, rs -> {
+                try {
+                    writeTrade(json, rs);
+                    written[0]++;
+                } catch (IOException e) {
+                    // Usually the client went away; stops the query as well
+                    throw new UncheckedIOException(e);
+                }
+            }, afterId);
+            json.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return written[0];
+    }
+
+    private static void writeTrade(JsonGenerator json, ResultSet rs) throws IOException, SQLException {
+        json.writeStartObject();
+        json.writeNumberField("id", rs.getLong("id"));
+        json.writeStringField("tickerId", rs.getString("ticker_id"));
+        json.writeStringField("companyName", rs.getString("company_name"));
+        json.writeStringField("tradeType", rs.getString("trade_type"));
+        json.writeNumberField("quantity", rs.getInt("quantity"));
+        json.writeNumberField("price", rs.getDouble("price"));
+        json.writeNumberField("totalAmount", rs.getDouble("total_amount"));
+        json.writeStringField("date", rs.getString("trade_date"));
+        json.writeStringField("time", rs.getString("trade_time"));
+        json.writeStringField("timestamp", isoOrNull(rs.getTimestamp("timestamp")));
+        json.writeStringField("createdAt", isoOrNull(rs.getTimestamp("created_at")));
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private static String isoOrNull(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime().toString() : null;
+    }
+}
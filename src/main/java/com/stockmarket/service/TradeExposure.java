@@ -0,0 +1,102 @@
+package com.stockmarket.service;
+
+import com.stockmarket.entity.Portfolio;
+import com.stockmarket.entity.Trade;
+import com.stockmarket.repository.PortfolioRepository;
+import com.stockmarket.repository.TradeRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * In-memory exposure read by the pre-trade risk checks: shares held per
+ * ticker and the value traded today.
+ *
+ * <p>Loaded once from the database at startup and then moved by committed
+ * trades only (see {@link PreTradeRiskService#onExecuted}); reads and
+ * updates are lock free. The turnover counter starts over on the first use
+ * after midnight.
+ */
+@Component
+public class TradeExposure {
+
+    private final PortfolioRepository portfolioRepository;
+    private final TradeRepository tradeRepository;
+    private final Map<String, AtomicLong> positions = new ConcurrentHashMap<>();
+    private final AtomicReference<Turnover> turnover = new AtomicReference<>(new Turnover(LocalDate.now()));
+
+    public TradeExposure(PortfolioRepository portfolioRepository, TradeRepository tradeRepository) {
+        this.portfolioRepository = portfolioRepository;
+        this.tradeRepository = tradeRepository;
+    }
+
+    @PostConstruct
+    void load() {
+        for (Portfolio portfolio : portfolioRepository.findAll()) {
+            positionOf(portfolio.getTickerId()).set(portfolio.getTotalQuantity());
+        }
+        Turnover today = currentTurnover();
+        Double traded = tradeRepository.getTotalAmountSince(today.day.atStartOfDay());
+        today.amount.add(traded != null ? traded : 0);
+        System.out.println("Trade exposure loaded for " + positions.size() + " tickers");
+    }
+
+    /** Shares currently held in the ticker. */
+    public long position(String tickerId) {
+        AtomicLong position = positions.get(tickerId);
+        return position != null ? position.get() : 0;
+    }
+
+    /** Value of all trades executed since midnight. */
+    public double turnoverToday() {
+        return currentTurnover().amount.sum();
+    }
+
+    void apply(List<Trade> trades) {
+        Turnover today = currentTurnover();
+        for (Trade trade : trades) {
+            long quantity = trade.getQuantity();
+            if ("BUY".equals(trade.getTradeType())) {
+                positionOf(trade.getTickerId()).addAndGet(quantity);
+            } else if ("SELL".equals(trade.getTradeType())) {
+                positionOf(trade.getTickerId()).addAndGet(-quantity);
+            }
+            today.amount.add(trade.getQuantity() * trade.getPrice());
+        }
+    }
+
+    /** Overrides the ticker's position, after its holding was rebuilt from the trade log. */
+    void resetPosition(String tickerId, long quantity) {
+        positionOf(tickerId).set(quantity);
+    }
+
+    private AtomicLong positionOf(String tickerId) {
+        return positions.computeIfAbsent(tickerId, key -> new AtomicLong());
+    }
+
+    private Turnover currentTurnover() {
+        Turnover current = turnover.get();
+        LocalDate today = LocalDate.now();
+        while (!current.day.equals(today)) {
+            turnover.compareAndSet(current, new Turnover(today));
+            current = turnover.get();
+        }
+        return current;
+    }
+
+    private static final class Turnover {
+        final LocalDate day;
+        final DoubleAdder amount = new DoubleAdder();
+
+        Turnover(LocalDate day) {
+            this.day = day;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.stockmarket.service;
+
+import com.stockmarket.dto.TradeRequest;
+import com.stockmarket.dto.TradeResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Sequences trades through one writer thread per ticker partition and
+ * commits them in groups.
+ *
+ * <p>Each partition has a bounded queue. Its writer takes whatever is queued
+ * (waiting up to the linger time for more, up to the batch size) and hands
+ * the whole batch to the batch applier, which commits it in one transaction.
+ * A ticker always maps to the same partition, so its trades are applied in
+ * arrival order by a single thread and never contend with each other.
+ * Callers block until their batch has committed.
+ */
+final class TradePipeline {
+
+    private final Partition[] partitions;
+    private final Function<List<TradeRequest>, List<TradeResponse>> batchApplier;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final long enqueueTimeoutMs;
+    private volatile boolean running = true;
+
+    TradePipeline(int partitionCount, int bufferSize, int batchSize, long lingerMs, long enqueueTimeoutMs,
+                  Function<List<TradeRequest>, List<TradeResponse>> batchApplier) {
+        this.batchApplier = batchApplier;
+        this.batchSize = batchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        this.enqueueTimeoutMs = enqueueTimeoutMs;
+        this.partitions = new Partition[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new Partition(bufferSize);
+            Thread writer = new Thread(runWriter(partitions[i]), "trade-writer-" + i);
+            writer.setDaemon(true);
+            partitions[i].writer = writer;
+            writer.start();
+        }
+    }
+
+    /** Queues the trade on its ticker's partition and waits for the batch it lands in to commit. */
+    TradeResponse submit(TradeRequest request) throws InterruptedException {
+        Partition partition = partitions[Math.floorMod(request.getTickerId().hashCode(), partitions.length)];
+        Pending pending = new Pending(request);
+        if (!running || !partition.queue.offer(pending, enqueueTimeoutMs, TimeUnit.MILLISECONDS)) {
+            return new TradeResponse("ERROR", "Trade queue is full, please retry");
+        }
+        try {
+            return pending.result.get();
+        } catch (ExecutionException e) {
+            return new TradeResponse("ERROR", "Failed to execute trade: " + e.getCause().getMessage());
+        }
+    }
+
+    void shutdown() {
+        running = false;
+        for (Partition partition : partitions) {
+            partition.writer.interrupt();
+        }
+        for (Partition partition : partitions) {
+            Pending pending;
+            while ((pending = partition.queue.poll()) != null) {
+                pending.result.complete(new TradeResponse("ERROR", "Trade service is shutting down"));
+            }
+        }
+    }
+
+    private Runnable runWriter(Partition partition) {
+        return () -> {
+            List<Pending> batch = new ArrayList<>(batchSize);
+            while (running) {
+                try {
+                    Pending first = partition.queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    // Group commit: give concurrent callers a moment to join this batch
+                    long deadline = System.nanoTime() + lingerNanos;
+                    while (batch.size() < batchSize) {
+                        partition.queue.drainTo(batch, batchSize - batch.size());
+                        long remaining = deadline - System.nanoTime();
+                        if (batch.size() >= batchSize || remaining <= 0) {
+                            break;
+                        }
+                        Pending next = partition.queue.poll(remaining, TimeUnit.NANOSECONDS);
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                    }
+                    commit(batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } finally {
+                    // No-op for trades the commit already answered; covers an interrupt mid-batch
+                    for (Pending pending : batch) {
+                        pending.result.complete(new TradeResponse("ERROR", "Trade service is shutting down"));
+                    }
+                    batch.clear();
+                }
+            }
+        };
+    }
+
+    private void commit(List<Pending> batch) {
+        List<TradeRequest> requests = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            requests.add(pending.request);
+        }
+        try {
+            List<TradeResponse> responses = batchApplier.apply(requests);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(responses.get(i));
+            }
+        } catch (RuntimeException e) {
+            for (Pending pending : batch) {
+                pending.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static final class Partition {
+        final BlockingQueue<Pending> queue;
+        Thread writer;
+
+        Partition(int bufferSize) {
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+    }
+
+    private static final class Pending {
+        final TradeRequest request;
+        final CompletableFuture<TradeResponse> result = new CompletableFuture<>();
+
+        Pending(TradeRequest request) {
+            this.request = request;
+        }
+    }
+}
@@ -4,119 +4,457 @@ import com.stockmarket.dto.TradeRequest;
 import com.stockmarket.dto.TradeResponse;
 import com.stockmarket.entity.Portfolio;
 import com.stockmarket.entity.Trade;
+import com.stockmarket.model.TradePage;
 import com.stockmarket.repository.PortfolioRepository;
 import com.stockmarket.repository.TradeRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 @Service
 public class TradeService {
     
+    private static final int LOCK_STRIPES = 64;
+    
+    /**
+     * Trade type of an opening balance: shares held before the trade log
+     * began. Replayed before the ticker's other trades and counted like a
+     * BUY for holdings and tax lots, but never as turnover.
+     */
+    public static final String OPENING = "OPENING";
+    
     @Autowired
     private TradeRepository tradeRepository;
     
     @Autowired
     private PortfolioRepository portfolioRepository;
     
-    @Transactional
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private PortfolioProjector portfolioProjector;
+    
+    @Autowired
+    private RealizedGainService realizedGainService;
+    
+    @Autowired
+    private PreTradeRiskService preTradeRiskService;
+    
+    @Value("${trade.retry.max-attempts:3}")
+    private int maxAttempts = 3;
+    
+    @Value("${trade.pipeline.enabled:false}")
+    private boolean pipelineEnabled;
+    
+    @Value("${trade.pipeline.partitions:4}")
+    private int pipelinePartitions;
+    
+    @Value("${trade.pipeline.buffer-size:4096}")
+    private int pipelineBufferSize;
+    
+    @Value("${trade.pipeline.batch-size:256}")
+    private int pipelineBatchSize;
+    
+    @Value("${trade.pipeline.linger-ms:2}")
+    private long pipelineLingerMs;
+    
+    @Value("${trade.pipeline.enqueue-timeout-ms:1000}")
+    private long pipelineEnqueueTimeoutMs;
+    
+    @Value("${trade.batch.chunk-size:1000}")
+    private int batchChunkSize = 1000;
+    
+    @Value("${trade.history.page-size:100}")
+    private int historyPageSize = 100;
+    
+    @Value("${trade.history.max-page-size:1000}")
+    private int historyMaxPageSize = 1000;
+    
+    private TradePipeline pipeline;
+    
+    private final Lock[] tickerLocks = new Lock[LOCK_STRIPES];
+    
+    {
+        for (int i = 0; i < tickerLocks.length; i++) {
+            tickerLocks[i] = new ReentrantLock();
+        }
+    }
+    
+    @PostConstruct
+    void startPipeline() {
+        if (pipelineEnabled) {
+            pipeline = new TradePipeline(pipelinePartitions, pipelineBufferSize, pipelineBatchSize,
+                pipelineLingerMs, pipelineEnqueueTimeoutMs, this::executeLockedBatch);
+            System.out.println("Trade pipeline started with " + pipelinePartitions + " partitions");
+        }
+    }
+    
+    @PreDestroy
+    void stopPipeline() {
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
+    }
+    
+    /**
+     * Records the trade and applies it to the portfolio in one transaction.
+     *
+     * <p>The order first passes the {@link PreTradeRiskService} checks, which
+     * read only in-memory exposure.
+     *
+     * <p>With {@code trade.pipeline.enabled} the trade is instead queued to
+     * the {@link TradePipeline} and committed together with other trades of
+     * its partition; the call still returns only after the commit.
+     *
+     * <p>Trades on the same ticker are serialized by a striped in-JVM lock, so
+     * they queue here rather than collide in the database. The portfolio row
+     * is also versioned; if another writer (another instance, an import)
+     * changed it in between, the transaction rolls back and is retried a
+     * bounded number of times.
+     */
     public TradeResponse executeTrade(TradeRequest request) {
         try {
-            if (request.getTickerId() == null || request.getTickerId().isEmpty()) {
-                return new TradeResponse("ERROR", "Ticker ID is required");
+            TradeResponse invalid = validate(request);
+            if (invalid == null) {
+                invalid = riskCheck(request);
             }
-            
-            if (request.getTradeType() == null || 
-                (!request.getTradeType().equals("BUY") && !request.getTradeType().equals("SELL"))) {
-                return new TradeResponse("ERROR", "Trade type must be BUY or SELL");
+            if (invalid != null) {
+                return invalid;
             }
             
-            if (request.getQuantity() == null || request.getQuantity() <= 0) {
-                return new TradeResponse("ERROR", "Quantity must be greater than 0");
+            if (pipeline != null) {
+                return pipeline.submit(request);
             }
+            return executeDirect(request);
             
-            if (request.getPrice() == null || request.getPrice() <= 0) {
-                return new TradeResponse("ERROR", "Price must be greater than 0");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new TradeResponse("ERROR", "Failed to execute trade: interrupted");
+        } catch (Exception e) {
+            return new TradeResponse("ERROR", "Failed to execute trade: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Executes many trades at once, for example a batch submitted by a client.
+     *
+     * <p>Every item is validated and risk checked on its own; valid ones are applied in order,
+     * in chunks of {@code trade.batch.chunk-size}, each chunk in one
+     * transaction through {@link #executeBatch}: each ticker's portfolio is
+     * netted in memory and written once, and the trades go out as JDBC batch
+     * inserts. The result has one response per request, in request order.
+     */
+    public List<TradeResponse> executeTrades(List<TradeRequest> requests) {
+        return executeTrades(requests, true);
+    }
+    
+    /**
+     * Records trades that were already executed elsewhere (order book fills,
+     * broker files) like {@link #executeTrades}, but without the pre-trade
+     * risk checks: refusing them would only leave the books out of step.
+     */
+    public List<TradeResponse> recordExecutedTrades(List<TradeRequest> requests) {
+        return executeTrades(requests, false);
+    }
+    
+    private List<TradeResponse> executeTrades(List<TradeRequest> requests, boolean checkRisk) {
+        TradeResponse[] responses = new TradeResponse[requests.size()];
+        List<TradeRequest> chunk = new ArrayList<>(Math.min(batchChunkSize, requests.size()));
+        List<Integer> chunkPositions = new ArrayList<>(Math.min(batchChunkSize, requests.size()));
+        
+        for (int i = 0; i < requests.size(); i++) {
+            TradeRequest request = requests.get(i);
+            TradeResponse invalid = request == null ? new TradeResponse("ERROR", "Trade is required") : validate(request);
+            if (invalid == null && checkRisk) {
+                invalid = riskCheck(request);
             }
-            
-            Trade trade = new Trade();
-            trade.setTickerId(request.getTickerId());
-            trade.setCompanyName(request.getCompanyName());
-            trade.setTradeType(request.getTradeType());
-            trade.setQuantity(request.getQuantity());
-            trade.setPrice(request.getPrice());
-            trade.setTotalAmount(request.getTotalAmount());
-            trade.setDate(request.getDate());
-            trade.setTime(request.getTime());
-            trade.setTimestamp(LocalDateTime.now());
-            
-            Trade savedTrade = tradeRepository.save(trade);
+            if (invalid != null) {
+                responses[i] = invalid;
+                continue;
+            }
+            chunk.add(request);
+            chunkPositions.add(i);
+            if (chunk.size() >= batchChunkSize) {
+                executeChunk(chunk, chunkPositions, responses);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            executeChunk(chunk, chunkPositions, responses);
+        }
+        return Arrays.asList(responses);
+    }
+    
+    private void executeChunk(List<TradeRequest> chunk, List<Integer> positions, TradeResponse[] responses) {
+        try {
+            List<TradeResponse> results = withTickerLocks(chunk, () -> {
+                try {
+                    return executeBatch(chunk);
+                } catch (RuntimeException e) {
+                    System.err.println("Trade batch chunk of " + chunk.size() + " failed: " + e.getMessage());
+                    List<TradeResponse> failed = new ArrayList<>(chunk.size());
+                    for (int k = 0; k < chunk.size(); k++) {
+                        failed.add(new TradeResponse("ERROR", "Failed to execute trade: " + e.getMessage()));
+                    }
+                    return failed;
+                }
+            });
+            for (int k = 0; k < results.size(); k++) {
+                responses[positions.get(k)] = results.get(k);
+            }
+        } finally {
+            chunk.clear();
+            positions.clear();
+        }
+    }
+    
+    /**
+     * {@link #executeBatch} under the locks of every ticker in the batch, for
+     * the pipeline writers: trades recorded outside the pipeline (batches,
+     * order fills, imports) on the same tickers wait for it, and vice versa.
+     */
+    private List<TradeResponse> executeLockedBatch(List<TradeRequest> requests) {
+        return withTickerLocks(requests, () -> executeBatch(requests));
+    }
+    
+    /** Runs the action holding every stripe the requests touch, taken in index order so two callers cannot deadlock. */
+    private <T> T withTickerLocks(List<TradeRequest> requests, Supplier<T> action) {
+        boolean[] stripes = new boolean[tickerLocks.length];
+        for (TradeRequest request : requests) {
+            stripes[stripeOf(request.getTickerId())] = true;
+        }
+        int locked = 0;
+        try {
+            for (; locked < stripes.length; locked++) {
+                if (stripes[locked]) {
+                    tickerLocks[locked].lock();
+                }
+            }
+            return action.get();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                if (stripes[i]) {
+                    tickerLocks[i].unlock();
+                }
+            }
+        }
+    }
+    
+    /** The error response for a malformed request, or null if it can be executed. */
+    private TradeResponse validate(TradeRequest request) {
+        if (request.getTickerId() == null || request.getTickerId().isEmpty()) {
+            return new TradeResponse("ERROR", "Ticker ID is required");
+        }
+        
+        if (request.getTradeType() == null || 
+            (!request.getTradeType().equals("BUY") && !request.getTradeType().equals("SELL"))) {
+            return new TradeResponse("ERROR", "Trade type must be BUY or SELL");
+        }
+        
+        if (request.getQuantity() == null || request.getQuantity() <= 0) {
+            return new TradeResponse("ERROR", "Quantity must be greater than 0");
+        }
+        
+        if (request.getPrice() == null || request.getPrice() <= 0) {
+            return new TradeResponse("ERROR", "Price must be greater than 0");
+        }
+        return null;
+    }
+    
+    /** The error response if a pre-trade risk check refuses the request, or null. */
+    private TradeResponse riskCheck(TradeRequest request) {
+        return preTradeRiskService.check(request)
+            .map(reason -> new TradeResponse("ERROR", "Rejected by risk check: " + reason))
+            .orElse(null);
+    }
+    
+    /** One trade in its own transaction, under the ticker's lock, retried on version conflicts. */
+    private TradeResponse executeDirect(TradeRequest request) throws InterruptedException {
+        Lock lock = lockFor(request.getTickerId());
+        lock.lock();
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    return transactionTemplate.execute(status -> applyTrade(request, status));
+                } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+                    if (attempt >= maxAttempts) {
+                        System.err.println("Giving up on " + request.getTickerId() + " trade after " + attempt
+                            + " conflicting attempts: " + e.getMessage());
+                        return new TradeResponse("ERROR", "Trade conflicted with concurrent updates, please retry");
+                    }
+                    Thread.sleep(ThreadLocalRandom.current().nextLong(5, 20) * attempt);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private TradeResponse applyTrade(TradeRequest request, TransactionStatus status) {
+        Trade savedTrade = tradeRepository.save(newTrade(request));
+        
+        if ("BUY".equals(request.getTradeType())) {
+            updatePortfolioForBuy(request);
+        } else if ("SELL".equals(request.getTradeType())) {
+            boolean success = updatePortfolioForSell(request);
+            if (!success) {
+                // Don't keep a SELL trade that never came out of the portfolio
+                status.setRollbackOnly();
+                return new TradeResponse("ERROR", "Insufficient shares to sell");
+            }
+        }
+        // Surface version conflicts here, while the transaction can still be retried
+        portfolioRepository.flush();
+        realizedGainService.record(List.of(savedTrade));
+        preTradeRiskService.onExecuted(List.of(savedTrade));
+        
+        return toResponse(savedTrade, request);
+    }
+    
+    /**
+     * Applies already validated trades in a single transaction (group commit
+     * for the trade pipeline). Each ticker's portfolio is read once, updated
+     * in memory trade by trade in order, and written back once. If the batch
+     * cannot commit, for example because another writer changed a portfolio
+     * row, every trade falls back to its own transaction.
+     */
+    List<TradeResponse> executeBatch(List<TradeRequest> requests) {
+        try {
+            return transactionTemplate.execute(status -> applyBatch(requests));
+        } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+            System.err.println("Trade batch of " + requests.size() + " conflicted, applying one by one: " + e.getMessage());
+            List<TradeResponse> responses = new ArrayList<>(requests.size());
+            for (TradeRequest request : requests) {
+                try {
+                    responses.add(executeDirect(request));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    responses.add(new TradeResponse("ERROR", "Failed to execute trade: interrupted"));
+                }
+            }
+            return responses;
+        }
+    }
+    
+    private List<TradeResponse> applyBatch(List<TradeRequest> requests) {
+        Map<String, Portfolio> portfolios = new HashMap<>();
+        TradeResponse[] responses = new TradeResponse[requests.size()];
+        List<Trade> trades = new ArrayList<>(requests.size());
+        List<Integer> tradePositions = new ArrayList<>(requests.size());
+        
+        // Load every portfolio before changing any: a query after a change would auto-flush it early
+        for (TradeRequest request : requests) {
+            if (!portfolios.containsKey(request.getTickerId())) {
+                portfolios.put(request.getTickerId(), portfolioRepository.findByTickerId(request.getTickerId()).orElse(null));
+            }
+        }
+        
+        for (int i = 0; i < requests.size(); i++) {
+            TradeRequest request = requests.get(i);
+            String tickerId = request.getTickerId();
+            Portfolio portfolio = portfolios.get(tickerId);
             
             if ("BUY".equals(request.getTradeType())) {
-                updatePortfolioForBuy(request);
-            } else if ("SELL".equals(request.getTradeType())) {
-                boolean success = updatePortfolioForSell(request);
-                if (!success) {
-                    return new TradeResponse("ERROR", "Insufficient shares to sell");
+                portfolios.put(tickerId, applyBuy(portfolio, request));
+            } else if (portfolio == null || !applySell(portfolio, request)) {
+                responses[i] = new TradeResponse("ERROR", "Insufficient shares to sell");
+                continue;
+            }
+            trades.add(newTrade(request));
+            tradePositions.add(i);
+        }
+        
+        List<Trade> savedTrades = tradeRepository.saveAll(trades);
+        for (Portfolio portfolio : portfolios.values()) {
+            if (portfolio == null) {
+                continue;
+            }
+            if (portfolio.getTotalQuantity() == 0) {
+                if (portfolio.getId() != null) {
+                    portfolioRepository.delete(portfolio);
                 }
+            } else {
+                portfolioRepository.save(portfolio);
             }
-            
-            TradeResponse response = new TradeResponse();
-            response.setId(savedTrade.getId());
-            response.setTickerId(savedTrade.getTickerId());
-            response.setCompanyName(savedTrade.getCompanyName());
-            response.setTradeType(savedTrade.getTradeType());
-            response.setQuantity(savedTrade.getQuantity());
-            response.setPrice(savedTrade.getPrice());
-            response.setTotalAmount(savedTrade.getTotalAmount());
-            response.setDate(savedTrade.getDate());
-            response.setTime(savedTrade.getTime());
-            response.setTimestamp(savedTrade.getTimestamp());
-            response.setStatus("SUCCESS");
-            response.setMessage(request.getTradeType() + " order executed successfully");
-            
-            return response;
-            
-        } catch (Exception e) {
-            return new TradeResponse("ERROR", "Failed to execute trade: " + e.getMessage());
         }
+        portfolioRepository.flush();
+        realizedGainService.record(savedTrades);
+        preTradeRiskService.onExecuted(savedTrades);
+        
+        for (int k = 0; k < savedTrades.size(); k++) {
+            int position = tradePositions.get(k);
+            responses[position] = toResponse(savedTrades.get(k), requests.get(position));
+        }
+        return Arrays.asList(responses);
+    }
+    
+    private Trade newTrade(TradeRequest request) {
+        Trade trade = new Trade();
+        trade.setTickerId(request.getTickerId());
+        trade.setCompanyName(request.getCompanyName());
+        trade.setTradeType(request.getTradeType());
+        trade.setQuantity(request.getQuantity());
+        trade.setPrice(request.getPrice());
+        trade.setTotalAmount(request.getTotalAmount());
+        trade.setDate(request.getDate());
+        trade.setTime(request.getTime());
+        // Stored precision, so a history cursor taken from this trade matches the row
+        trade.setTimestamp(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+        return trade;
+    }
+    
+    private TradeResponse toResponse(Trade savedTrade, TradeRequest request) {
+        TradeResponse response = new TradeResponse();
+        response.setId(savedTrade.getId());
+        response.setTickerId(savedTrade.getTickerId());
+        response.setCompanyName(savedTrade.getCompanyName());
+        response.setTradeType(savedTrade.getTradeType());
+        response.setQuantity(savedTrade.getQuantity());
+        response.setPrice(savedTrade.getPrice());
+        response.setTotalAmount(savedTrade.getTotalAmount());
+        response.setDate(savedTrade.getDate());
+        response.setTime(savedTrade.getTime());
+        response.setTimestamp(savedTrade.getTimestamp());
+        response.setStatus("SUCCESS");
+        response.setMessage(request.getTradeType() + " order executed successfully");
+        return response;
+    }
+    
+    private Lock lockFor(String tickerId) {
+        return tickerLocks[stripeOf(tickerId)];
+    }
+    
+    private int stripeOf(String tickerId) {
+        return Math.floorMod(tickerId.hashCode(), tickerLocks.length);
     }
     
     private void updatePortfolioForBuy(TradeRequest request) {
         Optional<Portfolio> existingPortfolio = portfolioRepository.findByTickerId(request.getTickerId());
-        
-        if (existingPortfolio.isPresent()) {
-            Portfolio portfolio = existingPortfolio.get();
-            double totalCost = (portfolio.getTotalQuantity() * portfolio.getAveragePrice()) + 
-                              (request.getQuantity() * request.getPrice());
-            int newTotalQuantity = portfolio.getTotalQuantity() + request.getQuantity();
-            double newAveragePrice = totalCost / newTotalQuantity;
-            
-            portfolio.setTotalQuantity(newTotalQuantity);
-            portfolio.setAveragePrice(newAveragePrice);
-            portfolio.setCurrentValue(newTotalQuantity * request.getPrice());
-            portfolio.setLastUpdated(LocalDateTime.now());
-            
-            portfolioRepository.save(portfolio);
-        } else {
-            Portfolio newPortfolio = new Portfolio();
-            newPortfolio.setTickerId(request.getTickerId());
-            newPortfolio.setCompanyName(request.getCompanyName());
-            newPortfolio.setTotalQuantity(request.getQuantity());
-            newPortfolio.setAveragePrice(request.getPrice());
-            newPortfolio.setCurrentValue(request.getTotalAmount());
-            newPortfolio.setLastUpdated(LocalDateTime.now());
-            
-            portfolioRepository.save(newPortfolio);
-        }
+        portfolioRepository.save(applyBuy(existingPortfolio.orElse(null), request));
     }
     
     private boolean updatePortfolioForSell(TradeRequest request) {
@@ -125,18 +463,13 @@ public class TradeService {
         if (existingPortfolio.isPresent()) {
             Portfolio portfolio = existingPortfolio.get();
             
-            if (portfolio.getTotalQuantity() < request.getQuantity()) {
+            if (!applySell(portfolio, request)) {
                 return false;
             }
             
-            int newQuantity = portfolio.getTotalQuantity() - request.getQuantity();
-            
-            if (newQuantity == 0) {
+            if (portfolio.getTotalQuantity() == 0) {
                 portfolioRepository.delete(portfolio);
             } else {
-                portfolio.setTotalQuantity(newQuantity);
-                portfolio.setCurrentValue(newQuantity * request.getPrice());
-                portfolio.setLastUpdated(LocalDateTime.now());
                 portfolioRepository.save(portfolio);
             }
             
@@ -146,11 +479,47 @@ public class TradeService {
         }
     }
     
+    /** Adds a BUY to the holding (or opens one when there is none) and returns it. */
+    private Portfolio applyBuy(Portfolio portfolio, TradeRequest request) {
+        if (portfolio != null) {
+            double totalCost = (portfolio.getTotalQuantity() * portfolio.getAveragePrice()) + 
+                              (request.getQuantity() * request.getPrice());
+            int newTotalQuantity = portfolio.getTotalQuantity() + request.getQuantity();
+            double newAveragePrice = totalCost / newTotalQuantity;
+            
+            portfolio.setTotalQuantity(newTotalQuantity);
+            portfolio.setAveragePrice(newAveragePrice);
+            portfolio.setCurrentValue(newTotalQuantity * request.getPrice());
+            portfolio.setLastUpdated(LocalDateTime.now());
+            return portfolio;
+        }
+        Portfolio newPortfolio = new Portfolio();
+        newPortfolio.setTickerId(request.getTickerId());
+        newPortfolio.setCompanyName(request.getCompanyName());
+        newPortfolio.setTotalQuantity(request.getQuantity());
+        newPortfolio.setAveragePrice(request.getPrice());
+        newPortfolio.setCurrentValue(request.getTotalAmount());
+        newPortfolio.setLastUpdated(LocalDateTime.now());
+        return newPortfolio;
+    }
+    
+    /** Takes a SELL out of the holding; false (and no change) if it holds too few shares. */
+    private boolean applySell(Portfolio portfolio, TradeRequest request) {
+        if (portfolio.getTotalQuantity() < request.getQuantity()) {
+            return false;
+        }
+        int newQuantity = portfolio.getTotalQuantity() - request.getQuantity();
+        portfolio.setTotalQuantity(newQuantity);
+        portfolio.setCurrentValue(newQuantity * request.getPrice());
+        portfolio.setLastUpdated(LocalDateTime.now());
+        return true;
+    }
+    
     /**
      * NEW METHOD: Sell shares from portfolio with quantity selection
-     * This method creates a SELL trade and updates the portfolio accordingly
+     * This method creates a SELL trade and updates the portfolio accordingly.
+     * Not transactional itself: executeTrade runs (and retries) its own transaction.
      */
-    @Transactional
     public TradeResponse sellFromPortfolio(String tickerId, int quantity, double currentPrice) {
         try {
             // Validate portfolio existence
@@ -190,8 +559,31 @@ public class TradeService {
         }
     }
     
-    public List<Trade> getAllTrades() {
-        return tradeRepository.findAllByOrderByTimestampDesc();
+    /**
+     * One page of trade history, newest first, optionally filtered by ticker,
+     * trade type and a [from, to) time range. Pages are read by keyset on
+     * (timestamp, id) through an index, so a page costs the same however
+     * many trades have accumulated.
+     *
+     * @throws IllegalArgumentException if the cursor is not one this method handed out
+     */
+    public TradePage getTradePage(String tickerId, String tradeType, LocalDateTime from, LocalDateTime to,
+                                  String cursor, Integer limit) {
+        int size = limit == null ? historyPageSize : Math.max(1, Math.min(limit, historyMaxPageSize));
+        TradePage.Cursor after = cursor == null || cursor.isBlank() ? null : TradePage.decodeCursor(cursor);
+        // One extra row tells whether there is a next page
+        List<Trade> trades = tradeRepository.findPage(blankToNull(tickerId), blankToNull(tradeType), from, to,
+            after != null ? after.getTimestamp() : null, after != null ? after.getId() : null,
+            PageRequest.of(0, size + 1));
+        if (trades.size() <= size) {
+            return new TradePage(trades, null);
+        }
+        List<Trade> page = new ArrayList<>(trades.subList(0, size));
+        return new TradePage(page, TradePage.encodeCursor(page.get(size - 1)));
+    }
+    
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
     }
     
     public Optional<Trade> getTradeById(Long id) {
@@ -210,40 +602,162 @@ public class TradeService {
         return portfolioRepository.findByTickerId(tickerId);
     }
     
-    @Transactional
+    /**
+     * Deletes a trade and rebuilds its ticker's holding and realized gains
+     * from the remaining trades, so neither keeps the effect of a deleted trade.
+     *
+     * @throws IllegalStateException if the holding is not yet explained by its
+     *         trades (see {@link PortfolioProjector#requireMatchesLog})
+     */
     public boolean deleteTrade(Long id) {
-        if (tradeRepository.existsById(id)) {
-            tradeRepository.deleteById(id);
-            return true;
+        Optional<Trade> trade = tradeRepository.findById(id);
+        if (trade.isEmpty()) {
+            return false;
+        }
+        String tickerId = trade.get().getTickerId();
+        Lock lock = lockFor(tickerId);
+        lock.lock();
+        try {
+            boolean deleted = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                if (!tradeRepository.existsById(id)) {
+                    return false;
+                }
+                portfolioProjector.requireMatchesLog(tickerId);
+                tradeRepository.deleteById(id);
+                tradeRepository.flush();
+                portfolioProjector.discardSnapshotsFrom(tickerId, id);
+                portfolioProjector.rebuild(tickerId);
+                realizedGainService.rebuild(tickerId);
+                return true;
+            }));
+            if (deleted) {
+                preTradeRiskService.resetPosition(tickerId,
+                    portfolioRepository.findByTickerId(tickerId).map(Portfolio::getTotalQuantity).orElse(0));
+            }
+            return deleted;
+        } finally {
+            lock.unlock();
         }
-        return false;
     }
     
-    public void importExternalTrades(MultipartFile file) throws IOException {
+    /**
+     * Replaces the ticker's portfolio row with the holding derived from its
+     * trades, and restates its realized gains.
+     *
+     * @throws IllegalStateException if the holding is not yet explained by its
+     *         trades (see {@link PortfolioProjector#requireMatchesLog})
+     */
+    public void rebuildPortfolio(String tickerId) {
+        Lock lock = lockFor(tickerId);
+        lock.lock();
+        try {
+            portfolioProjector.requireMatchesLog(tickerId);
+            PortfolioProjection projection = portfolioProjector.rebuild(tickerId);
+            realizedGainService.rebuild(tickerId);
+            preTradeRiskService.resetPosition(tickerId, projection.getQuantity());
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Records the opening balance the ticker's holding needs so that its
+     * trades add up to its portfolio row (see {@link PortfolioProjector#openingBalance}).
+     * The row itself, and the risk exposure loaded from it, already include
+     * those shares and are left alone. Snapshots taken without it are dropped
+     * and realized gains are restated, since it comes before the SELLs that
+     * were matched without it. Returns the trade written, if any.
+     */
+    public Optional<Trade> recordOpeningBalance(String tickerId) {
+        Lock lock = lockFor(tickerId);
+        lock.lock();
+        try {
+            return transactionTemplate.execute(status -> {
+                Optional<Trade> opening = portfolioRepository.findByTickerId(tickerId)
+                    .flatMap(portfolioProjector::openingBalance);
+                if (opening.isPresent()) {
+                    Trade saved = tradeRepository.save(opening.get());
+                    portfolioProjector.discardSnapshotsFrom(tickerId, 0L);
+                    realizedGainService.rebuild(tickerId);
+                    return Optional.of(saved);
+                }
+                return opening;
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /** Snapshots the ticker's holding if {@code minTrades} trades were recorded since the last snapshot. */
+    public boolean snapshotPortfolio(String tickerId, int minTrades) {
+        Lock lock = lockFor(tickerId);
+        lock.lock();
+        try {
+            return portfolioProjector.snapshot(tickerId, minTrades);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Records each row of a broker file (ticker, company, quantity, price) as
+     * a BUY trade, so imported holdings are part of the trade log and average
+     * in like any other purchase.
+     *
+     * <p>Every row is parsed and validated before any is written, so a bad
+     * file imports nothing and can be fixed and uploaded again. Returns one
+     * response per row, in file order; once the file is valid, a row can
+     * still fail only on a database error.
+     *
+     * @throws IllegalArgumentException listing every bad row, if there is one
+     */
+    public List<TradeResponse> importExternalTrades(MultipartFile file) throws IOException {
         BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream()));
         String line;
+        List<TradeRequest> requests = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        int row = 1;
 
         // Skip the header (e.g., Ticker, Company, Quantity, Price)
         reader.readLine();
 
         while ((line = reader.readLine()) != null) {
+            row++;
+            if (line.isBlank()) {
+                continue;
+            }
             String[] columns = line.split(",");
+            if (columns.length < 4) {
+                errors.add("Row " + row + ": expected ticker, company, quantity and price");
+                continue;
+            }
 
-            String ticker = columns[0];
-            String company = columns[1];
-            int quantity = Integer.parseInt(columns[2]);
-            double price = Double.parseDouble(columns[3]);
-
-            // Logic: Check if user already owns this stock in the Portfolio table
-            Portfolio portfolio = portfolioRepository.findByTickerId(ticker)
-                    .orElse(new Portfolio(ticker, company, 0, 0.0));
-
-            // Update with new data from the broker file
-            int newTotalQuantity = portfolio.getTotalQuantity() + quantity;
-            portfolio.setTotalQuantity(newTotalQuantity);
-            portfolio.setAveragePrice(price); // Simplified for import
+            TradeRequest request = new TradeRequest();
+            request.setTickerId(columns[0].trim());
+            request.setCompanyName(columns[1].trim());
+            request.setTradeType("BUY");
+            try {
+                request.setQuantity(Integer.parseInt(columns[2].trim()));
+                request.setPrice(Double.parseDouble(columns[3].trim()));
+            } catch (NumberFormatException e) {
+                errors.add("Row " + row + ": invalid number " + e.getMessage());
+                continue;
+            }
+            request.setTotalAmount(request.getQuantity() * request.getPrice());
+            request.setDate(now.toLocalDate().toString());
+            request.setTime(now.toLocalTime().toString());
+            TradeResponse invalid = validate(request);
+            if (invalid != null) {
+                errors.add("Row " + row + ": " + invalid.getMessage());
+                continue;
+            }
+            requests.add(request);
+        }
 
-            portfolioRepository.save(portfolio);
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException(String.join("; ", errors));
         }
+        return recordExecutedTrades(requests);
     }
 }
\ No newline at end of file
@@ -0,0 +1,184 @@
+package com.stockmarket.service;
+
+import com.stockmarket.model.UpstreamResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * GET access to the external market and news APIs, guarded by one
+ * {@link CircuitBreaker} per URL.
+ *
+ * <p>Every successful body is remembered as the last known good response for
+ * its URL. When the breaker is open or the live call fails, that response is
+ * returned instead (flagged as cached) so callers never block on an upstream
+ * that is known to be down. A {@code null} return means there is nothing to
+ * serve yet.
+ *
+ * <p>Concurrent identical requests (same URL, headers and response type) are
+ * coalesced: the first caller performs the call and every caller that arrives
+ * while it is in flight waits for and shares the same result, so upstream
+ * load is bounded by the number of distinct requests rather than clients.
+ *
+ * <p>Once a URL has a last known good body, later calls are made conditional
+ * with the {@code ETag} / {@code Last-Modified} validators the upstream sent.
+ * A {@code 304 Not Modified} reuses the stored body without re-downloading
+ * or re-parsing it.
+ *
+ * <p>A body fetched or revalidated less than {@code upstream.fresh-ms} ago
+ * is returned without calling upstream at all, so a burst of client polls
+ * costs one upstream call.
+ */
+@Service
+public class UpstreamClient {
+
+    private final RestTemplate restTemplate;
+    private final int failureThreshold;
+    private final long slowCallMs;
+    private final long openMs;
+    private final long freshMs;
+
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final Map<String, UpstreamResponse<?>> lastKnownGood = new ConcurrentHashMap<>();
+    private final Map<String, Validators> validators = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<UpstreamResponse<?>>> inFlight = new ConcurrentHashMap<>();
+
+    public UpstreamClient(RestTemplate restTemplate,
+                          @Value("${upstream.circuit.failure-threshold:3}") int failureThreshold,
+                          @Value("${upstream.circuit.slow-call-ms:3000}") long slowCallMs,
+                          @Value("${upstream.circuit.open-ms:30000}") long openMs,
+                          @Value("${upstream.fresh-ms:5000}") long freshMs) {
+        this.restTemplate = restTemplate;
+        this.failureThreshold = failureThreshold;
+        this.slowCallMs = slowCallMs;
+        this.openMs = openMs;
+        this.freshMs = freshMs;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> UpstreamResponse<T> get(String url, HttpHeaders headers, Class<T> responseType) {
+        UpstreamResponse<T> last = (UpstreamResponse<T>) lastKnownGood.get(url);
+        if (last != null && last.getFetchedAt().isAfter(Instant.now().minusMillis(freshMs))) {
+            return last;
+        }
+        String key = requestKey(url, headers, responseType);
+        CompletableFuture<UpstreamResponse<?>> call = new CompletableFuture<>();
+        CompletableFuture<UpstreamResponse<?>> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            return (UpstreamResponse<T>) existing.join();
+        }
+
+        try {
+            UpstreamResponse<T> result = execute(url, headers, responseType);
+            call.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    public Collection<CircuitBreaker> getCircuitBreakers() {
+        return breakers.values();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> UpstreamResponse<T> execute(String url, HttpHeaders headers, Class<T> responseType) {
+        CircuitBreaker breaker = breakers.computeIfAbsent(url,
+            key -> new CircuitBreaker(key, failureThreshold, slowCallMs, openMs));
+
+        if (!breaker.tryAcquire()) {
+            return cached(url);
+        }
+
+        long start = System.nanoTime();
+        try {
+            ResponseEntity<T> response = restTemplate.exchange(url, HttpMethod.GET,
+                new HttpEntity<>(conditionalHeaders(url, headers)), responseType);
+            breaker.onSuccess((System.nanoTime() - start) / 1_000_000);
+
+            UpstreamResponse<T> last = (UpstreamResponse<T>) lastKnownGood.get(url);
+            if (response.getStatusCode() == HttpStatus.NOT_MODIFIED && last != null) {
+                UpstreamResponse<T> revalidated = last.revalidated(Instant.now());
+                lastKnownGood.put(url, revalidated);
+                rememberValidators(url, response.getHeaders());
+                return revalidated;
+            }
+            if (response.getBody() == null) {
+                return cached(url);
+            }
+            UpstreamResponse<T> fresh = new UpstreamResponse<>(response.getBody(), Instant.now(), false);
+            lastKnownGood.put(url, fresh);
+            validators.remove(url);
+            rememberValidators(url, response.getHeaders());
+            return fresh;
+        } catch (Exception e) {
+            breaker.onFailure();
+            System.err.println("Upstream call to " + url + " failed: " + e.getMessage());
+            return cached(url);
+        }
+    }
+
+    /** Adds If-None-Match / If-Modified-Since when there is a stored body they would refer to. */
+    private HttpHeaders conditionalHeaders(String url, HttpHeaders headers) {
+        Validators known = validators.get(url);
+        if (known == null || !lastKnownGood.containsKey(url)) {
+            return headers;
+        }
+        HttpHeaders conditional = new HttpHeaders();
+        conditional.putAll(headers);
+        if (known.etag != null) {
+            conditional.setIfNoneMatch(known.etag);
+        }
+        if (known.lastModified != null) {
+            conditional.set(HttpHeaders.IF_MODIFIED_SINCE, known.lastModified);
+        }
+        return conditional;
+    }
+
+    private void rememberValidators(String url, HttpHeaders responseHeaders) {
+        String etag = responseHeaders.getETag();
+        String lastModified = responseHeaders.getFirst(HttpHeaders.LAST_MODIFIED);
+        if (etag != null || lastModified != null) {
+            validators.merge(url, new Validators(etag, lastModified), (old, fresh) -> new Validators(
+                fresh.etag != null ? fresh.etag : old.etag,
+                fresh.lastModified != null ? fresh.lastModified : old.lastModified));
+        }
+    }
+
+    private String requestKey(String url, HttpHeaders headers, Class<?> responseType) {
+        StringBuilder key = new StringBuilder("GET ").append(url).append(' ').append(responseType.getName());
+        new TreeMap<>(headers).forEach((name, values) -> key.append('\n').append(name).append(':').append(values));
+        return key.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> UpstreamResponse<T> cached(String url) {
+        UpstreamResponse<T> last = (UpstreamResponse<T>) lastKnownGood.get(url);
+        return last != null ? last.asCached() : null;
+    }
+
+    private static final class Validators {
+        final String etag;
+        final String lastModified;
+
+        Validators(String etag, String lastModified) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+    }
+}
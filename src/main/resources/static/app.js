@@ -305,7 +305,53 @@ function searchStocks() {
     }
 }
 
+// Live price stream (Server-Sent Events). While connected it keeps marketData
+// current, so the NSE/BSE endpoints are only polled as a fallback.
+let priceStream = null;
+
+function isPriceStreamLive() {
+    return priceStream !== null && priceStream.readyState === EventSource.OPEN;
+}
+
+function applyStreamPrices(prices) {
+    Object.entries(prices || {}).forEach(([ticker, price]) => {
+        const exchange = ticker.includes('.NS') ? 'NSE' : 'BSE';
+        marketData[exchange][ticker] = price;
+    });
+}
+
+function connectPriceStream() {
+    if (!window.EventSource || priceStream) return;
+    
+    priceStream = new EventSource(`${BACKEND_API}/stocks/stream`);
+    
+    priceStream.addEventListener('snapshot', (event) => {
+        const data = JSON.parse(event.data);
+        marketData = { NSE: {}, BSE: {} };
+        applyStreamPrices(data.prices);
+    });
+    
+    priceStream.addEventListener('delta', (event) => {
+        const data = JSON.parse(event.data);
+        applyStreamPrices(data.changed);
+        (data.removed || []).forEach(ticker => {
+            delete marketData.NSE[ticker];
+            delete marketData.BSE[ticker];
+        });
+        if (currentTab === 'portfolio') {
+            loadPortfolio();
+        }
+    });
+    
+    priceStream.onerror = () => {
+        // EventSource reconnects on its own; polling covers the gap
+        console.warn('Price stream disconnected, falling back to polling until it reconnects');
+    };
+}
+
 async function fetchMarketData() {
+    if (isPriceStreamLive()) return;
+    
     try {
         const [nseResponse, bseResponse] = await Promise.all([
             fetch(`${BACKEND_API}/stocks/nse-active`),
@@ -654,97 +700,137 @@ async function confirmRemoveStock() {
 // Alias for HTML compatibility - some HTML files call confirmSellStock instead of confirmRemoveStock
 const confirmSellStock = confirmRemoveStock;
 
+// Trade history is paged newest first; X-Next-Cursor points at the next page
+const TRADE_PAGE_SIZE = 100;
+let tradeHistory = [];
+let tradeHistoryCursor = null;
+
+async function fetchTradePage(cursor, limit) {
+    const params = new URLSearchParams({ limit: limit });
+    if (cursor) params.set('cursor', cursor);
+    const response = await fetch(`${BACKEND_API}/trades?${params}`);
+    if (!response.ok) throw new Error('Failed to load trades');
+    return { trades: await response.json(), next: response.headers.get('X-Next-Cursor') };
+}
+
+async function fetchAllTrades() {
+    const trades = [];
+    let cursor = null;
+    do {
+        const page = await fetchTradePage(cursor, 1000);
+        trades.push(...page.trades);
+        cursor = page.next;
+    } while (cursor);
+    return trades;
+}
+
+async function loadMoreTradeHistory() {
+    try {
+        const page = await fetchTradePage(tradeHistoryCursor, TRADE_PAGE_SIZE);
+        tradeHistory = tradeHistory.concat(page.trades);
+        tradeHistoryCursor = page.next;
+        renderTradeHistory(tradeHistory, !!tradeHistoryCursor);
+    } catch (error) {
+        console.error('Error:', error);
+        showToast('error', 'Failed to load more trades');
+    }
+}
+
 async function loadTradeHistory() {
     const container = document.getElementById('historyContainer');
     container.innerHTML = '<div class="loading">Loading trade history...</div>';
     
     try {
-        const response = await fetch(`${BACKEND_API}/trades`);
-        if (!response.ok) throw new Error('Failed to load history');
-        const trades = await response.json();
-        
-        if (!trades || trades.length === 0) {
-            container.innerHTML = `
-                <div class="no-trades">
-                    <div class="no-trades-icon">📊</div>
-                    <div class="no-trades-text">No trades yet</div>
-                    <div class="no-trades-subtext">Start trading to see your history here</div>
-                </div>
-            `;
-            return;
-        }
-
-        const sortedTrades = trades.sort((a, b) => new Date(b.timestamp) - new Date(a.timestamp));
-
-        // Create table HTML
-        const tableHTML = `
-            <div class="history-table-container">
-                <table class="history-table">
-                    <thead>
-                        <tr>
-                            <th>Date & Time</th>
-                            <th>Stock</th>
-                            <th>Type</th>
-                            <th>Quantity</th>
-                            <th>Price</th>
-                            <th>Total Amount</th>
-                        </tr>
-                    </thead>
-                    <tbody>
-                        ${sortedTrades.map(trade => {
-                            const tradeDate = new Date(trade.timestamp);
-                            const dateStr = tradeDate.toLocaleDateString('en-IN', {
-                                year: 'numeric',
-                                month: 'short',
-                                day: 'numeric'
-                            });
-                            const timeStr = tradeDate.toLocaleTimeString('en-IN', {
-                                hour: '2-digit',
-                                minute: '2-digit'
-                            });
-
-                            const tradeTypeClass = trade.tradeType === 'BUY' ? 'buy' : 'sell';
-
-                            return `
-                                <tr>
-                                    <td>
-                                        <div class="date-time-info">
-                                            <div class="trade-date">${dateStr}</div>
-                                            <div class="trade-time">${timeStr}</div>
-                                        </div>
-                                    </td>
-                                    <td>
-                                        <div class="stock-info">
-                                            <div class="stock-symbol">${trade.tickerId}</div>
-                                            <div class="company-name">${trade.companyName || 'N/A'}</div>
-                                        </div>
-                                    </td>
-                                    <td>
-                                        <span class="trade-type-badge ${tradeTypeClass}">${trade.tradeType}</span>
-                                    </td>
-                                    <td>${trade.quantity}</td>
-                                    <td>₹${trade.price.toFixed(2)}</td>
-                                    <td><span class="amount-value">₹${trade.totalAmount.toFixed(2)}</span></td>
-                                </tr>
-                            `;
-                        }).join('')}
-                    </tbody>
-                </table>
-            </div>
-        `;
-
-        container.innerHTML = tableHTML;
+        const page = await fetchTradePage(null, TRADE_PAGE_SIZE);
+        tradeHistory = page.trades;
+        tradeHistoryCursor = page.next;
+        renderTradeHistory(tradeHistory, !!tradeHistoryCursor);
     } catch (error) {
         console.error('Error:', error);
         container.innerHTML = '<div class="error">Failed to load trade history</div>';
     }
 }
 
+function renderTradeHistory(trades, hasMore) {
+    const container = document.getElementById('historyContainer');
+    if (!trades || trades.length === 0) {
+        container.innerHTML = `
+            <div class="no-trades">
+                <div class="no-trades-icon">📊</div>
+                <div class="no-trades-text">No trades yet</div>
+                <div class="no-trades-subtext">Start trading to see your history here</div>
+            </div>
+        `;
+        return;
+    }
+
+    // Already newest first from the server
+    const sortedTrades = trades;
+
+    // Create table HTML
+    const tableHTML = `
+        <div class="history-table-container">
+            <table class="history-table">
+                <thead>
+                    <tr>
+                        <th>Date & Time</th>
+                        <th>Stock</th>
+                        <th>Type</th>
+                        <th>Quantity</th>
+                        <th>Price</th>
+                        <th>Total Amount</th>
+                    </tr>
+                </thead>
+                <tbody>
+                    ${sortedTrades.map(trade => {
+                        const tradeDate = new Date(trade.timestamp);
+                        const dateStr = tradeDate.toLocaleDateString('en-IN', {
+                            year: 'numeric',
+                            month: 'short',
+                            day: 'numeric'
+                        });
+                        const timeStr = tradeDate.toLocaleTimeString('en-IN', {
+                            hour: '2-digit',
+                            minute: '2-digit'
+                        });
+
+                        const tradeTypeClass = trade.tradeType === 'BUY' ? 'buy' : 'sell';
+
+                        return `
+                            <tr>
+                                <td>
+                                    <div class="date-time-info">
+                                        <div class="trade-date">${dateStr}</div>
+                                        <div class="trade-time">${timeStr}</div>
+                                    </div>
+                                </td>
+                                <td>
+                                    <div class="stock-info">
+                                        <div class="stock-symbol">${trade.tickerId}</div>
+                                        <div class="company-name">${trade.companyName || 'N/A'}</div>
+                                    </div>
+                                </td>
+                                <td>
+                                    <span class="trade-type-badge ${tradeTypeClass}">${trade.tradeType}</span>
+                                </td>
+                                <td>${trade.quantity}</td>
+                                <td>₹${trade.price.toFixed(2)}</td>
+                                <td><span class="amount-value">₹${trade.totalAmount.toFixed(2)}</span></td>
+                            </tr>
+                        `;
+                    }).join('')}
+                </tbody>
+            </table>
+        </div>
+        ${hasMore ? '<button class="btn btn-confirm" onclick="loadMoreTradeHistory()">Load more</button>' : ''}
+    `;
+
+    container.innerHTML = tableHTML;
+}
+
 async function exportTradesToPDF() {
     try {
-        const response = await fetch(`${BACKEND_API}/trades`);
-        if (!response.ok) throw new Error('Failed to load trades');
-        const trades = await response.json();
+        const trades = await fetchAllTrades();
 
         if (!trades || trades.length === 0) {
             showToast('error', 'No trades to export');
@@ -925,6 +1011,7 @@ async function askBot(userChoice = "GREETING") {
 // Initialize on page load
 document.addEventListener('DOMContentLoaded', () => {
     fetchTrendingStocks();
+    connectPriceStream();
     
     // Add enter key support for search
     document.getElementById('searchInput')?.addEventListener('keypress', (e) => {
@@ -965,9 +1052,9 @@ setInterval(() => {
     }
 }, 120000);
 
-// Auto-refresh portfolio every 30 seconds
+// Auto-refresh portfolio every 30 seconds when the price stream is unavailable
 setInterval(() => {
-    if (currentTab === 'portfolio') {
+    if (currentTab === 'portfolio' && !isPriceStreamLive()) {
         fetchMarketData();
         loadPortfolio();
     }
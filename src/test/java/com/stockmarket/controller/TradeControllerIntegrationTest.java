@@ -3,7 +3,9 @@ package com.stockmarket.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.stockmarket.dto.TradeRequest;
 import com.stockmarket.entity.Portfolio;
+import com.stockmarket.entity.Trade;
 import com.stockmarket.repository.*;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,9 +14,16 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.zip.GZIPInputStream;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -34,6 +43,12 @@ class TradeControllerIntegrationTest {
         portfolioRepository.deleteAll();
     }
 
+    @AfterEach
+    void tearDown() {
+        // Tests that commit (the export reads on its own connection) must not leave rows behind
+        tradeRepository.deleteAll();
+    }
+
     @Test
     void testExecuteTrade_BuyOrder() throws Exception {
         TradeRequest request = new TradeRequest();
@@ -70,4 +85,63 @@ class TradeControllerIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)));
     }
+
+    @Test
+    void testGetAllTrades_PagesByCursorNewestFirst() throws Exception {
+        LocalDateTime start = LocalDateTime.now().minusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        for (int i = 0; i < 3; i++) {
+            Trade t = new Trade("TCS.NS", "TCS", "BUY", 1, 100.0 + i, 100.0 + i);
+            t.setTimestamp(start.plusMinutes(i));
+            tradeRepository.save(t);
+        }
+        tradeRepository.save(new Trade("INFY.NS", "Infosys", "BUY", 1, 50.0, 50.0));
+
+        String cursor = mockMvc.perform(get("/api/trades").param("tickerId", "TCS.NS").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].price").value(102.0))
+                .andExpect(jsonPath("$[1].price").value(101.0))
+                .andExpect(header().string("Link", containsString("rel=\"next\"")))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+
+        mockMvc.perform(get("/api/trades").param("tickerId", "TCS.NS").param("limit", "2").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].price").value(100.0))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+
+        mockMvc.perform(get("/api/trades").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // the export reads on its own connection
+    void testStreamTrades_WritesNdjsonAndResumesAfterId() throws Exception {
+        Trade first = tradeRepository.save(new Trade("TCS.NS", "TCS", "BUY", 2, 100.0, 200.0));
+        tradeRepository.save(new Trade("TCS.NS", "TCS", "SELL", 1, 110.0, 110.0));
+
+        MvcResult all = mockMvc.perform(get("/api/trades/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertEquals(-1, all.getRequest().getAsyncContext().getTimeout());
+        String ndjson = mockMvc.perform(asyncDispatch(all))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", containsString("application/x-ndjson")))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = ndjson.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("BUY", objectMapper.readTree(lines[0]).get("tradeType").asText());
+        assertEquals(first.getId(), objectMapper.readTree(lines[0]).get("id").asLong());
+
+        MvcResult resumed = mockMvc.perform(get("/api/trades/stream")
+                        .param("afterId", String.valueOf(first.getId()))
+                        .header("Accept-Encoding", "gzip"))
+                .andReturn();
+        byte[] compressed = mockMvc.perform(asyncDispatch(resumed))
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+        String rest = new String(new GZIPInputStream(new ByteArrayInputStream(compressed)).readAllBytes(), StandardCharsets.UTF_8);
+        assertEquals(1, rest.split("\n").length);
+        assertEquals("SELL", objectMapper.readTree(rest).get("tradeType").asText());
+    }
 }
@@ -0,0 +1,41 @@
+package com.stockmarket.service;
+
+import com.stockmarket.dto.TradeResponse;
+import com.stockmarket.model.TradeOrder;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncTradeServiceTest {
+
+    @Test
+    void testSubmit_ReturnsPendingOrderThatCompletesOnTheExecutor() {
+        List<Runnable> queued = new ArrayList<>();
+        AsyncTradeService service = new AsyncTradeService(queued::add, 100, 1000);
+
+        TradeOrder order = service.submit(() -> new TradeResponse("SUCCESS", "BUY order executed successfully"));
+        assertEquals("PENDING", service.getOrder(order.getOrderId()).orElseThrow().getStatus());
+        assertTrue(service.watch(order.getOrderId()).isPresent());
+
+        queued.get(0).run();
+        TradeOrder completed = service.getOrder(order.getOrderId()).orElseThrow();
+        assertEquals("COMPLETED", completed.getStatus());
+        assertEquals("SUCCESS", completed.getResult().getStatus());
+        assertNotNull(completed.getCompletedAt());
+    }
+
+    @Test
+    void testSubmit_ReportsFailuresAndRejectsWhenExecutorIsFull() {
+        AsyncTradeService service = new AsyncTradeService(Runnable::run, 100, 1000);
+        TradeOrder failed = service.submit(() -> { throw new IllegalStateException("database down"); });
+        assertEquals("ERROR", failed.getResult().getStatus());
+        assertEquals("Failed to execute trade: database down", failed.getResult().getMessage());
+
+        AsyncTradeService full = new AsyncTradeService(task -> { throw new RejectedExecutionException(); }, 100, 1000);
+        assertThrows(RejectedExecutionException.class,
+            () -> full.submit(() -> new TradeResponse("SUCCESS", "ok")));
+        assertTrue(full.getOrder("unknown").isEmpty());
+    }
+}
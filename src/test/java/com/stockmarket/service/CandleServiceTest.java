@@ -0,0 +1,56 @@
+package com.stockmarket.service;
+
+import com.stockmarket.model.Candle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.time.Instant;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CandleServiceTest {
+    private static final long T0 = Instant.parse("2026-02-04T04:00:00Z").toEpochMilli();
+    private CandleService candleService;
+
+    @BeforeEach
+    void setUp() {
+        candleService = new CandleService(new SymbolRegistry(), 3);
+    }
+
+    @Test
+    void testOnTick_BuildsOhlcPerResolution() {
+        candleService.onTick("ONGC.NS", T0, 285.0, 1000);
+        candleService.onTick("ONGC.NS", T0 + 20_000, 287.5, 1300);
+        candleService.onTick("ONGC.NS", T0 + 40_000, 284.0, 1400);
+        candleService.onTick("ONGC.NS", T0 + 70_000, 286.0, 1600);
+
+        List<Candle> minutes = candleService.getCandles("ONGC.NS", CandleService.Resolution.ONE_MINUTE, 10);
+        assertEquals(2, minutes.size());
+        Candle first = minutes.get(0);
+        assertEquals(Instant.ofEpochMilli(T0), first.getTime());
+        assertEquals(285.0, first.getOpen());
+        assertEquals(287.5, first.getHigh());
+        assertEquals(284.0, first.getLow());
+        assertEquals(284.0, first.getClose());
+        assertEquals(400L, first.getVolume());
+        assertEquals(200L, minutes.get(1).getVolume());
+
+        List<Candle> fiveMinutes = candleService.getCandles("ONGC.NS", CandleService.Resolution.FIVE_MINUTES, 10);
+        assertEquals(1, fiveMinutes.size());
+        assertEquals(286.0, fiveMinutes.get(0).getClose());
+        assertEquals(600L, fiveMinutes.get(0).getVolume());
+    }
+
+    @Test
+    void testRing_KeepsMostRecentCandlesAndIgnoresLateTicks() {
+        for (int i = 0; i < 5; i++) {
+            candleService.onTick("TCS.NS", T0 + i * 60_000L, 3600.0 + i, -1);
+        }
+        candleService.onTick("TCS.NS", T0 + 60_000L, 1.0, -1);
+        List<Candle> minutes = candleService.getCandles("TCS.NS", CandleService.Resolution.ONE_MINUTE, 10);
+        assertEquals(3, minutes.size());
+        assertEquals(3602.0, minutes.get(0).getOpen());
+        assertEquals(3604.0, minutes.get(2).getClose());
+        assertEquals(2, candleService.getCandles("TCS.NS", CandleService.Resolution.ONE_MINUTE, 2).size());
+        assertTrue(candleService.getCandles("INFY.NS", CandleService.Resolution.ONE_DAY, 10).isEmpty());
+    }
+}
@@ -0,0 +1,79 @@
+package com.stockmarket.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockmarket.dto.TradeResponse;
+import com.stockmarket.entity.IdempotencyRecord;
+import com.stockmarket.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+    @Mock private IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private IdempotencyService service;
+    private final AtomicInteger trades = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        service = new IdempotencyService(repository, objectMapper, 100, 24);
+    }
+
+    @Test
+    void testExecute_RetryWithSameKeyReplaysWithoutTradingAgain() {
+        when(repository.findById("key-1")).thenReturn(Optional.empty());
+        IdempotencyService.Outcome first = service.execute("key-1", "trade|ONGC.NS|BUY|10", this::trade);
+        IdempotencyService.Outcome retry = service.execute("key-1", "trade|ONGC.NS|BUY|10", this::trade);
+        assertFalse(first.isReplayed());
+        assertTrue(retry.isReplayed());
+        assertEquals(1L, retry.getResponse().getId());
+        assertEquals(1, trades.get());
+        verify(repository, times(1)).save(any(IdempotencyRecord.class));
+
+        IdempotencyService.Outcome reused = service.execute("key-1", "trade|ONGC.NS|SELL|10", this::trade);
+        assertTrue(reused.isConflict());
+        assertEquals(1, trades.get());
+    }
+
+    @Test
+    void testExecute_FindsKeysPersistedBeforeRestart() {
+        when(repository.findById("key-2")).thenReturn(Optional.empty());
+        service.execute("key-2", "sell|ONGC.NS|5", this::trade);
+        ArgumentCaptor<IdempotencyRecord> saved = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(repository).save(saved.capture());
+
+        IdempotencyService restarted = new IdempotencyService(repository, objectMapper, 100, 24);
+        when(repository.findById("key-2")).thenReturn(Optional.of(saved.getValue()));
+        IdempotencyService.Outcome retry = restarted.execute("key-2", "sell|ONGC.NS|5", this::trade);
+        assertTrue(retry.isReplayed());
+        assertEquals("SUCCESS", retry.getResponse().getStatus());
+        assertEquals(1, trades.get());
+    }
+
+    @Test
+    void testExecute_DoesNotRememberFailedTrades() {
+        when(repository.findById(anyString())).thenReturn(Optional.empty());
+        service.execute("key-3", "sell|ONGC.NS|5", () -> new TradeResponse("ERROR", "Insufficient shares to sell"));
+        IdempotencyService.Outcome retry = service.execute("key-3", "sell|ONGC.NS|5", this::trade);
+        assertFalse(retry.isReplayed());
+        assertEquals(1, trades.get());
+        verify(repository, times(1)).save(any(IdempotencyRecord.class));
+    }
+
+    private TradeResponse trade() {
+        TradeResponse response = new TradeResponse("SUCCESS", "BUY order executed successfully");
+        response.setId((long) trades.incrementAndGet());
+        response.setTickerId("ONGC.NS");
+        return response;
+    }
+}
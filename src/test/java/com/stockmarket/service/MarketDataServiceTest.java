@@ -0,0 +1,110 @@
+package com.stockmarket.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockmarket.model.MarketSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MarketDataServiceTest {
+    @Mock private RestTemplate restTemplate;
+    private MarketDataService marketDataService;
+    private SymbolRegistry symbolRegistry;
+
+    @BeforeEach
+    void setUp() {
+        symbolRegistry = new SymbolRegistry();
+        marketDataService = new MarketDataService(
+            new UpstreamClient(restTemplate, 3, 3000, 30000, 0), Executors.newCachedThreadPool(), event -> {},
+            symbolRegistry);
+        ReflectionTestUtils.setField(marketDataService, "stockApiUrl", "trending");
+        ReflectionTestUtils.setField(marketDataService, "nseApiUrl", "nse");
+        ReflectionTestUtils.setField(marketDataService, "bseApiUrl", "bse");
+        ReflectionTestUtils.setField(marketDataService, "apiKey", "test-key");
+        ReflectionTestUtils.setField(marketDataService, "sourceTimeoutMs", 200L);
+        ReflectionTestUtils.setField(marketDataService, "deadlineMs", 500L);
+    }
+
+    @Test
+    void testRefresh_MergesNseAndBsePrices() {
+        stub("trending", Map.of("trending_stocks", Map.of()));
+        stub("nse", Map.of("most_active", List.of(Map.of("ticker_id", "ONGC.NS", "price", 285.40))));
+        stub("bse", Map.of("most_active", List.of(Map.of("ticker_id", "ONGC.BO", "price", "286.10"))));
+        MarketSnapshot snapshot = marketDataService.refresh();
+        assertSame(snapshot, marketDataService.getSnapshot());
+        assertEquals(285.40, snapshot.getPrices().get("ONGC.NS"));
+        assertEquals(286.10, snapshot.getPrices().get("ONGC.BO"));
+        assertEquals(285.40, snapshot.getPrice(symbolRegistry.idOf("ONGC.NS")));
+        assertEquals("BSE", symbolRegistry.exchange(symbolRegistry.idOf("ONGC.BO")));
+        assertNotNull(snapshot.getTrending());
+    }
+
+    @Test
+    void testRefresh_FailedSourceKeepsPreviousPayload() {
+        stub("trending", Map.of("trending_stocks", Map.of()));
+        stub("nse", Map.of("most_active", List.of(Map.of("ticker_id", "ONGC.NS", "price", 285.40))));
+        stub("bse", Map.of("most_active", List.of()));
+        marketDataService.refresh();
+        when(restTemplate.exchange(eq("nse"), eq(HttpMethod.GET), any(HttpEntity.class), eq(byte[].class)))
+            .thenThrow(new ResourceAccessException("timeout"));
+        MarketSnapshot snapshot = marketDataService.refresh();
+        assertEquals(285.40, snapshot.getPrices().get("ONGC.NS"));
+        assertEquals(Set.of("NSE"), snapshot.getStaleSources());
+    }
+
+    @Test
+    void testRefresh_SlowSourceMissesDeadline() {
+        stub("trending", Map.of("trending_stocks", Map.of()));
+        stub("bse", Map.of("most_active", List.of(Map.of("ticker_id", "ONGC.BO", "price", 286.10))));
+        when(restTemplate.exchange(eq("nse"), eq(HttpMethod.GET), any(HttpEntity.class), eq(byte[].class)))
+            .thenAnswer(invocation -> {
+                Thread.sleep(2000);
+                return ResponseEntity.ok("{}".getBytes());
+            });
+        long start = System.nanoTime();
+        MarketSnapshot snapshot = marketDataService.refresh();
+        assertTrue(System.nanoTime() - start < 1_500_000_000L);
+        assertEquals(286.10, snapshot.getPrices().get("ONGC.BO"));
+        assertTrue(snapshot.getStaleSources().contains("NSE"));
+        assertFalse(snapshot.getStaleSources().contains("BSE"));
+    }
+
+    @Test
+    void testRefresh_MalformedPayloadKeepsPreviousQuotes() {
+        stub("trending", Map.of("trending_stocks", Map.of()));
+        stub("nse", Map.of("most_active", List.of(Map.of("ticker_id", "ONGC.NS", "price", 285.40))));
+        stub("bse", Map.of("most_active", List.of()));
+        marketDataService.refresh();
+        when(restTemplate.exchange(eq("nse"), eq(HttpMethod.GET), any(HttpEntity.class), eq(byte[].class)))
+            .thenReturn(ResponseEntity.ok("<html>Bad Gateway".getBytes()));
+        MarketSnapshot snapshot = marketDataService.refresh();
+        assertEquals(285.40, snapshot.getPrices().get("ONGC.NS"));
+        assertTrue(snapshot.getStaleSources().contains("NSE"));
+    }
+
+    private void stub(String url, Map<String, Object> body) {
+        try {
+            when(restTemplate.exchange(eq(url), eq(HttpMethod.GET), any(HttpEntity.class), eq(byte[].class)))
+                .thenReturn(ResponseEntity.ok(new ObjectMapper().writeValueAsBytes(body)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
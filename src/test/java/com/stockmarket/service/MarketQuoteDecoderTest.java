@@ -0,0 +1,41 @@
+package com.stockmarket.service;
+
+import com.stockmarket.model.MarketQuote;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarketQuoteDecoderTest {
+
+    @Test
+    void testDecodeMostActive_ObjectFormSkipsUnknownFields() throws IOException {
+        String json = "{\"exchange\":\"NSE\",\"most_active\":[{\"ticker_id\":\"ONGC.NS\",\"company\":{\"name\":\"ONGC\",\"tags\":[1,2]},"
+            + "\"price\":285.40,\"net_change\":-1.5,\"percent_change\":\"-0.52\",\"volume\":120000}],\"meta\":{\"page\":1}}";
+        List<MarketQuote> quotes = MarketQuoteDecoder.decodeMostActive(json.getBytes(StandardCharsets.UTF_8));
+        assertEquals(1, quotes.size());
+        MarketQuote quote = quotes.get(0);
+        assertEquals("ONGC.NS", quote.getTickerId());
+        assertEquals(285.40, quote.getPrice());
+        assertEquals(-1.5, quote.getChange());
+        assertEquals(-0.52, quote.getChangePercent());
+        assertEquals(120000L, quote.getVolume());
+    }
+
+    @Test
+    void testDecodeMostActive_ArrayFormWithStringPrice() throws IOException {
+        String json = "[{\"ticker_id\":\"ONGC.BO\",\"price\":\"286.10\"},{\"price\":10.0},{\"ticker_id\":\"TCS.BO\"}]";
+        List<MarketQuote> quotes = MarketQuoteDecoder.decodeMostActive(json.getBytes(StandardCharsets.UTF_8));
+        assertEquals(2, quotes.size());
+        assertEquals(286.10, quotes.get(0).getPrice());
+        assertFalse(quotes.get(1).hasPrice());
+        assertEquals(-1L, quotes.get(1).getVolume());
+    }
+
+    @Test
+    void testDecodeMostActive_MalformedPayloadThrows() {
+        assertThrows(IOException.class,
+            () -> MarketQuoteDecoder.decodeMostActive("<html>Bad Gateway".getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,128 @@
+package com.stockmarket.service;
+
+import com.stockmarket.dto.TradeRequest;
+import com.stockmarket.dto.TradeResponse;
+import com.stockmarket.entity.Portfolio;
+import com.stockmarket.model.OrderResult;
+import com.stockmarket.repository.PortfolioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class OrderBookServiceTest {
+    @TempDir Path dir;
+    private PortfolioRepository portfolioRepository;
+
+    @BeforeEach
+    void setUp() {
+        portfolioRepository = mock(PortfolioRepository.class);
+        when(portfolioRepository.findByTickerId("ONGC.NS"))
+            .thenReturn(Optional.of(new Portfolio("ONGC.NS", "ONGC", 10, 240.0)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRecovery_RebuildsBookAndWritesFillsThatNeverReachedTheDatabase() throws Exception {
+        TradeService unavailable = mock(TradeService.class);
+        when(unavailable.recordExecutedTrades(anyList())).thenThrow(new IllegalStateException("database down"));
+        OrderBookService first = open(unavailable);
+        assertEquals("RESTING", first.submit("ONGC.NS", "ONGC", "SELL", 245.50, 10).getStatus());
+        assertEquals("RESTING", first.submit("ONGC.NS", "ONGC", "BUY", 240.00, 4).getStatus());
+        assertEquals(10, first.onPrice("ONGC.NS", 246.00));
+        first.close();
+
+        TradeService database = mock(TradeService.class);
+        when(database.recordExecutedTrades(anyList())).thenAnswer(invocation ->
+            ((List<TradeRequest>) invocation.getArgument(0)).stream().map(r -> new TradeResponse("SUCCESS", "ok")).toList());
+        OrderBookService second = open(database);
+        ArgumentCaptor<List<TradeRequest>> trades = ArgumentCaptor.forClass(List.class);
+        verify(database).recordExecutedTrades(trades.capture());
+        assertEquals(List.of("SELL"), trades.getValue().stream().map(TradeRequest::getTradeType).toList());
+        assertEquals(10, trades.getValue().get(0).getQuantity());
+        assertEquals(246.00, trades.getValue().get(0).getPrice());
+
+        List<Map<String, Object>> bids = (List<Map<String, Object>>) second.getDepth("ONGC.NS", 5).get("bids");
+        assertEquals(4L, bids.get(0).get("quantity"));
+        assertTrue(((List<?>) second.getDepth("ONGC.NS", 5).get("asks")).isEmpty());
+        assertEquals(3L, second.submit("ONGC.NS", "ONGC", "BUY", 230.00, 1).getOrderId());
+        second.close();
+
+        TradeService idle = mock(TradeService.class);
+        OrderBookService third = open(idle);
+        verify(idle, never()).recordExecutedTrades(anyList());
+        assertEquals(2, ((List<?>) third.getDepth("ONGC.NS", 5).get("bids")).size());
+        third.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSubmit_FillsBuyAtOnceWhenLastPriceIsAtOrBelowLimit() throws Exception {
+        TradeService database = mock(TradeService.class);
+        OrderBookService service = open(database);
+        assertEquals(0, service.onPrice("ONGC.NS", 250.00));
+
+        assertEquals("RESTING", service.submit("ONGC.NS", "ONGC", "BUY", 249.00, 3).getStatus());
+        OrderResult buy = service.submit("ONGC.NS", "ONGC", "BUY", 251.00, 3);
+
+        assertEquals("FILLED", buy.getStatus());
+        assertEquals(250.00, buy.getFills().get(0).getPrice());
+        ArgumentCaptor<List<TradeRequest>> trades = ArgumentCaptor.forClass(List.class);
+        verify(database, timeout(2000)).recordExecutedTrades(trades.capture());
+        assertEquals("BUY", trades.getValue().get(0).getTradeType());
+        assertEquals(250.00, trades.getValue().get(0).getPrice());
+        service.close();
+    }
+
+    @Test
+    void testSubmit_RejectsSellBeyondSharesHeldLessRestingSells() throws Exception {
+        OrderBookService service = open(mock(TradeService.class));
+        assertEquals("RESTING", service.submit("ONGC.NS", "ONGC", "SELL", 260.00, 6).getStatus());
+
+        OrderResult tooMany = service.submit("ONGC.NS", "ONGC", "SELL", 255.00, 5);
+
+        assertEquals("REJECTED", tooMany.getStatus());
+        assertEquals("Insufficient shares: 4 available to sell", tooMany.getMessage());
+        assertEquals("RESTING", service.submit("ONGC.NS", "ONGC", "SELL", 255.00, 4).getStatus());
+        assertTrue(service.submit("OTHER.NS", "Other", "SELL", 10.00, 1).isRejected());
+        service.close();
+    }
+
+    @Test
+    void testSubmit_RejectsOrderRefusedByRiskCheckBeforeItReachesTheBook() throws Exception {
+        PreTradeRiskService risk = mock(PreTradeRiskService.class);
+        when(risk.check(argThat(r -> r != null && "BUY".equals(r.getTradeType()) && r.getQuantity() == 500)))
+            .thenReturn(Optional.of("Order value exceeds the limit"));
+        OrderBookService service = open(mock(TradeService.class), risk);
+
+        OrderResult result = service.submit("ONGC.NS", "ONGC", "BUY", 246.00, 500);
+
+        assertEquals("REJECTED", result.getStatus());
+        assertEquals("Rejected by risk check: Order value exceeds the limit", result.getMessage());
+        assertTrue(((List<?>) service.getDepth("ONGC.NS", 5).get("bids")).isEmpty());
+        ArgumentCaptor<TradeRequest> checked = ArgumentCaptor.forClass(TradeRequest.class);
+        verify(risk).check(checked.capture());
+        assertEquals(246.00, checked.getValue().getPrice());
+        assertEquals("RESTING", service.submit("ONGC.NS", "ONGC", "BUY", 246.00, 5).getStatus());
+        service.close();
+    }
+
+    private OrderBookService open(TradeService tradeService) throws Exception {
+        return open(tradeService, mock(PreTradeRiskService.class));
+    }
+
+    private OrderBookService open(TradeService tradeService, PreTradeRiskService preTradeRiskService) throws Exception {
+        OrderBookService service = new OrderBookService(tradeService, preTradeRiskService, portfolioRepository,
+            dir.toString(), true, 16, 100);
+        service.open();
+        return service;
+    }
+}
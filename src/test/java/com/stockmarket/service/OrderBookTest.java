@@ -0,0 +1,59 @@
+package com.stockmarket.service;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderBookTest {
+
+    @Test
+    void testFillAt_FillsOrdersTheMarketPriceReachesBestPriceThenOldestFirst() {
+        OrderBook book = new OrderBook(4);
+        List<long[]> fills = new ArrayList<>();
+        OrderBook.FillListener listener = (order, side, price, quantity) -> fills.add(new long[]{order, side, price, quantity});
+        book.add(1, OrderBook.BUY, 10100, 50);
+        book.add(2, OrderBook.BUY, 10100, 20);
+        book.add(3, OrderBook.BUY, 10200, 30);
+        book.add(4, OrderBook.BUY, 10000, 10);
+        book.add(5, OrderBook.SELL, 10300, 40);
+        assertTrue(book.crosses(10100));
+        assertFalse(book.crosses(10250));
+
+        assertEquals(100, book.fillAt(10100, listener));
+        assertEquals(3, fills.size());
+        assertArrayEquals(new long[]{3, OrderBook.BUY, 10100, 30}, fills.get(0));
+        assertArrayEquals(new long[]{1, OrderBook.BUY, 10100, 50}, fills.get(1));
+        assertArrayEquals(new long[]{2, OrderBook.BUY, 10100, 20}, fills.get(2));
+        assertEquals(0, book.remaining(1));
+        assertEquals(10, book.restingQuantity(OrderBook.BUY));
+        assertEquals(40, book.restingQuantity(OrderBook.SELL));
+
+        assertEquals(40, book.fillAt(10300, listener));
+        assertArrayEquals(new long[]{5, OrderBook.SELL, 10300, 40}, fills.get(3));
+        assertEquals(0, book.restingQuantity(OrderBook.SELL));
+
+        List<long[]> bids = new ArrayList<>();
+        book.forEachLevel(OrderBook.BUY, 10, (price, quantity, orders) -> bids.add(new long[]{price, quantity, orders}));
+        assertEquals(1, bids.size());
+        assertArrayEquals(new long[]{10000, 10, 1}, bids.get(0));
+    }
+
+    @Test
+    void testCancel_RemovesOrderAndEmptyLevel() {
+        OrderBook book = new OrderBook(4);
+        book.add(1, OrderBook.BUY, 9900, 10);
+        book.add(2, OrderBook.BUY, 9900, 5);
+        book.add(3, OrderBook.BUY, 9800, 5);
+
+        assertTrue(book.cancel(1));
+        assertFalse(book.cancel(1));
+        assertTrue(book.cancel(3));
+        List<long[]> bids = new ArrayList<>();
+        book.forEachLevel(OrderBook.BUY, 10, (price, quantity, orders) -> bids.add(new long[]{price, quantity, orders}));
+        assertEquals(1, bids.size());
+        assertArrayEquals(new long[]{9900, 5, 1}, bids.get(0));
+        assertEquals(1, book.orderCount());
+        assertEquals(5, book.restingQuantity(OrderBook.BUY));
+    }
+}
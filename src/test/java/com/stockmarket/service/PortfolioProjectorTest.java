@@ -0,0 +1,151 @@
+package com.stockmarket.service;
+
+import com.stockmarket.entity.Portfolio;
+import com.stockmarket.entity.PortfolioSnapshot;
+import com.stockmarket.entity.Trade;
+import com.stockmarket.repository.PortfolioRepository;
+import com.stockmarket.repository.PortfolioSnapshotRepository;
+import com.stockmarket.repository.TradeRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PortfolioProjectorTest {
+    @Mock private TradeRepository tradeRepository;
+    @Mock private PortfolioRepository portfolioRepository;
+    @Mock private PortfolioSnapshotRepository snapshotRepository;
+    @InjectMocks private PortfolioProjector projector;
+
+    @Test
+    void testRebuild_ReplaysTradesAfterLatestSnapshot() {
+        PortfolioSnapshot snapshot = PortfolioProjection.empty("ONGC.NS").toSnapshot();
+        snapshot.setLastTradeId(10L);
+        snapshot.setTotalQuantity(10);
+        snapshot.setAveragePrice(100.0);
+        snapshot.setLastPrice(100.0);
+        when(snapshotRepository.findFirstByTickerIdOrderByLastTradeIdDesc("ONGC.NS")).thenReturn(Optional.of(snapshot));
+        when(tradeRepository.findReplayAfter("ONGC.NS", 10L))
+            .thenReturn(List.of(trade(11, "BUY", 10, 200.0), trade(12, "SELL", 5, 250.0)));
+        Portfolio existing = new Portfolio("ONGC.NS", "ONGC", 99, 1.0);
+        when(portfolioRepository.findByTickerId("ONGC.NS")).thenReturn(Optional.of(existing));
+
+        projector.rebuild("ONGC.NS");
+
+        verify(portfolioRepository).save(existing);
+        assertEquals(15, existing.getTotalQuantity());
+        assertEquals(150.0, existing.getAveragePrice(), 1e-9);
+        assertEquals(15 * 250.0, existing.getCurrentValue(), 1e-9);
+    }
+
+    @Test
+    void testRebuild_RemovesHoldingWhenTradesNetToZero() {
+        when(snapshotRepository.findFirstByTickerIdOrderByLastTradeIdDesc("ONGC.NS")).thenReturn(Optional.empty());
+        // The BUY these SELLs came out of was deleted
+        when(tradeRepository.findReplayAfter("ONGC.NS", 0L))
+            .thenReturn(List.of(trade(1, "BUY", 5, 100.0), trade(3, "SELL", 8, 110.0)));
+        Portfolio existing = new Portfolio("ONGC.NS", "ONGC", 2, 100.0);
+        when(portfolioRepository.findByTickerId("ONGC.NS")).thenReturn(Optional.of(existing));
+
+        PortfolioProjection projection = projector.rebuild("ONGC.NS");
+
+        assertEquals(0, projection.getQuantity());
+        verify(portfolioRepository).delete(existing);
+        verify(portfolioRepository, never()).save(any());
+    }
+
+    @Test
+    void testSnapshot_OnlyAfterEnoughNewTrades() {
+        when(snapshotRepository.findFirstByTickerIdOrderByLastTradeIdDesc("ONGC.NS")).thenReturn(Optional.empty());
+        when(tradeRepository.findReplayAfter("ONGC.NS", 0L))
+            .thenReturn(List.of(trade(1, "BUY", 5, 100.0), trade(2, "BUY", 5, 120.0)));
+
+        assertFalse(projector.snapshot("ONGC.NS", 3));
+        assertTrue(projector.snapshot("ONGC.NS", 2));
+        ArgumentCaptor<PortfolioSnapshot> saved = ArgumentCaptor.forClass(PortfolioSnapshot.class);
+        verify(snapshotRepository).save(saved.capture());
+        assertEquals(2L, saved.getValue().getLastTradeId());
+        assertEquals(10, saved.getValue().getTotalQuantity());
+        assertEquals(110.0, saved.getValue().getAveragePrice(), 1e-9);
+    }
+
+    @Test
+    void testOpeningBalance_BuysWhatTheLogIsMissingAndGuardsRebuildUntilRecorded() {
+        when(snapshotRepository.findFirstByTickerIdOrderByLastTradeIdDesc("ONGC.NS")).thenReturn(Optional.empty());
+        // Imported 10 at 100 before the trade log, then bought 10 at 200
+        when(tradeRepository.findReplayAfter("ONGC.NS", 0L))
+            .thenReturn(List.of(trade(1, "BUY", 10, 200.0)));
+        Portfolio row = new Portfolio("ONGC.NS", "ONGC", 20, 150.0);
+        when(portfolioRepository.findByTickerId("ONGC.NS")).thenReturn(Optional.of(row));
+
+        when(tradeRepository.findFirstTimestamp("ONGC.NS")).thenReturn(trade(1, "BUY", 10, 200.0).getTimestamp());
+
+        assertThrows(IllegalStateException.class, () -> projector.requireMatchesLog("ONGC.NS"));
+        Trade opening = projector.openingBalance(row).orElseThrow();
+        assertEquals(TradeService.OPENING, opening.getTradeType());
+        assertEquals(10, opening.getQuantity());
+        assertEquals(100.0, opening.getPrice(), 1e-9);
+        assertEquals(trade(1, "BUY", 10, 200.0).getTimestamp().minusNanos(1000), opening.getTimestamp());
+
+        opening.setId(2L);
+        when(tradeRepository.findReplayAfter("ONGC.NS", 0L))
+            .thenReturn(List.of(opening, trade(1, "BUY", 10, 200.0)));
+        assertTrue(projector.openingBalance(row).isEmpty());
+        projector.requireMatchesLog("ONGC.NS");
+    }
+
+    @Test
+    void testOpeningBalance_CoversSharesSoldBeforeTheLogBoughtAny() {
+        when(snapshotRepository.findFirstByTickerIdOrderByLastTradeIdDesc("ONGC.NS")).thenReturn(Optional.empty());
+        // Imported 10 at 80 before the trade log, sold 5, then bought 10 at 200: 15 at (5 * 80 + 10 * 200) / 15
+        List<Trade> trades = List.of(trade(1, "SELL", 5, 150.0), trade(2, "BUY", 10, 200.0));
+        when(tradeRepository.findReplayAfter("ONGC.NS", 0L)).thenReturn(trades);
+        when(tradeRepository.findFirstTimestamp("ONGC.NS")).thenReturn(trades.get(0).getTimestamp());
+        Portfolio row = new Portfolio("ONGC.NS", "ONGC", 15, 160.0);
+
+        Trade opening = projector.openingBalance(row).orElseThrow();
+
+        assertEquals(10, opening.getQuantity());
+        assertEquals(80.0, opening.getPrice(), 1e-9);
+        opening.setId(3L);
+        when(tradeRepository.findReplayAfter("ONGC.NS", 0L)).thenReturn(List.of(opening, trades.get(0), trades.get(1)));
+        PortfolioProjection projection = projector.project("ONGC.NS");
+        assertTrue(projection.matches(row));
+        assertEquals(3L, projection.getLastTradeId());
+        assertEquals(3L, projection.toSnapshot().getLastTradeId());
+        assertEquals(trades.get(1).getTimestamp(), projection.toSnapshot().getLastTradeAt());
+    }
+
+    @Test
+    void testOpeningBalance_RefusesRowHoldingLessThanItsTrades() {
+        when(tradeRepository.findReplayAfter("ONGC.NS", 0L))
+            .thenReturn(List.of(trade(1, "BUY", 10, 100.0)));
+
+        assertThrows(IllegalStateException.class, () -> projector.openingBalance(new Portfolio("ONGC.NS", "ONGC", 4, 100.0)));
+        projector.markOpeningBalancesRecorded();
+        projector.requireMatchesLog("ONGC.NS");
+        verifyNoInteractions(portfolioRepository);
+    }
+
+    private static Trade trade(long id, String type, int quantity, double price) {
+        Trade trade = new Trade();
+        trade.setId(id);
+        trade.setTickerId("ONGC.NS");
+        trade.setCompanyName("ONGC");
+        trade.setTradeType(type);
+        trade.setQuantity(quantity);
+        trade.setPrice(price);
+        trade.setTotalAmount(quantity * price);
+        trade.setTimestamp(LocalDateTime.of(2026, 2, 4, 10, 0).plusMinutes(id));
+        return trade;
+    }
+}
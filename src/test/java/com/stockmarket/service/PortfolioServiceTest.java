@@ -1,5 +1,6 @@
 package com.stockmarket.service;
 
+import com.stockmarket.dto.TradeResponse;
 import com.stockmarket.entity.Portfolio;
 import com.stockmarket.repository.PortfolioRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,11 +14,13 @@ import java.time.LocalDateTime;
 import java.util.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class PortfolioServiceTest {
     @Mock private PortfolioRepository portfolioRepository;
+    @Mock private TradeService tradeService;
     @InjectMocks private PortfolioService portfolioService;
     private Portfolio portfolio;
 
@@ -45,10 +48,10 @@ class PortfolioServiceTest {
         String csv = "EXCHANGE,SYMBOL,NAME,QUANTITY,PRICE,TIMESTAMP\n" +
                     "NSE,RELIANCE.NS,\"Reliance\",10,2850.50,2026-02-04T10:30:00\n";
         MockMultipartFile file = new MockMultipartFile("file", "test.csv", "text/csv", csv.getBytes());
-        when(portfolioRepository.findByTickerId(anyString())).thenReturn(Optional.empty());
-        when(portfolioRepository.save(any(Portfolio.class))).thenReturn(portfolio);
+        when(tradeService.recordExecutedTrades(anyList())).thenReturn(List.of(new TradeResponse("SUCCESS", "BUY order executed successfully")));
         Map<String, Object> result = portfolioService.importFromCSV(file);
         assertTrue((Boolean) result.get("success"));
+        assertEquals(1, result.get("imported"));
     }
 
     @Test
@@ -0,0 +1,82 @@
+package com.stockmarket.service;
+
+import com.stockmarket.dto.TradeRequest;
+import com.stockmarket.entity.Portfolio;
+import com.stockmarket.entity.Trade;
+import com.stockmarket.model.MarketSnapshot;
+import com.stockmarket.repository.PortfolioRepository;
+import com.stockmarket.repository.TradeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import java.util.List;
+import java.util.Optional;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PreTradeRiskServiceTest {
+    @Mock private PortfolioRepository portfolioRepository;
+    @Mock private TradeRepository tradeRepository;
+    private TradeExposure exposure;
+
+    @BeforeEach
+    void setUp() {
+        when(portfolioRepository.findAll()).thenReturn(List.of(new Portfolio("ONGC.NS", "ONGC", 80, 100.0)));
+        when(tradeRepository.getTotalAmountSince(any())).thenReturn(5000.0);
+        exposure = new TradeExposure(portfolioRepository, tradeRepository);
+        exposure.load();
+    }
+
+    @Test
+    void testCheck_RefusesOrdersPastLimitsWithoutQueryingPerOrder() {
+        PreTradeRiskService risk = new PreTradeRiskService(List.of(
+            new OrderNotionalRiskCheck(2000), new PositionLimitRiskCheck(100), new DailyTurnoverRiskCheck(6000)), exposure);
+
+        assertTrue(risk.check(order("BUY", 20, 50.0)).isEmpty());
+        assertTrue(risk.check(order("BUY", 30, 100.0)).orElseThrow().contains("per order"));
+        assertTrue(risk.check(order("BUY", 21, 10.0)).orElseThrow().contains("above the limit of 100"));
+        assertTrue(risk.check(order("SELL", 21, 10.0)).isEmpty());
+
+        risk.onExecuted(List.of(trade("BUY", 15, 60.0)));
+        assertEquals(95, exposure.position("ONGC.NS"));
+        assertEquals(5900.0, exposure.turnoverToday(), 1e-9);
+        assertTrue(risk.check(order("SELL", 2, 60.0)).orElseThrow().contains("Daily turnover"));
+        verify(portfolioRepository, times(1)).findAll();
+        verify(tradeRepository, times(1)).getTotalAmountSince(any());
+    }
+
+    @Test
+    void testPriceBand_RefusesPricesFarFromTheCachedMarketPrice() {
+        MarketDataService marketData = mock(MarketDataService.class);
+        MarketSnapshot snapshot = mock(MarketSnapshot.class);
+        SymbolRegistry symbols = new SymbolRegistry();
+        int id = symbols.intern("ONGC.NS");
+        when(marketData.getSnapshot()).thenReturn(snapshot);
+        when(snapshot.getPrice(id)).thenReturn(100.0);
+        when(snapshot.getPrice(SymbolRegistry.UNKNOWN)).thenReturn(Double.NaN);
+        PreTradeRiskService risk = new PreTradeRiskService(List.of(new PriceBandRiskCheck(marketData, symbols, 10)), exposure);
+
+        assertEquals(Optional.empty(), risk.check(order("BUY", 1, 109.0)));
+        assertTrue(risk.check(order("BUY", 1, 1090.0)).orElseThrow().contains("away from the market price"));
+        TradeRequest unpriced = order("BUY", 1, 1090.0);
+        unpriced.setTickerId("NEW.NS");
+        assertEquals(Optional.empty(), risk.check(unpriced));
+    }
+
+    private static TradeRequest order(String type, int quantity, double price) {
+        TradeRequest request = new TradeRequest();
+        request.setTickerId("ONGC.NS");
+        request.setTradeType(type);
+        request.setQuantity(quantity);
+        request.setPrice(price);
+        return request;
+    }
+
+    private static Trade trade(String type, int quantity, double price) {
+        return new Trade("ONGC.NS", "ONGC", type, quantity, price, quantity * price);
+    }
+}
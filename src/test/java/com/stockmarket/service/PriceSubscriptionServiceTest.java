@@ -0,0 +1,73 @@
+package com.stockmarket.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockmarket.model.MarketQuote;
+import com.stockmarket.model.MarketSnapshot;
+import com.stockmarket.model.MarketSnapshotEvent;
+import com.stockmarket.repository.PortfolioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PriceSubscriptionServiceTest {
+    @Mock private MarketDataService marketDataService;
+    @Mock private PortfolioRepository portfolioRepository;
+    @Mock private WebSocketSession relianceSession;
+    @Mock private WebSocketSession tcsSession;
+    private PriceSubscriptionService subscriptionService;
+    private MarketSnapshot before;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        subscriptionService = new PriceSubscriptionService(marketDataService, portfolioRepository, new ObjectMapper());
+        ReflectionTestUtils.setField(subscriptionService, "sendTimeLimitMs", 5000);
+        ReflectionTestUtils.setField(subscriptionService, "bufferSizeLimit", 65536);
+        when(relianceSession.getId()).thenReturn("a");
+        when(tcsSession.getId()).thenReturn("b");
+        before = snapshot(2850.75, 1000, 3685.40);
+        when(marketDataService.getSnapshot()).thenReturn(before);
+        subscriptionService.register(relianceSession);
+        subscriptionService.register(tcsSession);
+        subscriptionService.subscribe(relianceSession, List.of("RELIANCE.NS"));
+        subscriptionService.subscribe(tcsSession, List.of("TCS.NS"));
+        clearInvocations(relianceSession, tcsSession);
+    }
+
+    @Test
+    void testDeltaRoutedOnlyToSubscribersOfChangedTicker() throws Exception {
+        subscriptionService.onSnapshot(new MarketSnapshotEvent(before, snapshot(2851.10, 1000, 3685.40)));
+        ArgumentCaptor<TextMessage> message = ArgumentCaptor.forClass(TextMessage.class);
+        verify(relianceSession).sendMessage(message.capture());
+        verify(tcsSession, never()).sendMessage(any());
+        assertEquals("{\"type\":\"delta\",\"quotes\":{\"RELIANCE.NS\":{\"price\":2851.1}}}", message.getValue().getPayload());
+    }
+
+    @Test
+    void testUnregisteredSessionReceivesNothing() throws Exception {
+        subscriptionService.unregister(relianceSession);
+        subscriptionService.onSnapshot(new MarketSnapshotEvent(before, snapshot(2851.10, 2000, 3685.40)));
+        verify(relianceSession, never()).sendMessage(any());
+        assertEquals(1, subscriptionService.getSessionCount());
+    }
+
+    private MarketSnapshot snapshot(double reliancePrice, int relianceVolume, double tcsPrice) {
+        Map<String, MarketQuote> quotes = Map.of(
+            "RELIANCE.NS", new MarketQuote("RELIANCE.NS", reliancePrice, Double.NaN, Double.NaN, relianceVolume),
+            "TCS.NS", new MarketQuote("TCS.NS", tcsPrice, Double.NaN, Double.NaN, 500));
+        return new MarketSnapshot(null, Map.of(), quotes, new double[0], Set.of(), Map.of(), Instant.now());
+    }
+}
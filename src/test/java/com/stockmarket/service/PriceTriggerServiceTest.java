@@ -0,0 +1,88 @@
+package com.stockmarket.service;
+
+import com.stockmarket.dto.TradeResponse;
+import com.stockmarket.entity.Portfolio;
+import com.stockmarket.entity.PriceTrigger;
+import com.stockmarket.repository.PortfolioRepository;
+import com.stockmarket.repository.PriceTriggerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PriceTriggerServiceTest {
+    @Mock private PriceTriggerRepository triggerRepository;
+    @Mock private PortfolioRepository portfolioRepository;
+    @Mock private TradeService tradeService;
+    private PriceTriggerService service;
+    private final AtomicLong ids = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        service = new PriceTriggerService(triggerRepository, portfolioRepository, tradeService, Runnable::run);
+        lenient().when(portfolioRepository.findByTickerId("ONGC.NS"))
+            .thenReturn(Optional.of(new Portfolio("ONGC.NS", "ONGC", 30, 240.0)));
+        lenient().when(triggerRepository.save(any(PriceTrigger.class))).thenAnswer(invocation -> {
+            PriceTrigger trigger = invocation.getArgument(0);
+            if (trigger.getId() == null) {
+                trigger.setId(ids.incrementAndGet());
+                lenient().when(triggerRepository.findById(trigger.getId())).thenReturn(Optional.of(trigger));
+            }
+            return trigger;
+        });
+        lenient().when(tradeService.sellFromPortfolio(anyString(), anyInt(), anyDouble()))
+            .thenReturn(new TradeResponse("SUCCESS", "SELL order executed successfully"));
+    }
+
+    @Test
+    void testOnPrice_FiresOnlyCrossedTriggersAndEachOnce() {
+        PriceTrigger nearStop = service.create("ONGC.NS", "STOP_LOSS", 230.0, 10);
+        PriceTrigger farStop = service.create("ONGC.NS", "STOP_LOSS", 200.0, 10);
+        PriceTrigger profit = service.create("ONGC.NS", "TAKE_PROFIT", 260.0, null);
+
+        assertEquals(0, service.onPrice("ONGC.NS", 245.0));
+        assertEquals(1, service.onPrice("ONGC.NS", 229.5));
+        assertEquals(0, service.onPrice("ONGC.NS", 229.0));
+        verify(tradeService).sellFromPortfolio("ONGC.NS", 10, 229.5);
+        assertEquals("FIRED", nearStop.getStatus());
+        assertEquals("ACTIVE", farStop.getStatus());
+
+        assertEquals(1, service.onPrice("ONGC.NS", 261.0));
+        verify(tradeService).sellFromPortfolio("ONGC.NS", 30, 261.0);
+        assertEquals("FIRED", profit.getStatus());
+        assertEquals(0, service.onPrice("OTHER.NS", 1.0));
+    }
+
+    @Test
+    void testCancel_DisarmsTriggerAndFailsAfterItFired() {
+        PriceTrigger stop = service.create("ONGC.NS", "STOP_LOSS", 230.0, 10);
+        PriceTrigger profit = service.create("ONGC.NS", "TAKE_PROFIT", 260.0, 10);
+
+        assertTrue(service.cancel("ONGC.NS", profit.getId()));
+        assertEquals("CANCELLED", profit.getStatus());
+        assertEquals(0, service.onPrice("ONGC.NS", 300.0));
+
+        service.onPrice("ONGC.NS", 220.0);
+        assertFalse(service.cancel("ONGC.NS", stop.getId()));
+        verify(tradeService, times(1)).sellFromPortfolio(anyString(), anyInt(), anyDouble());
+    }
+
+    @Test
+    void testCreate_RequiresAHolding() {
+        when(portfolioRepository.findByTickerId("NONE.NS")).thenReturn(Optional.empty());
+        assertThrows(IllegalArgumentException.class, () -> service.create("NONE.NS", "STOP_LOSS", 10.0, null));
+        assertThrows(IllegalArgumentException.class, () -> service.create("ONGC.NS", "TRAILING", 10.0, null));
+        assertEquals(List.of(), service.getTriggers("NONE.NS"));
+    }
+}
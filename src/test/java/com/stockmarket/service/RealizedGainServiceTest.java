@@ -0,0 +1,65 @@
+package com.stockmarket.service;
+
+import com.stockmarket.entity.RealizedGain;
+import com.stockmarket.entity.Trade;
+import com.stockmarket.repository.RealizedGainRepository;
+import com.stockmarket.repository.TradeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RealizedGainServiceTest {
+    @Mock private RealizedGainRepository gainRepository;
+    @Mock private TradeRepository tradeRepository;
+    @Captor private ArgumentCaptor<List<RealizedGain>> gains;
+    private RealizedGainService realizedGainService;
+
+    @BeforeEach
+    void setUp() {
+        realizedGainService = new RealizedGainService(gainRepository, tradeRepository, "FIFO");
+    }
+
+    @Test
+    void testRecord_SellMatchesOldestLotsFirst() {
+        realizedGainService.record(List.of(
+            trade(1L, "BUY", 10, 100.0),
+            trade(2L, "BUY", 10, 150.0),
+            trade(3L, "SELL", 15, 120.0)));
+
+        verify(gainRepository).saveAll(gains.capture());
+        assertEquals(1, gains.getValue().size());
+        RealizedGain gain = gains.getValue().get(0);
+        assertEquals(3L, gain.getSellTradeId());
+        assertEquals(15, gain.getQuantity());
+        assertEquals(15 * 120.0 - (10 * 100.0 + 5 * 150.0), gain.getGain(), 1e-9);
+    }
+
+    @Test
+    void testRebuild_MatchesSellsAgainstOpeningBalanceReplayedFirst() {
+        when(tradeRepository.findReplayAfter("ONGC.NS", 0L)).thenReturn(List.of(
+            trade(3L, TradeService.OPENING, 10, 80.0),
+            trade(1L, "SELL", 5, 150.0),
+            trade(2L, "BUY", 10, 200.0)));
+
+        realizedGainService.rebuild("ONGC.NS");
+
+        verify(gainRepository).saveAll(gains.capture());
+        assertEquals(1, gains.getValue().size());
+        assertEquals(1L, gains.getValue().get(0).getSellTradeId());
+        assertEquals(5 * 150.0 - 5 * 80.0, gains.getValue().get(0).getGain(), 1e-9);
+    }
+
+    private static Trade trade(Long id, String type, int quantity, double price) {
+        Trade trade = new Trade("ONGC.NS", "ONGC", type, quantity, price, quantity * price);
+        trade.setId(id);
+        return trade;
+    }
+}
@@ -0,0 +1,34 @@
+package com.stockmarket.service;
+
+import org.junit.jupiter.api.Test;
+import java.util.HashSet;
+import java.util.Set;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SymbolRegistryTest {
+
+    @Test
+    void testIntern_AssignsDenseStableIds() {
+        SymbolRegistry registry = new SymbolRegistry();
+        assertEquals(0, registry.intern("RELIANCE.NS", "NSE"));
+        assertEquals(1, registry.intern("RELIANCE.BO", "BSE"));
+        assertEquals(0, registry.intern("RELIANCE.NS", "BSE"));
+        assertEquals(2, registry.size());
+        assertEquals("RELIANCE.BO", registry.symbol(1));
+        assertEquals("NSE", registry.exchange(0));
+        assertEquals(SymbolRegistry.UNKNOWN, registry.idOf("TCS.NS"));
+        assertNull(registry.symbol(SymbolRegistry.UNKNOWN));
+    }
+
+    @Test
+    void testIntern_GrowsPastInitialCapacity() {
+        SymbolRegistry registry = new SymbolRegistry();
+        Set<Integer> ids = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            ids.add(registry.intern("SYM" + i, "EX" + (i % 7)));
+        }
+        assertEquals(1000, ids.size());
+        assertEquals("SYM999", registry.symbol(999));
+        assertEquals("EX5", registry.exchange(999));
+    }
+}
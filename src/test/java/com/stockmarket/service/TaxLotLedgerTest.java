@@ -0,0 +1,64 @@
+package com.stockmarket.service;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaxLotLedgerTest {
+
+    @Test
+    void testFifo_ConsumesOldestLotsFirst() {
+        TaxLotLedger ledger = lots(TaxLotLedger.Method.FIFO);
+
+        TaxLotLedger.Match match = ledger.sell(15);
+
+        assertEquals(15, match.quantity);
+        assertEquals(10 * 100.0 + 5 * 200.0, match.cost, 1e-9);
+        assertEquals(2, ledger.getLotCount());
+        assertEquals(15, ledger.getQuantity());
+    }
+
+    @Test
+    void testLifo_ConsumesNewestLotsFirst() {
+        TaxLotLedger ledger = lots(TaxLotLedger.Method.LIFO);
+
+        TaxLotLedger.Match match = ledger.sell(15);
+
+        assertEquals(10 * 300.0 + 5 * 200.0, match.cost, 1e-9);
+        assertEquals(2, ledger.getLotCount());
+        ledger.buy(1, 400.0);
+        assertEquals(400.0 + 5 * 200.0, ledger.sell(6).cost, 1e-9);
+    }
+
+    @Test
+    void testAverage_PoolsLotsAndStopsWhenTheyRunOut() {
+        TaxLotLedger ledger = lots(TaxLotLedger.Method.AVERAGE);
+        assertEquals(1, ledger.getLotCount());
+
+        assertEquals(15 * 200.0, ledger.sell(15).cost, 1e-9);
+        TaxLotLedger.Match rest = ledger.sell(40);
+        assertEquals(15, rest.quantity);
+        assertEquals(0, ledger.getQuantity());
+    }
+
+    @Test
+    void testManyLots_WrapAroundTheBuffer() {
+        TaxLotLedger ledger = new TaxLotLedger(TaxLotLedger.Method.FIFO);
+        for (int i = 1; i <= 3; i++) {
+            ledger.buy(1, i);
+        }
+        ledger.sell(2);
+        for (int i = 4; i <= 10; i++) {
+            ledger.buy(1, i);
+        }
+        assertEquals(8, ledger.getLotCount());
+        assertEquals(3.0 + 4.0 + 5.0, ledger.sell(3).cost, 1e-9);
+    }
+
+    private static TaxLotLedger lots(TaxLotLedger.Method method) {
+        TaxLotLedger ledger = new TaxLotLedger(method);
+        ledger.buy(10, 100.0);
+        ledger.buy(10, 200.0);
+        ledger.buy(10, 300.0);
+        return ledger;
+    }
+}
@@ -0,0 +1,63 @@
+package com.stockmarket.service;
+
+import com.stockmarket.model.Tick;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickStoreTest {
+    @TempDir Path dir;
+
+    private static final Instant DAY_ONE = Instant.parse("2026-02-04T04:00:00Z");
+    private static final Instant DAY_TWO = Instant.parse("2026-02-05T04:00:00Z");
+
+    @Test
+    void testScan_FiltersBySymbolAndTimeAcrossSegments() throws Exception {
+        TickStore store = openStore(new SymbolRegistry(), 3);
+        for (int i = 0; i < 5; i++) {
+            store.append("ONGC.NS", DAY_ONE.plusSeconds(60L * i).toEpochMilli(), 285.0 + i, 1000 + i);
+            store.append("TCS.NS", DAY_ONE.plusSeconds(60L * i).toEpochMilli(), 3685.0, 500);
+        }
+        store.append("ONGC.NS", DAY_TWO.toEpochMilli(), 290.0, 2000);
+
+        List<Tick> ticks = store.scan("ONGC.NS", DAY_ONE.plusSeconds(60), DAY_TWO, 100);
+        assertEquals(5, ticks.size());
+        assertEquals(286.0, ticks.get(0).getPrice());
+        assertEquals(1001L, ticks.get(0).getVolume());
+        assertEquals(290.0, ticks.get(4).getPrice());
+        assertTrue(Files.exists(dir.resolve("ticks-2026-02-04.3.seg")));
+        assertTrue(Files.exists(dir.resolve("ticks-2026-02-05.0.seg")));
+        assertEquals(2, store.scan("ONGC.NS", DAY_ONE, DAY_TWO, 2).size());
+        store.close();
+    }
+
+    @Test
+    void testReopen_ResumesAppendingAndKeepsSymbolIds() throws Exception {
+        TickStore first = openStore(new SymbolRegistry(), 100);
+        first.append("ONGC.NS", DAY_ONE.toEpochMilli(), 285.0, 1000);
+        first.append("TCS.NS", DAY_ONE.toEpochMilli(), 3685.0, 500);
+        first.close();
+
+        SymbolRegistry registry = new SymbolRegistry();
+        registry.intern("TCS.NS");
+        TickStore second = openStore(registry, 100);
+        second.append("ONGC.NS", DAY_ONE.plusSeconds(60).toEpochMilli(), 286.0, 1100);
+
+        List<Tick> ticks = second.scan("ONGC.NS", DAY_ONE, DAY_ONE.plusSeconds(3600), 100);
+        assertEquals(2, ticks.size());
+        assertEquals(286.0, ticks.get(1).getPrice());
+        assertEquals(1, second.scan("TCS.NS", DAY_ONE, DAY_ONE.plusSeconds(3600), 100).size());
+        assertEquals(List.of("ONGC.NS", "TCS.NS"), Files.readAllLines(dir.resolve("symbols.dict")));
+        second.close();
+    }
+
+    private TickStore openStore(SymbolRegistry registry, int segmentCapacity) throws Exception {
+        TickStore store = new TickStore(registry, dir.toString(), true, segmentCapacity);
+        store.open();
+        return store;
+    }
+}
@@ -0,0 +1,57 @@
+package com.stockmarket.service;
+
+import com.stockmarket.dto.TradeRequest;
+import com.stockmarket.dto.TradeResponse;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TradePipelineTest {
+
+    @Test
+    void testSubmit_GroupsConcurrentTradesAndAnswersEachCaller() throws Exception {
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        TradePipeline pipeline = new TradePipeline(1, 64, 16, 20, 1000, requests -> {
+            batchSizes.add(requests.size());
+            List<TradeResponse> responses = new ArrayList<>();
+            for (TradeRequest request : requests) {
+                responses.add(new TradeResponse("SUCCESS", request.getTickerId() + ":" + request.getQuantity()));
+            }
+            return responses;
+        });
+        ExecutorService callers = Executors.newFixedThreadPool(32);
+        List<Future<TradeResponse>> results = new ArrayList<>();
+        for (int i = 1; i <= 32; i++) {
+            TradeRequest request = new TradeRequest();
+            request.setTickerId("ONGC.NS");
+            request.setQuantity(i);
+            results.add(callers.submit(() -> pipeline.submit(request)));
+        }
+        for (int i = 1; i <= 32; i++) {
+            assertEquals("ONGC.NS:" + i, results.get(i - 1).get().getMessage());
+        }
+        callers.shutdown();
+        pipeline.shutdown();
+        assertEquals(32, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(batchSizes.size() < 32);
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 16));
+    }
+
+    @Test
+    void testSubmit_FailedBatchReportsErrorToCaller() throws Exception {
+        TradePipeline pipeline = new TradePipeline(2, 8, 8, 1, 1000, requests -> {
+            throw new IllegalStateException("database down");
+        });
+        TradeRequest request = new TradeRequest();
+        request.setTickerId("TCS.NS");
+        TradeResponse response = pipeline.submit(request);
+        pipeline.shutdown();
+        assertEquals("ERROR", response.getStatus());
+        assertTrue(response.getMessage().contains("database down"));
+    }
+}
@@ -11,16 +11,35 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class TradeServiceTest {
     @Mock private TradeRepository tradeRepository;
     @Mock private PortfolioRepository portfolioRepository;
+    @Mock private RealizedGainService realizedGainService;
+    @Mock private PreTradeRiskService preTradeRiskService;
+    @Mock private PortfolioProjector portfolioProjector;
+    @Spy private TransactionTemplate transactionTemplate = new TransactionTemplate(new NoOpTransactionManager());
     @InjectMocks private TradeService tradeService;
     private TradeRequest buyRequest;
     private Portfolio portfolio;
@@ -74,4 +93,120 @@ class TradeServiceTest {
         TradeResponse response = tradeService.sellFromPortfolio("RELIANCE.NS", 5, 2900.00);
         assertEquals("SUCCESS", response.getStatus());
     }
+
+    @Test
+    void testExecuteTrade_RetriesOnVersionConflict() {
+        when(portfolioRepository.findByTickerId(buyRequest.getTickerId())).thenReturn(Optional.of(portfolio));
+        when(tradeRepository.save(any(Trade.class))).thenReturn(trade);
+        doThrow(new ObjectOptimisticLockingFailureException(Portfolio.class, 1L)).doNothing().when(portfolioRepository).flush();
+        TradeResponse response = tradeService.executeTrade(buyRequest);
+        assertEquals("SUCCESS", response.getStatus());
+        verify(transactionTemplate, times(2)).execute(any());
+    }
+
+    @Test
+    void testExecuteTrade_GivesUpAfterRepeatedConflicts() {
+        when(portfolioRepository.findByTickerId(buyRequest.getTickerId())).thenReturn(Optional.of(portfolio));
+        when(tradeRepository.save(any(Trade.class))).thenReturn(trade);
+        doThrow(new ObjectOptimisticLockingFailureException(Portfolio.class, 1L)).when(portfolioRepository).flush();
+        TradeResponse response = tradeService.executeTrade(buyRequest);
+        assertEquals("ERROR", response.getStatus());
+        verify(transactionTemplate, times(3)).execute(any());
+    }
+
+    @Test
+    void testExecuteBatch_AppliesTradesInOrderWithOnePortfolioWrite() {
+        when(portfolioRepository.findByTickerId("RELIANCE.NS")).thenReturn(Optional.of(portfolio));
+        when(tradeRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        TradeRequest oversell = sellRequest(25);
+        List<TradeResponse> responses = tradeService.executeBatch(List.of(buyRequest, oversell, sellRequest(20)));
+        assertEquals("SUCCESS", responses.get(0).getStatus());
+        assertEquals("Insufficient shares to sell", responses.get(1).getMessage());
+        assertEquals("SUCCESS", responses.get(2).getStatus());
+        verify(portfolioRepository, times(1)).findByTickerId("RELIANCE.NS");
+        verify(portfolioRepository).delete(portfolio);
+        verify(transactionTemplate, times(1)).execute(any());
+    }
+
+    @Test
+    void executeTradesRejectsInvalidItemsAndCommitsTheRestTogether() {
+        when(portfolioRepository.findByTickerId("RELIANCE.NS")).thenReturn(Optional.empty());
+        when(tradeRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        TradeRequest invalid = sellRequest(0);
+        List<TradeResponse> responses = tradeService.executeTrades(List.of(buyRequest, invalid, sellRequest(4)));
+        assertEquals(3, responses.size());
+        assertEquals("SUCCESS", responses.get(0).getStatus());
+        assertEquals("Quantity must be greater than 0", responses.get(1).getMessage());
+        assertEquals("SUCCESS", responses.get(2).getStatus());
+        verify(tradeRepository, times(1)).saveAll(anyList());
+        verify(portfolioRepository, times(1)).save(any(Portfolio.class));
+        verify(transactionTemplate, times(1)).execute(any());
+    }
+
+    @Test
+    void testPipelineWriter_WaitsForTheTickerLock() throws Exception {
+        ReflectionTestUtils.setField(tradeService, "pipelineEnabled", true);
+        ReflectionTestUtils.setField(tradeService, "pipelinePartitions", 1);
+        ReflectionTestUtils.setField(tradeService, "pipelineBufferSize", 16);
+        ReflectionTestUtils.setField(tradeService, "pipelineBatchSize", 16);
+        ReflectionTestUtils.setField(tradeService, "pipelineEnqueueTimeoutMs", 1000L);
+        when(portfolioRepository.findByTickerId("RELIANCE.NS")).thenReturn(Optional.empty());
+        when(tradeRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // Holds the ticker's lock, as a batch, an order fill or a rebuild would
+        when(portfolioProjector.snapshot("RELIANCE.NS", 1)).thenAnswer(invocation -> {
+            holding.countDown();
+            release.await();
+            return false;
+        });
+        tradeService.startPipeline();
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            pool.submit(() -> tradeService.snapshotPortfolio("RELIANCE.NS", 1));
+            assertTrue(holding.await(5, TimeUnit.SECONDS));
+            Future<TradeResponse> buy = pool.submit(() -> tradeService.executeTrade(buyRequest));
+            Thread.sleep(200);
+            verify(tradeRepository, never()).saveAll(anyList());
+            release.countDown();
+            assertEquals("SUCCESS", buy.get(5, TimeUnit.SECONDS).getStatus());
+        } finally {
+            pool.shutdownNow();
+            tradeService.stopPipeline();
+        }
+    }
+
+    private TradeRequest sellRequest(int quantity) {
+        TradeRequest request = new TradeRequest();
+        request.setTickerId("RELIANCE.NS");
+        request.setTradeType("SELL");
+        request.setQuantity(quantity);
+        request.setPrice(2900.00);
+        request.setTotalAmount(quantity * 2900.00);
+        return request;
+    }
+
+    @Test
+    void testImportExternalTrades_BadRowImportsNothing() {
+        String csv = "Ticker,Company,Quantity,Price\n"
+            + "ONGC.NS,ONGC,10,245.50\n"
+            + "TCS.NS,TCS,ten,3900\n"
+            + "INFY.NS,Infosys,5,-1\n";
+        MockMultipartFile file = new MockMultipartFile("file", "broker.csv", "text/csv", csv.getBytes());
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> tradeService.importExternalTrades(file));
+        assertTrue(e.getMessage().contains("Row 3"));
+        assertTrue(e.getMessage().contains("Row 4: Price must be greater than 0"));
+        verifyNoInteractions(tradeRepository, portfolioRepository);
+    }
+
+    /** Runs callbacks without a real transaction. */
+    private static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+        private static final long serialVersionUID = 1L;
+
+        @Override protected Object doGetTransaction() { return new Object(); }
+        @Override protected void doBegin(Object transaction, TransactionDefinition definition) { }
+        @Override protected void doCommit(DefaultTransactionStatus status) { }
+        @Override protected void doRollback(DefaultTransactionStatus status) { }
+    }
 }
@@ -0,0 +1,108 @@
+package com.stockmarket.service;
+
+import com.stockmarket.model.UpstreamResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UpstreamClientTest {
+    @Mock private RestTemplate restTemplate;
+    private UpstreamClient upstreamClient;
+    @Captor private ArgumentCaptor<HttpEntity<?>> requests;
+    private HttpHeaders headers;
+
+    @BeforeEach
+    void setUp() {
+        upstreamClient = new UpstreamClient(restTemplate, 2, 3000, 30000, 0);
+        headers = new HttpHeaders();
+        headers.set("X-Api-Key", "test-key");
+    }
+
+    @Test
+    void testGet_ServesLastKnownGoodWhenCircuitOpen() {
+        when(restTemplate.exchange(eq("news"), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
+            .thenReturn(ResponseEntity.ok("{\"news\":[]}"))
+            .thenThrow(new ResourceAccessException("down"));
+        assertFalse(upstreamClient.get("news", headers, String.class).isFromCache());
+        upstreamClient.get("news", headers, String.class);
+        upstreamClient.get("news", headers, String.class);
+        UpstreamResponse<String> response = upstreamClient.get("news", headers, String.class);
+        assertTrue(response.isFromCache());
+        assertEquals("{\"news\":[]}", response.getBody());
+        verify(restTemplate, times(3)).exchange(eq("news"), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class));
+    }
+
+    @Test
+    void testGet_RevalidatesWithEtagAndReusesBodyOn304() {
+        byte[] body = "{\"news\":[]}".getBytes();
+        when(restTemplate.exchange(eq("news"), eq(HttpMethod.GET), any(HttpEntity.class), eq(byte[].class)))
+            .thenReturn(ResponseEntity.ok().eTag("v1").body(body))
+            .thenReturn(ResponseEntity.status(HttpStatus.NOT_MODIFIED).<byte[]>build());
+        UpstreamResponse<byte[]> first = upstreamClient.get("news", headers, byte[].class);
+        UpstreamResponse<byte[]> second = upstreamClient.get("news", headers, byte[].class);
+
+        verify(restTemplate, times(2)).exchange(eq("news"), eq(HttpMethod.GET), requests.capture(), eq(byte[].class));
+        assertTrue(requests.getAllValues().get(0).getHeaders().getIfNoneMatch().isEmpty());
+        assertEquals(List.of("\"v1\""), requests.getAllValues().get(1).getHeaders().getIfNoneMatch());
+        assertSame(body, second.getBody());
+        assertFalse(second.isFromCache());
+        assertSame(first.getBody(), second.getBody());
+        assertEquals(first.getModifiedAt(), second.getModifiedAt());
+        assertFalse(second.getFetchedAt().isBefore(first.getFetchedAt()));
+    }
+
+    @Test
+    void testGet_ServesRecentBodyWithoutCallingUpstream() {
+        upstreamClient = new UpstreamClient(restTemplate, 2, 3000, 30000, 60000);
+        when(restTemplate.exchange(eq("news"), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
+            .thenReturn(ResponseEntity.ok("{\"news\":[]}"));
+        UpstreamResponse<String> first = upstreamClient.get("news", headers, String.class);
+        for (int i = 0; i < 5; i++) {
+            assertSame(first, upstreamClient.get("news", headers, String.class));
+        }
+        verify(restTemplate, times(1)).exchange(eq("news"), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class));
+    }
+
+    @Test
+    void testGet_CoalescesConcurrentIdenticalRequests() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(restTemplate.exchange(eq("trending"), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
+            .thenAnswer(invocation -> {
+                release.await();
+                return ResponseEntity.ok("{\"trending_stocks\":{}}");
+            });
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<UpstreamResponse<String>>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(pool.submit(() -> upstreamClient.get("trending", headers, String.class)));
+        }
+        Thread.sleep(200);
+        release.countDown();
+        for (Future<UpstreamResponse<String>> result : results) {
+            assertNotNull(result.get().getBody());
+        }
+        pool.shutdown();
+        verify(restTemplate, times(1)).exchange(eq("trending"), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class));
+    }
+}